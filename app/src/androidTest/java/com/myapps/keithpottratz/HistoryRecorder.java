@@ -0,0 +1,96 @@
+package com.myapps.keithpottratz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind recorder for inventory_history.
+ *
+ * Events are appended to a bounded in-memory queue and written in one
+ * transaction per batch, either when batchSize events are waiting or
+ * flushDelayMs after the first unflushed event, whichever comes first.
+ * A full queue is flushed on the caller's thread, so events are never dropped.
+ *
+ * Inventory changes are audited by triggers (see InventoryTriggers), so the
+ * app no longer uses this; StorageBenchmarkTest keeps it as the batched
+ * baseline the per-event inserts are compared with.
+ */
+public final class HistoryRecorder {
+
+    static final int DEFAULT_CAPACITY = 1024;
+    static final int DEFAULT_BATCH_SIZE = 64;
+    static final long DEFAULT_FLUSH_DELAY_MS = 2000;
+
+    private final InventoryHistoryDao dao;
+    private final ArrayBlockingQueue<InventoryHistory> queue;
+    private final int batchSize;
+    private final long flushDelayMs;
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "history-flusher"));
+    private final Object flushLock = new Object();
+    private ScheduledFuture<?> pendingFlush;    // Guarded by this
+
+    HistoryRecorder(InventoryHistoryDao dao, int capacity, int batchSize, long flushDelayMs) {
+        this.dao = dao;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushDelayMs = flushDelayMs;
+    }
+
+    /**
+     * Queue an event. Returns immediately unless the queue is full.
+     */
+    public void record(InventoryHistory event) {
+        while (!queue.offer(event)) {
+            flush();    // Back-pressure: write on this thread rather than drop
+        }
+
+        if (queue.size() >= batchSize) {
+            flusher.execute(this::flush);
+        } else {
+            scheduleFlush();
+        }
+    }
+
+    private synchronized void scheduleFlush() {
+        if (pendingFlush == null || pendingFlush.isDone()) {
+            pendingFlush = flusher.schedule(this::flush, flushDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write every queued event in a single transaction on the calling thread.
+     *
+     * @return Number of events written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            List<InventoryHistory> batch = new ArrayList<>(queue.size());
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                dao.insertAll(batch);
+            }
+            return batch.size();
+        }
+    }
+
+    /**
+     * Events queued but not yet written.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Flush and stop the background flusher.
+     */
+    void close() {
+        flush();
+        flusher.shutdown();
+    }
+}
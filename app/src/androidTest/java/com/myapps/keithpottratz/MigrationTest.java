@@ -0,0 +1,234 @@
+package com.myapps.keithpottratz;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test for the schema migrations.
+ *
+ * Writes a version 2 database (the first released schema, as Room created it)
+ * with a large generated inventory through plain SQLite, then opens it with
+ * AppDatabase.build(). Room runs every migration up to the current version and
+ * validates the result against the entities. The test then checks the stored
+ * value column and its index (MIGRATION_5_6, MIGRATION_6_7) and the derived
+ * columns and summaries filled from the migrated rows.
+ *
+ * room-testing and exported schemas are not set up in this project, so the
+ * old schema is spelled out here.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TEST_DB = "inventory-migration-test.db";
+    private static final int ITEMS = 20000;
+    private static final int CATEGORIES = 20;
+    private static final int TOP = 50;
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        context.deleteDatabase(TEST_DB);
+        createVersion2(context, TEST_DB, ITEMS);
+        db = AppDatabase.build(context, TEST_DB, StorageProfile.WAL_TUNED, null);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migratesEveryRow() {
+        InventoryDao dao = db.inventoryDao();
+        assertEquals(ITEMS, dao.getTotalItemCount());
+
+        // Prices are converted to cents and the derived columns filled for every row
+        assertEquals(0, count("SELECT COUNT(*) FROM inventory WHERE "
+                + "price_cents != ((id - 1) % 1000) * 100 + (id - 1) % 100"));
+        assertEquals(0, count("SELECT COUNT(*) FROM inventory WHERE "
+                + "stock_value_cents != quantity * price_cents "
+                + "OR low_stock_deficit != min_stock_level - quantity"));
+
+        long totalValue = 0;
+        long totalQuantity = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            totalValue += quantity(i) * priceCents(i);
+            totalQuantity += quantity(i);
+        }
+        assertEquals(totalValue, dao.getTotalInventoryValueCents());
+        assertEquals(totalQuantity, dao.getTotalQuantity());
+        assertEquals(totalValue, count("SELECT total_value_cents FROM stock_summary WHERE scope = 'ALL'"));
+    }
+
+    @Test
+    public void topByValueReadsTheIndex() {
+        List<Long> values = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            values.add(quantity(i) * priceCents(i));
+        }
+        Collections.sort(values, Collections.reverseOrder());
+
+        List<InventoryItem> top = db.inventoryDao().getTopByValue(TOP);
+        assertEquals(TOP, top.size());
+        for (int i = 0; i < TOP; i++) {
+            assertEquals(values.get(i).longValue(), top.get(i).getStockValueCents());
+        }
+
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.getOpenHelper().getReadableDatabase().query(
+                "EXPLAIN QUERY PLAN SELECT * FROM inventory ORDER BY stock_value_cents DESC LIMIT " + TOP)) {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(3)).append('\n');
+            }
+        }
+        assertTrue(plan.toString(), plan.indexOf("index_inventory_stock_value_cents") >= 0);
+        assertFalse(plan.toString(), plan.indexOf("TEMP B-TREE") >= 0);
+    }
+
+    // Generated item i (id i + 1); price i % 1000 units and i % 100 cents
+    private static int quantity(int i) {
+        return i % 200;
+    }
+
+    private static long priceCents(int i) {
+        return (i % 1000) * 100L + i % 100;
+    }
+
+    private long count(String sql) {
+        SupportSQLiteDatabase database = db.getOpenHelper().getReadableDatabase();
+        try (Cursor cursor = database.query(sql)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+
+    /**
+     * Write a version 2 database with the given number of items, the way the
+     * first release's Room schema created it.
+     */
+    static void createVersion2(Context context, String name, int items) {
+        SQLiteDatabase database = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(name), null);
+        try {
+            database.beginTransaction();
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `inventory` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`name` TEXT NOT NULL, " +
+                "`description` TEXT, " +
+                "`quantity` INTEGER NOT NULL, " +
+                "`category_id` INTEGER, " +
+                "`supplier_id` INTEGER, " +
+                "`location_id` INTEGER, " +
+                "`price` REAL NOT NULL, " +
+                "`sku` TEXT, " +
+                "`min_stock_level` INTEGER NOT NULL, " +
+                "`created_at` INTEGER NOT NULL, " +
+                "`updated_at` INTEGER NOT NULL, " +
+                "FOREIGN KEY(`category_id`) REFERENCES `categories`(`id`) ON UPDATE CASCADE ON DELETE SET NULL , " +
+                "FOREIGN KEY(`supplier_id`) REFERENCES `suppliers`(`id`) ON UPDATE CASCADE ON DELETE SET NULL , " +
+                "FOREIGN KEY(`location_id`) REFERENCES `locations`(`id`) ON UPDATE CASCADE ON DELETE SET NULL )"
+            );
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_category_id` ON `inventory` (`category_id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_supplier_id` ON `inventory` (`supplier_id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_location_id` ON `inventory` (`location_id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_sku` ON `inventory` (`sku`)");
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `users` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`username` TEXT NOT NULL, " +
+                "`password_hash` TEXT NOT NULL, " +
+                "`created_at` INTEGER NOT NULL)"
+            );
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_users_username` ON `users` (`username`)");
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `categories` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`name` TEXT NOT NULL, " +
+                "`description` TEXT, " +
+                "`color_code` TEXT, " +
+                "`created_at` INTEGER NOT NULL)"
+            );
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `suppliers` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`name` TEXT NOT NULL, " +
+                "`contact_person` TEXT, " +
+                "`email` TEXT, " +
+                "`phone` TEXT, " +
+                "`address` TEXT, " +
+                "`created_at` INTEGER NOT NULL)"
+            );
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `locations` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`name` TEXT NOT NULL, " +
+                "`building` TEXT, " +
+                "`zone` TEXT, " +
+                "`aisle` TEXT, " +
+                "`shelf` TEXT, " +
+                "`created_at` INTEGER NOT NULL)"
+            );
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `inventory_history` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`item_id` INTEGER NOT NULL, " +
+                "`user_id` INTEGER, " +
+                "`action` TEXT NOT NULL, " +
+                "`field_changed` TEXT, " +
+                "`old_value` TEXT, " +
+                "`new_value` TEXT, " +
+                "`timestamp` INTEGER NOT NULL, " +
+                "FOREIGN KEY(`item_id`) REFERENCES `inventory`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                "FOREIGN KEY(`user_id`) REFERENCES `users`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL )"
+            );
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_history_item_id` ON `inventory_history` (`item_id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_history_user_id` ON `inventory_history` (`user_id`)");
+
+            long now = System.currentTimeMillis();
+            for (int c = 1; c <= CATEGORIES; c++) {
+                database.execSQL("INSERT INTO `categories` (`name`, `created_at`) VALUES (?, ?)",
+                        new Object[]{"Category " + c, now});
+            }
+            SQLiteStatement insert = database.compileStatement(
+                "INSERT INTO `inventory` (`name`, `description`, `quantity`, `category_id`, `price`, " +
+                "`sku`, `min_stock_level`, `created_at`, `updated_at`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            for (int i = 0; i < items; i++) {
+                insert.bindString(1, "Item " + i);
+                insert.bindString(2, "Generated item " + i);
+                insert.bindLong(3, quantity(i));
+                insert.bindLong(4, 1 + i % CATEGORIES);
+                insert.bindDouble(5, priceCents(i) / 100.0);
+                insert.bindString(6, "SKU-" + i);
+                insert.bindLong(7, i % 30);
+                insert.bindLong(8, now);
+                insert.bindLong(9, now);
+                insert.executeInsert();
+            }
+            database.setVersion(2);
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+            database.close();
+        }
+    }
+}
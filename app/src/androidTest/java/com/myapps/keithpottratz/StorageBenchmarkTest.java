@@ -0,0 +1,746 @@
+package com.myapps.keithpottratz;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented benchmarks for comparing storage profiles and write paths.
+ *
+ * run() seeds a scratch database, then runs one writer adjusting quantities while
+ * reader threads scan the grid cards, and reports read and write latencies.
+ * Under a rollback journal every write blocks the readers; under WAL it should not.
+ * runHistory() compares per-event history inserts with HistoryRecorder batches,
+ * runAudit() compares app-side history inserts with the audit triggers,
+ * runHistoryEncoding() compares text and compact history rows,
+ * runDetails() compares the ways of loading items with their details,
+ * runProjection() compares full items with grid cards, runDashboard()
+ * compares the single-scan dashboard snapshot with six aggregate queries, and
+ * runImport() measures CsvImporter throughput.
+ *
+ * Results are written to logcat under the StorageBenchmark tag; timings are
+ * not asserted, as they depend on the device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StorageBenchmarkTest {
+
+    private static final String TAG = "StorageBenchmark";
+    private static final String SCRATCH_DB = "inventory-benchmark.db";
+    private static final int SEED_LOOKUPS = 20;
+    private static final int DETAILS_BATCH_SIZE = 500;
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    @Test
+    public void concurrentReadsAndWrites() throws InterruptedException {
+        for (StorageProfile profile : new StorageProfile[]{StorageProfile.LEGACY, StorageProfile.WAL_TUNED}) {
+            Result result = run(context, profile, 5000, 2, 3000);
+            Log.i(TAG, result.toString());
+            assertTrue(result.reads.count > 0);
+            assertTrue(result.writes.count > 0);
+        }
+    }
+
+    @Test
+    public void historyWrites() {
+        HistoryResult result = runHistory(context, StorageProfile.WAL_TUNED, 5000);
+        Log.i(TAG, result.toString());
+        assertTrue(result.batchedPerSecond > 0);
+    }
+
+    @Test
+    public void auditTriggers() {
+        AuditResult result = runAudit(context, StorageProfile.WAL_TUNED, 2000);
+        Log.i(TAG, result.toString());
+        assertTrue(result.triggerMicrosPerWrite > 0);
+    }
+
+    @Test
+    public void historyEncoding() {
+        EncodingResult result = runHistoryEncoding(context, StorageProfile.WAL_TUNED, 20000);
+        Log.i(TAG, result.toString());
+        assertTrue(result.compactBytesPerMillion < result.textBytesPerMillion);
+    }
+
+    @Test
+    public void detailsLoading() {
+        for (int items : new int[]{10_000, 500_000}) {
+            DetailsResult result = runDetails(context, StorageProfile.WAL_TUNED, items);
+            Log.i(TAG, result.toString());
+            assertEquals(items, result.streamedRows);
+        }
+    }
+
+    @Test
+    public void itemAndCardLoading() {
+        ProjectionResult result = runProjection(context, StorageProfile.WAL_TUNED, 100_000);
+        Log.i(TAG, result.toString());
+        assertTrue(result.itemMs > 0);
+        assertTrue(result.cardMs > 0);
+    }
+
+    @Test
+    public void dashboardSnapshot() {
+        DashboardResult result = runDashboard(context, StorageProfile.WAL_TUNED, 1_000_000, 10);
+        Log.i(TAG, result.toString());
+        assertTrue(result.snapshot.count > 0);
+        assertTrue(result.separate.count > 0);
+    }
+
+    @Test
+    public void csvImport() throws IOException {
+        ImportResult result = runImport(context, StorageProfile.WAL_TUNED, 100_000);
+        Log.i(TAG, result.toString());
+        assertTrue(result.insertsPerSecond > 0);
+        assertTrue(result.updatesPerSecond > 0);
+    }
+
+    /**
+     * Latency percentiles for one operation type, in microseconds.
+     */
+    public static final class Latency {
+        public final int count;
+        public final long p50Micros;
+        public final long p95Micros;
+        public final long maxMicros;
+
+        Latency(List<Long> nanos) {
+            Collections.sort(nanos);
+            count = nanos.size();
+            p50Micros = percentile(nanos, 0.50) / 1000;
+            p95Micros = percentile(nanos, 0.95) / 1000;
+            maxMicros = count == 0 ? 0 : nanos.get(count - 1) / 1000;
+        }
+
+        private static long percentile(List<Long> sorted, double p) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size())));
+        }
+
+        @Override
+        public String toString() {
+            return count + " ops, p50=" + p50Micros + "us, p95=" + p95Micros + "us, max=" + maxMicros + "us";
+        }
+    }
+
+    /**
+     * Result of one benchmark run.
+     */
+    public static final class Result {
+        public final StorageProfile profile;
+        public final Latency reads;
+        public final Latency writes;
+
+        Result(StorageProfile profile, Latency reads, Latency writes) {
+            this.profile = profile;
+            this.reads = reads;
+            this.writes = writes;
+        }
+
+        @Override
+        public String toString() {
+            return profile.getName() + "\n  reads:  " + reads + "\n  writes: " + writes;
+        }
+    }
+
+    /**
+     * History write throughput, per-event inserts versus HistoryRecorder batches.
+     */
+    public static final class HistoryResult {
+        public final int events;
+        public final double perEventPerSecond;
+        public final double batchedPerSecond;
+
+        HistoryResult(int events, double perEventPerSecond, double batchedPerSecond) {
+            this.events = events;
+            this.perEventPerSecond = perEventPerSecond;
+            this.batchedPerSecond = batchedPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events: per-event %.0f/s, batched %.0f/s",
+                    events, perEventPerSecond, batchedPerSecond);
+        }
+    }
+
+    /**
+     * Cost per quantity write with history written by the app versus by triggers.
+     */
+    public static final class AuditResult {
+        public final int writes;
+        public final double appSideMicrosPerWrite;
+        public final double triggerMicrosPerWrite;
+
+        AuditResult(int writes, double appSideMicrosPerWrite, double triggerMicrosPerWrite) {
+            this.writes = writes;
+            this.appSideMicrosPerWrite = appSideMicrosPerWrite;
+            this.triggerMicrosPerWrite = triggerMicrosPerWrite;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d writes: app-side %.1f us/write, trigger %.1f us/write",
+                    writes, appSideMicrosPerWrite, triggerMicrosPerWrite);
+        }
+    }
+
+    /**
+     * Storage and per-item scan time of text versus compact history rows.
+     */
+    public static final class EncodingResult {
+        public final int events;
+        public final long textBytesPerMillion;
+        public final long compactBytesPerMillion;
+        public final double textScanMs;
+        public final double compactScanMs;
+
+        EncodingResult(int events, long textBytesPerMillion, long compactBytesPerMillion,
+                       double textScanMs, double compactScanMs) {
+            this.events = events;
+            this.textBytesPerMillion = textBytesPerMillion;
+            this.compactBytesPerMillion = compactBytesPerMillion;
+            this.textScanMs = textScanMs;
+            this.compactScanMs = compactScanMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events: text %.1f MB/M events, scan %.1f ms; "
+                            + "compact %.1f MB/M events, scan %.1f ms",
+                    events, textBytesPerMillion / 1e6, textScanMs,
+                    compactBytesPerMillion / 1e6, compactScanMs);
+        }
+    }
+
+    /**
+     * Time to load every item with its category, supplier and location: the
+     * @Relation query (one query per relation), the single LEFT JOIN list, and
+     * the LEFT JOIN streamed in keyset batches. A list load that runs out of
+     * memory is reported as NaN.
+     */
+    public static final class DetailsResult {
+        public final int items;
+        public final double relationMs;
+        public final double joinedMs;
+        public final double streamedMs;
+        public final int streamedRows;
+
+        DetailsResult(int items, double relationMs, double joinedMs, double streamedMs, int streamedRows) {
+            this.items = items;
+            this.relationMs = relationMs;
+            this.joinedMs = joinedMs;
+            this.streamedMs = streamedMs;
+            this.streamedRows = streamedRows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d items: @Relation %.0f ms, LEFT JOIN list %.0f ms, "
+                            + "LEFT JOIN streamed %.0f ms",
+                    items, relationMs, joinedMs, streamedMs);
+        }
+    }
+
+    /**
+     * Load time and retained heap of every row as an InventoryItem versus an InventoryCard.
+     */
+    public static final class ProjectionResult {
+        public final int rows;
+        public final double itemMs;
+        public final long itemBytesPerRow;
+        public final double cardMs;
+        public final long cardBytesPerRow;
+
+        ProjectionResult(int rows, double itemMs, long itemBytesPerRow, double cardMs, long cardBytesPerRow) {
+            this.rows = rows;
+            this.itemMs = itemMs;
+            this.itemBytesPerRow = itemBytesPerRow;
+            this.cardMs = cardMs;
+            this.cardBytesPerRow = cardBytesPerRow;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows: InventoryItem %.0f ms, %d B/row (%.1f MB); "
+                            + "InventoryCard %.0f ms, %d B/row (%.1f MB)",
+                    rows, itemMs, itemBytesPerRow, itemBytesPerRow * rows / 1e6,
+                    cardMs, cardBytesPerRow, cardBytesPerRow * rows / 1e6);
+        }
+    }
+
+    /**
+     * Dashboard latency: getDashboardSnapshot() versus the six aggregate queries it replaces.
+     */
+    public static final class DashboardResult {
+        public final int items;
+        public final Latency snapshot;
+        public final Latency separate;
+
+        DashboardResult(int items, Latency snapshot, Latency separate) {
+            this.items = items;
+            this.snapshot = snapshot;
+            this.separate = separate;
+        }
+
+        @Override
+        public String toString() {
+            return items + " items\n  snapshot: " + snapshot + "\n  six queries: " + separate;
+        }
+    }
+
+    /**
+     * CsvImporter throughput for a file of new items and for the same file again
+     * (every row then updates an existing item by SKU).
+     */
+    public static final class ImportResult {
+        public final int rows;
+        public final double insertsPerSecond;
+        public final double updatesPerSecond;
+
+        ImportResult(int rows, double insertsPerSecond, double updatesPerSecond) {
+            this.rows = rows;
+            this.insertsPerSecond = insertsPerSecond;
+            this.updatesPerSecond = updatesPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows: insert %.0f rows/s, update %.0f rows/s",
+                    rows, insertsPerSecond, updatesPerSecond);
+        }
+    }
+
+    /**
+     * Run the benchmark against a fresh scratch database opened with the given profile.
+     *
+     * @param itemCount  rows to seed
+     * @param readers    concurrent reader threads
+     * @param durationMs how long readers and the writer run
+     */
+    public static Result run(Context ctx, StorageProfile profile,
+                             int itemCount, int readers, long durationMs) throws InterruptedException {
+        ctx.deleteDatabase(SCRATCH_DB);
+        AppDatabase db = AppDatabase.build(ctx, SCRATCH_DB, profile, null);
+        try {
+            InventoryDao dao = db.inventoryDao();
+            List<Long> ids = seed(db, dao, itemCount);
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            CountDownLatch done = new CountDownLatch(readers + 1);
+            List<List<Long>> readTimes = new ArrayList<>();
+            List<Long> writeTimes = new ArrayList<>();
+
+            for (int r = 0; r < readers; r++) {
+                List<Long> times = new ArrayList<>();
+                readTimes.add(times);
+                String threadName = "benchmark-reader-" + r;
+                new Thread(() -> {
+                    while (running.get()) {
+                        long start = System.nanoTime();
+                        dao.getAllCards();
+                        times.add(System.nanoTime() - start);
+                    }
+                    done.countDown();
+                }, threadName).start();
+            }
+
+            new Thread(() -> {
+                Random random = new Random(42);
+                while (running.get()) {
+                    long id = ids.get(random.nextInt(ids.size()));
+                    long start = System.nanoTime();
+                    dao.adjustQuantity(id, random.nextBoolean() ? 1 : -1);
+                    writeTimes.add(System.nanoTime() - start);
+                }
+                done.countDown();
+            }, "benchmark-writer").start();
+
+            Thread.sleep(durationMs);
+            running.set(false);
+            done.await();
+
+            List<Long> allReads = new ArrayList<>();
+            for (List<Long> times : readTimes) {
+                allReads.addAll(times);
+            }
+            return new Result(profile, new Latency(allReads), new Latency(writeTimes));
+        } finally {
+            db.close();
+            ctx.deleteDatabase(SCRATCH_DB);
+        }
+    }
+
+    /**
+     * Write the same history events once with one auto-commit insert each and
+     * once through a HistoryRecorder (including its final flush).
+     */
+    public static HistoryResult runHistory(Context ctx, StorageProfile profile, int events) {
+        ctx.deleteDatabase(SCRATCH_DB);
+        AppDatabase db = AppDatabase.build(ctx, SCRATCH_DB, profile, null);
+        try {
+            InventoryHistoryDao historyDao = db.inventoryHistoryDao();
+            List<Long> ids = seed(db, db.inventoryDao(), 100);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                historyDao.insert(historyEvent(ids, i));
+            }
+            double perEventSeconds = (System.nanoTime() - start) / 1e9;
+
+            HistoryRecorder recorder = new HistoryRecorder(historyDao,
+                    HistoryRecorder.DEFAULT_CAPACITY, HistoryRecorder.DEFAULT_BATCH_SIZE,
+                    HistoryRecorder.DEFAULT_FLUSH_DELAY_MS);
+            start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                recorder.record(historyEvent(ids, i));
+            }
+            recorder.close();
+            double batchedSeconds = (System.nanoTime() - start) / 1e9;
+
+            return new HistoryResult(events, events / perEventSeconds, events / batchedSeconds);
+        } finally {
+            db.close();
+            ctx.deleteDatabase(SCRATCH_DB);
+        }
+    }
+
+    /**
+     * Time quantity adjustments with the history row inserted from Java in the
+     * same transaction (audit triggers dropped), then with the audit triggers.
+     */
+    public static AuditResult runAudit(Context ctx, StorageProfile profile, int writes) {
+        ctx.deleteDatabase(SCRATCH_DB);
+        AppDatabase db = AppDatabase.build(ctx, SCRATCH_DB, profile, null);
+        try {
+            InventoryDao dao = db.inventoryDao();
+            InventoryHistoryDao historyDao = db.inventoryHistoryDao();
+            SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+            List<Long> ids = seed(db, dao, 100);
+
+            InventoryTriggers.dropAudit(sqlite);
+            long start = System.nanoTime();
+            for (int i = 0; i < writes; i++) {
+                long id = ids.get(i % ids.size());
+                db.runInTransaction(() -> {
+                    int newQuantity = dao.adjustQuantity(id, 1);
+                    historyDao.insert(new InventoryHistory(id, null, "UPDATED", "quantity",
+                            String.valueOf(newQuantity - 1), String.valueOf(newQuantity)));
+                });
+            }
+            double appSideMicros = (System.nanoTime() - start) / 1e3 / writes;
+
+            InventoryTriggers.createAudit(sqlite);
+            start = System.nanoTime();
+            for (int i = 0; i < writes; i++) {
+                dao.adjustQuantity(ids.get(i % ids.size()), 1);
+            }
+            double triggerMicros = (System.nanoTime() - start) / 1e3 / writes;
+
+            return new AuditResult(writes, appSideMicros, triggerMicros);
+        } finally {
+            db.close();
+            ctx.deleteDatabase(SCRATCH_DB);
+        }
+    }
+
+    /**
+     * Store the same quantity events once as text rows and once as compact rows,
+     * measuring file growth (page_count * page_size) and the time to read one
+     * item's history back as InventoryHistory.
+     */
+    public static EncodingResult runHistoryEncoding(Context ctx, StorageProfile profile, int events) {
+        ctx.deleteDatabase(SCRATCH_DB);
+        AppDatabase db = AppDatabase.build(ctx, SCRATCH_DB, profile, null);
+        try {
+            InventoryHistoryDao historyDao = db.inventoryHistoryDao();
+            SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+            List<Long> ids = seed(db, db.inventoryDao(), 10);
+            long hotItem = ids.get(0);
+            int batch = 1000;
+
+            long before = fileBytes(sqlite);
+            for (int start = 0; start < events; start += batch) {
+                List<InventoryHistory> rows = new ArrayList<>();
+                for (int i = start; i < Math.min(events, start + batch); i++) {
+                    rows.add(historyEvent(ids, i));
+                }
+                historyDao.insertAll(rows);
+            }
+            long textBytes = fileBytes(sqlite) - before;
+
+            long scanStart = System.nanoTime();
+            historyDao.getTextHistoryForItem(hotItem);
+            double textScanMs = (System.nanoTime() - scanStart) / 1e6;
+
+            before = fileBytes(sqlite);
+            long timestamp = System.currentTimeMillis();
+            for (int start = 0; start < events; start += batch) {
+                List<CompactHistoryEvent> rows = new ArrayList<>();
+                for (int i = start; i < Math.min(events, start + batch); i++) {
+                    rows.add(new CompactHistoryEvent(0, ids.get(i % ids.size()),
+                            HistoryField.QUANTITY.getId(), i, 1, timestamp + i));
+                }
+                historyDao.insertCompact(rows);
+            }
+            long compactBytes = fileBytes(sqlite) - before;
+
+            scanStart = System.nanoTime();
+            List<InventoryHistory> decoded = new ArrayList<>();
+            for (CompactHistoryEvent event : historyDao.getCompactHistoryForItem(hotItem)) {
+                decoded.add(event.toHistory());
+            }
+            double compactScanMs = (System.nanoTime() - scanStart) / 1e6;
+
+            return new EncodingResult(events,
+                    textBytes * 1_000_000L / events, compactBytes * 1_000_000L / events,
+                    textScanMs, compactScanMs);
+        } finally {
+            db.close();
+            ctx.deleteDatabase(SCRATCH_DB);
+        }
+    }
+
+    /**
+     * Load itemCount items with their details through getAllWithDetails(),
+     * getAllDetailsRows() and forEachDetailsRow(), dropping each result before
+     * the next load.
+     */
+    public static DetailsResult runDetails(Context ctx, StorageProfile profile, int itemCount) {
+        ctx.deleteDatabase(SCRATCH_DB);
+        AppDatabase db = AppDatabase.build(ctx, SCRATCH_DB, profile, null);
+        try {
+            InventoryDao dao = db.inventoryDao();
+            seedBulk(db, itemCount);
+
+            double relationMs = timeListLoad(dao::getAllWithDetails);
+            double joinedMs = timeListLoad(dao::getAllDetailsRows);
+
+            int[] rows = {0};
+            long start = System.nanoTime();
+            dao.forEachDetailsRow(DETAILS_BATCH_SIZE, row -> rows[0]++);
+            double streamedMs = (System.nanoTime() - start) / 1e6;
+
+            return new DetailsResult(itemCount, relationMs, joinedMs, streamedMs, rows[0]);
+        } finally {
+            db.close();
+            ctx.deleteDatabase(SCRATCH_DB);
+        }
+    }
+
+    /**
+     * Load every row through getAll() and then getAllCards(), measuring the
+     * time of each and the heap the list holds (used heap after a GC, with the
+     * list still reachable, minus used heap before the load).
+     */
+    public static ProjectionResult runProjection(Context ctx, StorageProfile profile, int itemCount) {
+        ctx.deleteDatabase(SCRATCH_DB);
+        AppDatabase db = AppDatabase.build(ctx, SCRATCH_DB, profile, null);
+        try {
+            InventoryDao dao = db.inventoryDao();
+            seedBulk(db, itemCount);
+
+            long before = usedHeap();
+            long start = System.nanoTime();
+            List<InventoryItem> items = dao.getAll();
+            double itemMs = (System.nanoTime() - start) / 1e6;
+            long itemBytes = usedHeap() - before;
+            assertEquals(itemCount, items.size());
+            Reference.reachabilityFence(items);
+            items = null;
+
+            before = usedHeap();
+            start = System.nanoTime();
+            List<InventoryCard> cards = dao.getAllCards();
+            double cardMs = (System.nanoTime() - start) / 1e6;
+            long cardBytes = usedHeap() - before;
+            assertEquals(itemCount, cards.size());
+            Reference.reachabilityFence(cards);
+
+            return new ProjectionResult(itemCount, itemMs, itemBytes / itemCount,
+                    cardMs, cardBytes / itemCount);
+        } finally {
+            db.close();
+            ctx.deleteDatabase(SCRATCH_DB);
+        }
+    }
+
+    /**
+     * Compute the dashboard figures runs times each way, alternating, and check
+     * that both ways agree.
+     */
+    public static DashboardResult runDashboard(Context ctx, StorageProfile profile, int itemCount, int runs) {
+        ctx.deleteDatabase(SCRATCH_DB);
+        AppDatabase db = AppDatabase.build(ctx, SCRATCH_DB, profile, null);
+        try {
+            InventoryDao dao = db.inventoryDao();
+            seedBulk(db, itemCount);
+
+            List<Long> snapshotTimes = new ArrayList<>();
+            List<Long> separateTimes = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                DashboardSnapshot snapshot = dao.getDashboardSnapshot();
+                snapshotTimes.add(System.nanoTime() - start);
+
+                start = System.nanoTime();
+                int itemTotal = dao.getTotalItemCount();
+                int quantity = dao.getTotalQuantity();
+                long valueCents = dao.getTotalInventoryValueCents();
+                dao.getAveragePriceCents();
+                int lowStock = dao.getLowStockCount();
+                int outOfStock = dao.getOutOfStockCount();
+                separateTimes.add(System.nanoTime() - start);
+
+                assertEquals(snapshot.itemCount, itemTotal);
+                assertEquals(snapshot.totalQuantity, quantity);
+                assertEquals(snapshot.totalValueCents, valueCents);
+                assertEquals(snapshot.lowStockCount, lowStock);
+                assertEquals(snapshot.outOfStockCount, outOfStock);
+            }
+            return new DashboardResult(itemCount, new Latency(snapshotTimes), new Latency(separateTimes));
+        } finally {
+            db.close();
+            ctx.deleteDatabase(SCRATCH_DB);
+        }
+    }
+
+    /**
+     * Import rows CSV lines into an empty database, then import them again with
+     * new quantities. The file is built in memory first, so only the import
+     * (parse, validate and batched writes with triggers) is timed.
+     */
+    public static ImportResult runImport(Context ctx, StorageProfile profile, int rows) throws IOException {
+        ctx.deleteDatabase(SCRATCH_DB);
+        AppDatabase db = AppDatabase.build(ctx, SCRATCH_DB, profile, null);
+        try {
+            CsvImporter importer = new CsvImporter(db);
+
+            long start = System.nanoTime();
+            CsvImporter.Result inserted = importer.importCsv(
+                    new ByteArrayInputStream(importFile(rows, 0)), null);
+            double insertSeconds = (System.nanoTime() - start) / 1e9;
+            assertEquals(rows, inserted.inserted);
+
+            start = System.nanoTime();
+            CsvImporter.Result updated = importer.importCsv(
+                    new ByteArrayInputStream(importFile(rows, 1)), null);
+            double updateSeconds = (System.nanoTime() - start) / 1e9;
+            assertEquals(rows, updated.updated);
+
+            return new ImportResult(rows, rows / insertSeconds, rows / updateSeconds);
+        } finally {
+            db.close();
+            ctx.deleteDatabase(SCRATCH_DB);
+        }
+    }
+
+    // CSV in the CsvExporter layout with a unique SKU per row, over SEED_LOOKUPS categories
+    private static byte[] importFile(int rows, int quantityOffset) {
+        StringBuilder csv = new StringBuilder("sku,name,description,quantity,price,min_stock_level,category\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("SKU-").append(i).append(",Item ").append(i).append(",\"Benchmark row ").append(i)
+                    .append(", imported\",").append(i % 100 + quantityOffset).append(",1.")
+                    .append(10 + i % 90).append(",10,Category ")
+                    .append(i % SEED_LOOKUPS).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Milliseconds to load a list, or NaN if it does not fit in the heap
+    private static double timeListLoad(java.util.function.Supplier<List<?>> load) {
+        Runtime.getRuntime().gc();
+        long start = System.nanoTime();
+        try {
+            List<?> rows = load.get();
+            double ms = (System.nanoTime() - start) / 1e6;
+            assertFalse(rows.isEmpty());
+            return ms;
+        } catch (OutOfMemoryError e) {
+            return Double.NaN;
+        }
+    }
+
+    private static long fileBytes(SupportSQLiteDatabase sqlite) {
+        try (Cursor pages = sqlite.query("PRAGMA page_count");
+             Cursor size = sqlite.query("PRAGMA page_size")) {
+            pages.moveToFirst();
+            size.moveToFirst();
+            return pages.getLong(0) * size.getLong(0);
+        }
+    }
+
+    private static InventoryHistory historyEvent(List<Long> ids, int i) {
+        return new InventoryHistory(ids.get(i % ids.size()), null, "UPDATED", "quantity",
+                String.valueOf(i), String.valueOf(i + 1));
+    }
+
+    /**
+     * Insert itemCount items in one INSERT ... SELECT, spread over SEED_LOOKUPS
+     * categories, suppliers and locations. The triggers are dropped for the load
+     * and recreated after it, so the summary tables do not count these rows.
+     */
+    private static void seedBulk(AppDatabase db, int itemCount) {
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        db.runInTransaction(() -> {
+            for (int i = 0; i < SEED_LOOKUPS; i++) {
+                db.categoryDao().insert(new Category("Category " + i, "Benchmark category", null));
+                db.supplierDao().insert(new Supplier("Supplier " + i, null, null, null, null));
+                db.locationDao().insert(new Location("Location " + i, "Main", "A", null, null));
+            }
+        });
+
+        InventoryTriggers.drop(sqlite);
+        long now = System.currentTimeMillis();
+        // Lookup ids run from 1 in a fresh database; derived columns are written as the triggers would
+        sqlite.execSQL(
+                "WITH RECURSIVE n(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM n WHERE x < ?) " +
+                "INSERT INTO inventory (name, description, quantity, category_id, supplier_id, " +
+                "location_id, price_cents, sku, min_stock_level, created_at, updated_at, " +
+                "low_stock_deficit, stock_value_cents) " +
+                "SELECT 'Item ' || x, 'Benchmark row ' || x, x % 100, 1 + x % ?, 1 + x % ?, " +
+                "1 + x % ?, 100 + x % 5000, 'SKU-' || x, 10, ?, ?, 10 - x % 100, " +
+                "(x % 100) * (100 + x % 5000) FROM n",
+                new Object[]{itemCount, SEED_LOOKUPS, SEED_LOOKUPS, SEED_LOOKUPS, now, now});
+        InventoryTriggers.create(sqlite);
+    }
+
+    private static List<Long> seed(AppDatabase db, InventoryDao dao, int itemCount) {
+        List<Long> ids = new ArrayList<>(itemCount);
+        db.runInTransaction(() -> {
+            for (int i = 0; i < itemCount; i++) {
+                ids.add(dao.insert(new InventoryItem("Item " + i, "Benchmark row " + i, 50,
+                        null, null, null, 100L + i, "SKU-" + i, 10)));
+            }
+        });
+        return ids;
+    }
+}
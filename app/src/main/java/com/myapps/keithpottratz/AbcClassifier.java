@@ -0,0 +1,114 @@
+package com.myapps.keithpottratz;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ABC (Pareto) classification by stock value (quantity * price).
+ *
+ * Class A is the smallest set of most valuable items holding A_SHARE of the
+ * total stock value, A and B together hold B_SHARE, and the rest is C. Only
+ * the two cut values are needed, so instead of sorting every item they are
+ * found by weighted quickselect: partition around a pivot value, keep the
+ * side the cumulative share falls in, in expected linear time.
+ *
+ * run() stores the cut points in abc_thresholds and updates abc_class on the
+ * items whose class changed. Between runs, triggers classify inserted and
+ * changed items against the stored cut points, so classes follow quantity
+ * changes without a recount.
+ */
+public class AbcClassifier {
+
+    static final double A_SHARE = 0.80;
+    static final double B_SHARE = 0.95;
+
+    private final AppDatabase db;
+    private final InventoryDao dao;
+
+    public AbcClassifier(AppDatabase db) {
+        this.db = db;
+        this.dao = db.inventoryDao();
+    }
+
+    /**
+     * Recompute the cut points and reclassify. Runs in one transaction so no
+     * value changes between reading and classifying - call from a background thread.
+     *
+     * @return Number of items whose class changed
+     */
+    public int run() {
+        return db.runInTransaction(() -> {
+            List<Long> boxed = dao.getPositiveStockValues();
+            long[] values = new long[boxed.size()];
+            long total = 0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = boxed.get(i);
+                total += values[i];
+            }
+
+            // Without any stock value every item is C
+            long aMin = Long.MAX_VALUE;
+            long bMin = Long.MAX_VALUE;
+            if (total > 0) {
+                aMin = cutValue(values, (long) Math.ceil(total * A_SHARE));
+                bMin = cutValue(values, (long) Math.ceil(total * B_SHARE));
+            }
+
+            long now = System.currentTimeMillis();
+            dao.saveAbcThresholds(new AbcThresholds(0, aMin, bMin, total, now));
+            return dao.reclassifyAbc(now);
+        });
+    }
+
+    /**
+     * Smallest value v such that the values >= v sum to at least target, i.e.
+     * the value at which the descending running total first reaches target.
+     * Reorders the array.
+     *
+     * @param values Positive values
+     * @param target Between 1 and the sum of values
+     */
+    static long cutValue(long[] values, long target) {
+        int lo = 0;
+        int hi = values.length;
+        long above = 0;     // Sum of the values known to be greater than any in [lo, hi)
+
+        while (lo < hi) {
+            long pivot = values[lo + ThreadLocalRandom.current().nextInt(hi - lo)];
+
+            // Three-way partition, descending: [lo, gt) > pivot, [gt, i) == pivot, [lt, hi) < pivot
+            int gt = lo;
+            int i = lo;
+            int lt = hi;
+            long greaterSum = 0;
+            while (i < lt) {
+                long value = values[i];
+                if (value > pivot) {
+                    greaterSum += value;
+                    swap(values, gt++, i++);
+                } else if (value < pivot) {
+                    swap(values, i, --lt);
+                } else {
+                    i++;
+                }
+            }
+            long equalSum = (long) (lt - gt) * pivot;
+
+            if (above + greaterSum >= target) {
+                hi = gt;
+            } else if (above + greaterSum + equalSum >= target) {
+                return pivot;
+            } else {
+                above += greaterSum + equalSum;
+                lo = lt;
+            }
+        }
+        throw new IllegalArgumentException("Target " + target + " exceeds the sum of values");
+    }
+
+    private static void swap(long[] values, int i, int j) {
+        long tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
+}
@@ -0,0 +1,78 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Stock value cut points of the latest ABC classification (a single row, id 0),
+ * written by AbcClassifier.
+ *
+ * Items at or above a_min_value_cents are class A, at or above
+ * b_min_value_cents class B, the rest (and items without value) class C.
+ * Triggers classify inserted and changed items against these cut points
+ * until the next classification moves them (see InventoryTriggers).
+ */
+@Entity(tableName = "abc_thresholds")
+public class AbcThresholds {
+    public static final String CLASS_A = "A";
+    public static final String CLASS_B = "B";
+    public static final String CLASS_C = "C";
+
+    // Cut points of the stored classification
+    static final String A_MIN = "(SELECT a_min_value_cents FROM abc_thresholds WHERE id = 0)";
+    static final String B_MIN = "(SELECT b_min_value_cents FROM abc_thresholds WHERE id = 0)";
+
+    // Class of an inventory row's stock_value_cents under the stored cut points
+    static final String CLASS_OF_STOCK_VALUE =
+            "CASE WHEN stock_value_cents > 0 AND stock_value_cents >= " + A_MIN + " THEN 'A' " +
+            "WHEN stock_value_cents > 0 AND stock_value_cents >= " + B_MIN + " THEN 'B' " +
+            "ELSE 'C' END";
+
+    @PrimaryKey
+    private int id;
+
+    @ColumnInfo(name = "a_min_value_cents")
+    private long aMinValueCents;
+
+    @ColumnInfo(name = "b_min_value_cents")
+    private long bMinValueCents;
+
+    // Total stock value the cut points were computed from
+    @ColumnInfo(name = "total_value_cents")
+    private long totalValueCents;
+
+    @ColumnInfo(name = "computed_at")
+    private long computedAt;
+
+    // Constructor for Room (all fields)
+    public AbcThresholds(int id, long aMinValueCents, long bMinValueCents,
+                         long totalValueCents, long computedAt) {
+        this.id = id;
+        this.aMinValueCents = aMinValueCents;
+        this.bMinValueCents = bMinValueCents;
+        this.totalValueCents = totalValueCents;
+        this.computedAt = computedAt;
+    }
+
+    // Getters
+    public int getId() {
+        return id;
+    }
+
+    public long getAMinValueCents() {
+        return aMinValueCents;
+    }
+
+    public long getBMinValueCents() {
+        return bMinValueCents;
+    }
+
+    public long getTotalValueCents() {
+        return totalValueCents;
+    }
+
+    public long getComputedAt() {
+        return computedAt;
+    }
+}
@@ -29,7 +29,7 @@ public class AddItemDialogFragment extends DialogFragment {
      */
     public interface AddItemListener {
         void onNewItem(String name, String description, int quantity,
-                       double price, Long categoryId, Long supplierId, Long locationId);
+                       long priceCents, Long categoryId, Long supplierId, Long locationId);
     }
 
     private DialogAddItemBinding binding;
@@ -348,12 +348,12 @@ public class AddItemDialogFragment extends DialogFragment {
                 return;
             }
 
-            // Parse price
-            double price = 0.0;
+            // Parse price into cents
+            long priceCents = 0;
             if (!priceStr.isEmpty()) {
                 try {
-                    price = Double.parseDouble(priceStr);
-                    if (price < 0) {
+                    priceCents = Money.parseCents(priceStr);
+                    if (priceCents < 0) {
                         binding.newPrice.setError("Price cannot be negative");
                         binding.newPrice.requestFocus();
                         return;
@@ -368,7 +368,7 @@ public class AddItemDialogFragment extends DialogFragment {
             // Notify host activity
             if (getActivity() instanceof AddItemListener) {
                 ((AddItemListener) getActivity())
-                        .onNewItem(name, desc, currentQty, price,
+                        .onNewItem(name, desc, currentQty, priceCents,
                                 selectedCategoryId, selectedSupplierId, selectedLocationId);
             }
 
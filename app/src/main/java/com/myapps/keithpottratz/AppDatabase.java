@@ -1,6 +1,7 @@
 package com.myapps.keithpottratz;
 
 import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
 
 import androidx.annotation.NonNull;
 import androidx.room.Database;
@@ -9,6 +10,11 @@ import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Database(
         entities = {
                 InventoryItem.class,
@@ -16,20 +22,95 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
                 Category.class,
                 Supplier.class,
                 Location.class,
-                InventoryHistory.class
+                InventoryHistory.class,
+                InventoryTombstone.class,
+                StockSummary.class,
+                InventoryHistoryDaily.class,
+                CompactHistoryEvent.class,
+                StockCheckpoint.class,
+                StockSeriesPoint.class,
+                ItemForecast.class,
+                AbcThresholds.class
         },
-        version = 2,
+        version = 16,
         exportSchema = false  // Schema export requires Gradle plugin config
 )
 public abstract class AppDatabase extends RoomDatabase {
+    static final String DATABASE_NAME = "inventory.db";
+
     private static volatile AppDatabase INSTANCE;
 
-    public abstract InventoryDao inventoryDao();
-    public abstract UserDao userDao();
-    public abstract CategoryDao categoryDao();
-    public abstract SupplierDao supplierDao();
-    public abstract LocationDao locationDao();
-    public abstract InventoryHistoryDao inventoryHistoryDao();
+    // Journal and connection settings; fixed once the instance is built
+    private static StorageProfile storageProfile = StorageProfile.WAL_TUNED;
+
+    // Room-generated DAOs; callers use the instrumented getters below
+    abstract InventoryDao inventoryDaoImpl();
+    abstract UserDao userDaoImpl();
+    abstract CategoryDao categoryDaoImpl();
+    abstract SupplierDao supplierDaoImpl();
+    abstract LocationDao locationDaoImpl();
+    abstract InventoryHistoryDao inventoryHistoryDaoImpl();
+    abstract StockSummaryDao stockSummaryDaoImpl();
+    abstract StockCheckpointDao stockCheckpointDaoImpl();
+    abstract StockSeriesDao stockSeriesDaoImpl();
+    abstract ForecastDao forecastDaoImpl();
+
+    // Profile this instance was built with (the static one may change for scratch builds)
+    private StorageProfile profile;
+
+    // Set on the app instance when metrics are enabled; otherwise the raw DAOs are handed out
+    private QueryMetrics metrics;
+    private final Map<Class<?>, Object> instrumentedDaos = new ConcurrentHashMap<>();
+
+    public InventoryDao inventoryDao() {
+        return instrumented(InventoryDao.class, inventoryDaoImpl());
+    }
+
+    public UserDao userDao() {
+        return instrumented(UserDao.class, userDaoImpl());
+    }
+
+    public CategoryDao categoryDao() {
+        return instrumented(CategoryDao.class, categoryDaoImpl());
+    }
+
+    public SupplierDao supplierDao() {
+        return instrumented(SupplierDao.class, supplierDaoImpl());
+    }
+
+    public LocationDao locationDao() {
+        return instrumented(LocationDao.class, locationDaoImpl());
+    }
+
+    public InventoryHistoryDao inventoryHistoryDao() {
+        return instrumented(InventoryHistoryDao.class, inventoryHistoryDaoImpl());
+    }
+
+    public StockSummaryDao stockSummaryDao() {
+        return instrumented(StockSummaryDao.class, stockSummaryDaoImpl());
+    }
+
+    public StockCheckpointDao stockCheckpointDao() {
+        return instrumented(StockCheckpointDao.class, stockCheckpointDaoImpl());
+    }
+
+    public StockSeriesDao stockSeriesDao() {
+        return instrumented(StockSeriesDao.class, stockSeriesDaoImpl());
+    }
+
+    public ForecastDao forecastDao() {
+        return instrumented(ForecastDao.class, forecastDaoImpl());
+    }
+
+    /**
+     * Wrap a DAO in a timing proxy (once per DAO type) when metrics are on.
+     */
+    private <T> T instrumented(Class<T> type, T dao) {
+        if (metrics == null) {
+            return dao;
+        }
+        return type.cast(instrumentedDaos.computeIfAbsent(type, k -> metrics.instrument(type, dao)));
+    }
 
     /**
      * Migration from version 1 to version 2.
@@ -171,21 +252,538 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    /**
+     * Migration from version 2 to version 3.
+     *
+     * Changes:
+     * - Creates inventory_tombstones table (filled by a delete trigger)
+     * - Creates index on inventory.updated_at for delta refresh
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `inventory_tombstones` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`item_id` INTEGER NOT NULL, " +
+                "`deleted_at` INTEGER NOT NULL)"
+            );
+
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_updated_at` ON `inventory` (`updated_at`)");
+        }
+    };
+
+    /**
+     * Migration from version 3 to version 4.
+     *
+     * Changes:
+     * - Creates stock_summary table (global, per category, per supplier, per location)
+     * - Fills it from the current inventory; triggers keep it exact afterwards
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `stock_summary` (" +
+                "`scope` TEXT NOT NULL, " +
+                "`scope_id` INTEGER NOT NULL, " +
+                "`item_count` INTEGER NOT NULL, " +
+                "`total_quantity` INTEGER NOT NULL, " +
+                "`total_value` REAL NOT NULL, " +
+                "`low_stock_count` INTEGER NOT NULL, " +
+                "`out_of_stock_count` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`scope`, `scope_id`))"
+            );
+
+            String aggregates =
+                "COUNT(*), COALESCE(SUM(`quantity`), 0), COALESCE(SUM(`quantity` * `price`), 0), " +
+                "COALESCE(SUM(`quantity` < `min_stock_level`), 0), COALESCE(SUM(`quantity` = 0), 0) ";
+
+            database.execSQL("INSERT INTO `stock_summary` SELECT 'ALL', 0, " + aggregates + "FROM `inventory`");
+            database.execSQL("INSERT INTO `stock_summary` SELECT 'CATEGORY', `category_id`, " + aggregates +
+                "FROM `inventory` WHERE `category_id` IS NOT NULL GROUP BY `category_id`");
+            database.execSQL("INSERT INTO `stock_summary` SELECT 'SUPPLIER', `supplier_id`, " + aggregates +
+                "FROM `inventory` WHERE `supplier_id` IS NOT NULL GROUP BY `supplier_id`");
+            database.execSQL("INSERT INTO `stock_summary` SELECT 'LOCATION', `location_id`, " + aggregates +
+                "FROM `inventory` WHERE `location_id` IS NOT NULL GROUP BY `location_id`");
+        }
+    };
+
+    /**
+     * Migration from version 4 to version 5.
+     *
+     * Changes:
+     * - Adds inventory.low_stock_deficit (min_stock_level - quantity), kept by triggers
+     * - Creates index on it so low-stock queries read only the low-stock rows
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL("ALTER TABLE `inventory` ADD COLUMN `low_stock_deficit` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("UPDATE `inventory` SET `low_stock_deficit` = `min_stock_level` - `quantity`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_low_stock_deficit` ON `inventory` (`low_stock_deficit`)");
+        }
+    };
+
+    /**
+     * Migration from version 5 to version 6.
+     *
+     * Changes:
+     * - Adds inventory.stock_value (quantity * price), kept by triggers
+     * - Creates index on it for value-ordered and top-N queries
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL("ALTER TABLE `inventory` ADD COLUMN `stock_value` REAL NOT NULL DEFAULT 0.0");
+            database.execSQL("UPDATE `inventory` SET `stock_value` = `quantity` * `price`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_stock_value` ON `inventory` (`stock_value`)");
+        }
+    };
+
+    /**
+     * Migration from version 6 to version 7.
+     *
+     * Changes:
+     * - Replaces inventory.price (REAL) with price_cents (INTEGER, rounded half-up)
+     * - Replaces inventory.stock_value with stock_value_cents and re-creates its index
+     * - Rebuilds stock_summary with an exact total_value_cents column
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL("ALTER TABLE `inventory` ADD COLUMN `price_cents` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("UPDATE `inventory` SET `price_cents` = CAST(ROUND(`price` * 100) AS INTEGER)");
+            database.execSQL("ALTER TABLE `inventory` ADD COLUMN `stock_value_cents` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("UPDATE `inventory` SET `stock_value_cents` = `quantity` * `price_cents`");
+
+            database.execSQL("DROP INDEX IF EXISTS `index_inventory_stock_value`");
+            database.execSQL("ALTER TABLE `inventory` DROP COLUMN `stock_value`");
+            database.execSQL("ALTER TABLE `inventory` DROP COLUMN `price`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_stock_value_cents` ON `inventory` (`stock_value_cents`)");
+
+            database.execSQL("DROP TABLE IF EXISTS `stock_summary`");
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `stock_summary` (" +
+                "`scope` TEXT NOT NULL, " +
+                "`scope_id` INTEGER NOT NULL, " +
+                "`item_count` INTEGER NOT NULL, " +
+                "`total_quantity` INTEGER NOT NULL, " +
+                "`total_value_cents` INTEGER NOT NULL, " +
+                "`low_stock_count` INTEGER NOT NULL, " +
+                "`out_of_stock_count` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`scope`, `scope_id`))"
+            );
+
+            String aggregates =
+                "COUNT(*), COALESCE(SUM(`quantity`), 0), COALESCE(SUM(`stock_value_cents`), 0), " +
+                "COALESCE(SUM(`quantity` < `min_stock_level`), 0), COALESCE(SUM(`quantity` = 0), 0) ";
+
+            database.execSQL("INSERT INTO `stock_summary` SELECT 'ALL', 0, " + aggregates + "FROM `inventory`");
+            database.execSQL("INSERT INTO `stock_summary` SELECT 'CATEGORY', `category_id`, " + aggregates +
+                "FROM `inventory` WHERE `category_id` IS NOT NULL GROUP BY `category_id`");
+            database.execSQL("INSERT INTO `stock_summary` SELECT 'SUPPLIER', `supplier_id`, " + aggregates +
+                "FROM `inventory` WHERE `supplier_id` IS NOT NULL GROUP BY `supplier_id`");
+            database.execSQL("INSERT INTO `stock_summary` SELECT 'LOCATION', `location_id`, " + aggregates +
+                "FROM `inventory` WHERE `location_id` IS NOT NULL GROUP BY `location_id`");
+        }
+    };
+
+    /**
+     * Migration from version 7 to version 8.
+     *
+     * Changes:
+     * - Creates inventory_history_daily (per-item daily quantity rollups)
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `inventory_history_daily` (" +
+                "`item_id` INTEGER NOT NULL, " +
+                "`day` INTEGER NOT NULL, " +
+                "`net_change` INTEGER NOT NULL, " +
+                "`min_quantity` INTEGER NOT NULL, " +
+                "`max_quantity` INTEGER NOT NULL, " +
+                "`event_count` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`item_id`, `day`), " +
+                "FOREIGN KEY(`item_id`) REFERENCES `inventory`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)"
+            );
+        }
+    };
+
+    /**
+     * Migration from version 8 to version 9.
+     *
+     * Changes:
+     * - Creates inventory_history_compact (numeric field changes as field id, old value, delta)
+     * - Moves existing quantity/price_cents/min_stock_level history rows into it
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `inventory_history_compact` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`item_id` INTEGER NOT NULL, " +
+                "`field` INTEGER NOT NULL, " +
+                "`old_value` INTEGER NOT NULL, " +
+                "`delta` INTEGER NOT NULL, " +
+                "`timestamp` INTEGER NOT NULL, " +
+                "FOREIGN KEY(`item_id`) REFERENCES `inventory`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)"
+            );
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_history_compact_item_id` " +
+                "ON `inventory_history_compact` (`item_id`)");
+
+            String moved = "`action` = 'UPDATED' AND `field_changed` IN ('quantity', 'price_cents', 'min_stock_level')";
+            database.execSQL(
+                "INSERT INTO `inventory_history_compact` (`item_id`, `field`, `old_value`, `delta`, `timestamp`) " +
+                "SELECT `item_id`, " +
+                "CASE `field_changed` WHEN 'quantity' THEN 1 WHEN 'price_cents' THEN 2 ELSE 3 END, " +
+                "CAST(`old_value` AS INTEGER), CAST(`new_value` AS INTEGER) - CAST(`old_value` AS INTEGER), " +
+                "`timestamp` FROM `inventory_history` WHERE " + moved + " ORDER BY `id`"
+            );
+            database.execSQL("DELETE FROM `inventory_history` WHERE " + moved);
+        }
+    };
+
+    /**
+     * Migration from version 9 to version 10.
+     *
+     * Changes:
+     * - Replaces the item_id indexes on both history tables with (item_id, timestamp)
+     * - Adds timestamp indexes for recent-history and time-range reads
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            for (String table : new String[]{"inventory_history", "inventory_history_compact"}) {
+                database.execSQL("DROP INDEX IF EXISTS `index_" + table + "_item_id`");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_" + table + "_item_id_timestamp` " +
+                    "ON `" + table + "` (`item_id`, `timestamp`)");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_" + table + "_timestamp` " +
+                    "ON `" + table + "` (`timestamp`)");
+            }
+        }
+    };
+
+    /**
+     * Migration from version 10 to version 11.
+     *
+     * Changes:
+     * - Creates stock_checkpoints (per-item quantity at each checkpoint time)
+     */
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `stock_checkpoints` (" +
+                "`taken_at` INTEGER NOT NULL, " +
+                "`item_id` INTEGER NOT NULL, " +
+                "`quantity` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`taken_at`, `item_id`), " +
+                "FOREIGN KEY(`item_id`) REFERENCES `inventory`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)"
+            );
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_stock_checkpoints_item_id` " +
+                "ON `stock_checkpoints` (`item_id`)");
+        }
+    };
+
+    /**
+     * Migration from version 11 to version 12.
+     *
+     * Changes:
+     * - Creates stock_series (stock level buckets per item/category and resolution)
+     * - Backfills item series from the retained quantity history
+     * - Triggers are recreated on open with the stock_series triggers
+     */
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `stock_series` (" +
+                "`scope` TEXT NOT NULL, " +
+                "`scope_id` INTEGER NOT NULL, " +
+                "`resolution` TEXT NOT NULL, " +
+                "`bucket_start` INTEGER NOT NULL, " +
+                "`open_quantity` INTEGER NOT NULL, " +
+                "`min_quantity` INTEGER NOT NULL, " +
+                "`max_quantity` INTEGER NOT NULL, " +
+                "`close_quantity` INTEGER NOT NULL, " +
+                "`change_count` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`scope`, `scope_id`, `resolution`, `bucket_start`))"
+            );
+
+            // Resolution name, bucket width and alignment offset (weeks start on Monday)
+            Object[][] resolutions = {
+                {"HOUR", 3600000L, 0L},
+                {"DAY", 86400000L, 0L},
+                {"WEEK", 604800000L, 259200000L}
+            };
+            for (Object[] resolution : resolutions) {
+                // Open = old value of the bucket's first quantity event, close = new value of its last
+                database.execSQL(
+                    "INSERT OR IGNORE INTO `stock_series` (`scope`, `scope_id`, `resolution`, " +
+                    "`bucket_start`, `open_quantity`, `min_quantity`, `max_quantity`, " +
+                    "`close_quantity`, `change_count`) " +
+                    "SELECT 'ITEM', `item_id`, '" + resolution[0] + "', `bucket`, " +
+                    "MAX(CASE WHEN `first` = 1 THEN `old_value` END), " +
+                    "MIN(MIN(`old_value`, `new_value`)), MAX(MAX(`old_value`, `new_value`)), " +
+                    "MAX(CASE WHEN `last` = 1 THEN `new_value` END), COUNT(*) " +
+                    "FROM (SELECT `item_id`, `bucket`, `old_value`, `old_value` + `delta` AS `new_value`, " +
+                    "ROW_NUMBER() OVER (PARTITION BY `item_id`, `bucket` " +
+                    "ORDER BY `timestamp`, `id`) AS `first`, " +
+                    "ROW_NUMBER() OVER (PARTITION BY `item_id`, `bucket` " +
+                    "ORDER BY `timestamp` DESC, `id` DESC) AS `last` " +
+                    "FROM (SELECT *, `timestamp` - (`timestamp` + " + resolution[2] + ") % " +
+                    resolution[1] + " AS `bucket` " +
+                    "FROM `inventory_history_compact` WHERE `field` = 1)) " +
+                    "GROUP BY `item_id`, `bucket`"
+                );
+            }
+        }
+    };
+
+    /**
+     * Migration from version 12 to version 13.
+     *
+     * Changes:
+     * - Adds lead_time_days to suppliers (default 7)
+     * - Creates item_forecasts (per-item consumption forecast and reorder point)
+     */
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `suppliers` ADD COLUMN `lead_time_days` INTEGER NOT NULL DEFAULT 7");
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `item_forecasts` (" +
+                "`item_id` INTEGER NOT NULL, " +
+                "`consumption_rate` REAL NOT NULL, " +
+                "`demand_variance` REAL NOT NULL, " +
+                "`observed_days` INTEGER NOT NULL, " +
+                "`open_day` INTEGER NOT NULL, " +
+                "`open_day_quantity` INTEGER NOT NULL, " +
+                "`last_event_id` INTEGER NOT NULL, " +
+                "`reorder_point` INTEGER NOT NULL, " +
+                "`order_up_to` INTEGER NOT NULL, " +
+                "`updated_at` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`item_id`), " +
+                "FOREIGN KEY(`item_id`) REFERENCES `inventory`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)"
+            );
+        }
+    };
+
+    /**
+     * Migration from version 13 to version 14.
+     *
+     * Changes:
+     * - Adds abc_class to inventory (null until the first classification)
+     * - Creates abc_thresholds (cut points of the latest ABC classification)
+     * - Triggers are recreated on open with the ABC triggers
+     */
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL("ALTER TABLE `inventory` ADD COLUMN `abc_class` TEXT");
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `abc_thresholds` (" +
+                "`id` INTEGER NOT NULL, " +
+                "`a_min_value_cents` INTEGER NOT NULL, " +
+                "`b_min_value_cents` INTEGER NOT NULL, " +
+                "`total_value_cents` INTEGER NOT NULL, " +
+                "`computed_at` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`id`))"
+            );
+        }
+    };
+
+    /**
+     * Migration from version 14 to version 15.
+     *
+     * Changes:
+     * - No table changes; drops the triggers so they are recreated on open with
+     *   the category stock series read from stock_summary instead of inventory
+     */
+    static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+        }
+    };
+
+    /**
+     * Migration from version 15 to version 16.
+     *
+     * Changes:
+     * - Rebuilds stock_checkpoints without the cascading foreign key, adding
+     *   item_name (from the item) and deleted_at (set by a delete trigger), so
+     *   as-of queries keep items deleted since a checkpoint
+     * - Triggers are recreated on open with stock_checkpoints_on_delete
+     */
+    static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.drop(database);
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `stock_checkpoints_new` (" +
+                "`taken_at` INTEGER NOT NULL, " +
+                "`item_id` INTEGER NOT NULL, " +
+                "`quantity` INTEGER NOT NULL, " +
+                "`item_name` TEXT NOT NULL, " +
+                "`deleted_at` INTEGER, " +
+                "PRIMARY KEY(`taken_at`, `item_id`))"
+            );
+            // The old foreign key guarantees every row still has its item
+            database.execSQL(
+                "INSERT INTO `stock_checkpoints_new` (`taken_at`, `item_id`, `quantity`, `item_name`) " +
+                "SELECT c.`taken_at`, c.`item_id`, c.`quantity`, i.`name` " +
+                "FROM `stock_checkpoints` c JOIN `inventory` i ON i.`id` = c.`item_id`"
+            );
+            database.execSQL("DROP TABLE `stock_checkpoints`");
+            database.execSQL("ALTER TABLE `stock_checkpoints_new` RENAME TO `stock_checkpoints`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_stock_checkpoints_item_id` " +
+                "ON `stock_checkpoints` (`item_id`)");
+        }
+    };
+
+    /**
+     * Creates the SQLite triggers once Room has created or migrated the schema.
+     */
+    static final RoomDatabase.Callback TRIGGER_CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase database) {
+            InventoryTriggers.create(database);
+        }
+    };
+
+    /**
+     * Choose the storage profile. Must be called before the first getInstance().
+     */
+    public static synchronized void configure(StorageProfile profile) {
+        if (INSTANCE != null) {
+            throw new IllegalStateException("AppDatabase already opened with " + storageProfile);
+        }
+        storageProfile = profile;
+    }
+
+    public static synchronized StorageProfile getStorageProfile() {
+        return storageProfile;
+    }
+
     public static AppDatabase getInstance(Context ctx) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(
-                                    ctx.getApplicationContext(),
-                                    AppDatabase.class,
-                                    "inventory.db"
-                            )
-                            .addMigrations(MIGRATION_1_2)  // Safe migration - preserves data!
-                            .allowMainThreadQueries()      // TODO: Remove after updating UI to use background threads
-                            .build();
+                    // Instrumented only in debuggable builds or when turned on in diagnostics
+                    QueryMetrics metrics = QueryMetrics.isEnabled(ctx) ? QueryMetrics.get() : null;
+                    AppDatabase db = build(ctx, DATABASE_NAME, storageProfile, metrics);
+                    if (metrics != null) {
+                        db.metrics = metrics;
+                        metrics.attach(db);
+                    }
+                    INSTANCE = db;
                 }
             }
         }
         return INSTANCE;
     }
+
+    /**
+     * Close the app instance and swap in a verified restored file (see
+     * DatabaseBackup). The next getInstance() opens, and if needed migrates,
+     * the restored database. Callers must not use the old instance afterwards.
+     */
+    static synchronized void replaceFile(Context ctx, File restored) throws IOException {
+        if (INSTANCE != null) {
+            INSTANCE.close();
+            INSTANCE = null;
+        }
+        File database = ctx.getDatabasePath(DATABASE_NAME);
+        // A leftover log or journal would be replayed onto the restored pages
+        for (String suffix : new String[]{"-wal", "-shm", "-journal"}) {
+            File sidecar = new File(database.getPath() + suffix);
+            if (sidecar.exists() && !sidecar.delete()) {
+                throw new IOException("Cannot delete " + sidecar);
+            }
+        }
+        if (!restored.renameTo(database)) {
+            throw new IOException("Cannot replace " + database);
+        }
+    }
+
+    /**
+     * Build a database file with every migration and callback, using the given profile.
+     * Also used by StorageBenchmarkTest to open scratch databases (with no metrics).
+     */
+    static AppDatabase build(Context ctx, String fileName, StorageProfile profile,
+                             QueryMetrics metrics) {
+        File file = ctx.getDatabasePath(fileName);
+        if (!file.exists()) {
+            createIncrementalVacuumFile(file);
+        }
+        RoomDatabase.Builder<AppDatabase> builder = Room.databaseBuilder(
+                        ctx.getApplicationContext(),
+                        AppDatabase.class,
+                        fileName
+                )
+                .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7,
+                        MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10,
+                        MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13,
+                        MIGRATION_13_14, MIGRATION_14_15, MIGRATION_15_16)  // Safe migrations - preserve data!
+                .addCallback(TRIGGER_CALLBACK)
+                .allowMainThreadQueries();     // TODO: Remove after updating UI to use background threads
+        if (metrics != null) {
+            // Direct executor: the callback runs on the querying thread, inside the timed DAO call
+            builder.setQueryCallback(metrics::onStatement, Runnable::run);
+        }
+        AppDatabase db = profile.applyTo(builder).build();
+        db.profile = profile;
+        return db;
+    }
+
+    /**
+     * Create an empty database file with auto_vacuum=INCREMENTAL, so a new
+     * install never needs the full VACUUM conversion (IncrementalVacuumJob).
+     * The mode only sticks when set before the first table exists, that is
+     * before Room creates the schema; user_version stays 0, so Room still
+     * sees a new database.
+     */
+    private static void createIncrementalVacuumFile(File file) {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            return;     // Room reports the failure when it opens the file
+        }
+        try (SQLiteDatabase sqlite = SQLiteDatabase.openDatabase(file.getPath(), null,
+                SQLiteDatabase.CREATE_IF_NECESSARY | SQLiteDatabase.NO_LOCALIZED_COLLATORS)) {
+            sqlite.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            sqlite.execSQL("VACUUM");   // Writes the header that records the mode
+        }
+    }
+
+    /**
+     * Checkpoint the write-ahead log (no-op outside WAL). Called when the app is backgrounded
+     * and after the incremental vacuum conversion.
+     */
+    public void checkpoint() {
+        profile.checkpoint(getOpenHelper().getWritableDatabase());
+    }
 }
@@ -0,0 +1,318 @@
+package com.myapps.keithpottratz;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of the inventory grid's cards, for a cold start without
+ * loading and sorting the whole table first.
+ *
+ * Layout (little-endian):
+ *
+ *   header        HEADER_SIZE bytes: magic, format and database version,
+ *                 card count, string pool length, sort order count, the
+ *                 InventoryDeltaTracker watermarks the cards are current to
+ *   records       count * RECORD_SIZE bytes, fixed width (see R_* offsets)
+ *   string pool   names as UTF-16 chars, referenced by offset and length
+ *   permutations  one int[count] of record indexes per SortCriteria, in
+ *                 ordinal order, each listing the records in that order
+ *
+ * open() memory-maps the file and cards() decodes the records in the stored
+ * order of the requested criterion, so nothing is queried or sorted. The
+ * caller resumes the delta tracker at the stored watermarks; its next poll
+ * brings in whatever changed since the snapshot was written.
+ *
+ * Files are written to a temporary name and renamed, so a reader sees either
+ * the previous snapshot or the complete new one.
+ */
+public class CardSnapshot {
+
+    public static final String FILE_NAME = "inventory_cards.snapshot";
+
+    private static final int MAGIC = 0x53435649;    // "IVCS"
+
+    // Bump when the layout or the SortCriteria constants change
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_FORMAT = 4;
+    private static final int H_DB_VERSION = 8;
+    private static final int H_COUNT = 12;
+    private static final int H_POOL_CHARS = 16;
+    private static final int H_ORDERS = 20;
+    private static final int H_LAST_UPDATED_AT = 24;
+    private static final int H_LAST_TOMBSTONE_ID = 32;
+    private static final int H_WRITTEN_AT = 40;
+
+    static final int RECORD_SIZE = 80;
+    private static final int R_ID = 0;
+    private static final int R_PRICE_CENTS = 8;
+    private static final int R_CATEGORY_ID = 16;     // 0 = none (ids start at 1)
+    private static final int R_SUPPLIER_ID = 24;
+    private static final int R_LOCATION_ID = 32;
+    private static final int R_CREATED_AT = 40;
+    private static final int R_UPDATED_AT = 48;
+    private static final int R_QUANTITY = 56;
+    private static final int R_MIN_STOCK_LEVEL = 60;
+    private static final int R_NAME_OFFSET = 64;
+    private static final int R_NAME_LENGTH = 68;
+    private static final int R_ABC_CLASS = 72;       // ASCII class letter, 0 = unclassified
+
+    // Bumped by delete(), so writes of cards read before it are dropped
+    private static int generation = 0;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int poolStart;
+    private final int permutationStart;
+    private final long lastUpdatedAt;
+    private final long lastTombstoneId;
+    private final long writtenAt;
+
+    private CardSnapshot(ByteBuffer buffer, int count, int poolChars,
+                         long lastUpdatedAt, long lastTombstoneId, long writtenAt) {
+        this.buffer = buffer;
+        this.count = count;
+        this.poolStart = HEADER_SIZE + count * RECORD_SIZE;
+        this.permutationStart = align4(poolStart + poolChars * 2);
+        this.lastUpdatedAt = lastUpdatedAt;
+        this.lastTombstoneId = lastTombstoneId;
+        this.writtenAt = writtenAt;
+    }
+
+    /**
+     * Map a snapshot file.
+     *
+     * @param dbVersion Schema version of the open database; snapshots of another version are ignored
+     * @return The snapshot, or null if the file is missing, of another format or version, or truncated
+     */
+    public static CardSnapshot open(File file, int dbVersion) {
+        if (!file.isFile() || file.length() < HEADER_SIZE) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            int count = buffer.getInt(H_COUNT);
+            int poolChars = buffer.getInt(H_POOL_CHARS);
+            if (buffer.getInt(H_MAGIC) != MAGIC
+                    || buffer.getInt(H_FORMAT) != FORMAT_VERSION
+                    || buffer.getInt(H_DB_VERSION) != dbVersion
+                    || buffer.getInt(H_ORDERS) != SortCriteria.values().length
+                    || count < 0 || poolChars < 0
+                    || channel.size() != size(count, poolChars)) {
+                return null;
+            }
+            return new CardSnapshot(buffer, count, poolChars,
+                    buffer.getLong(H_LAST_UPDATED_AT), buffer.getLong(H_LAST_TOMBSTONE_ID),
+                    buffer.getLong(H_WRITTEN_AT));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    // Highest updated_at among the cards (InventoryDeltaTracker watermark)
+    public long getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    // Last tombstone applied to the cards (InventoryDeltaTracker watermark)
+    public long getLastTombstoneId() {
+        return lastTombstoneId;
+    }
+
+    public long getWrittenAt() {
+        return writtenAt;
+    }
+
+    /**
+     * Decode every card, already in the order of the given criterion.
+     */
+    public List<InventoryCard> cards(SortCriteria criteria) {
+        List<InventoryCard> cards = new ArrayList<>(count);
+        CharBuffer pool = slice(buffer, poolStart).asCharBuffer();
+        int permutation = permutationStart + criteria.ordinal() * count * 4;
+        for (int i = 0; i < count; i++) {
+            int record = buffer.getInt(permutation + i * 4);
+            if (record < 0 || record >= count) {
+                throw new IllegalStateException("Corrupt card snapshot: record " + record);
+            }
+            cards.add(card(record, pool));
+        }
+        return cards;
+    }
+
+    private InventoryCard card(int record, CharBuffer pool) {
+        int at = HEADER_SIZE + record * RECORD_SIZE;
+        int nameOffset = buffer.getInt(at + R_NAME_OFFSET);
+        int nameLength = buffer.getInt(at + R_NAME_LENGTH);
+        byte abcClass = buffer.get(at + R_ABC_CLASS);
+        return new InventoryCard(
+                buffer.getLong(at + R_ID),
+                pool.subSequence(nameOffset, nameOffset + nameLength).toString(),
+                buffer.getInt(at + R_QUANTITY),
+                buffer.getLong(at + R_PRICE_CENTS),
+                buffer.getInt(at + R_MIN_STOCK_LEVEL),
+                readId(at + R_CATEGORY_ID),
+                readId(at + R_SUPPLIER_ID),
+                readId(at + R_LOCATION_ID),
+                buffer.getLong(at + R_CREATED_AT),
+                buffer.getLong(at + R_UPDATED_AT),
+                abcClass != 0 ? String.valueOf((char) abcClass) : null);
+    }
+
+    private Long readId(int at) {
+        long id = buffer.getLong(at);
+        return id != 0 ? id : null;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Write a snapshot of the given cards, replacing the file atomically.
+     * Sorts a copy per criterion - call from a background thread.
+     *
+     * @param lastUpdatedAt   Delta tracker watermark the cards are current to
+     * @param lastTombstoneId Delta tracker watermark the cards are current to
+     * @param generation      generation() when the cards were copied; the write is
+     *                        skipped if the snapshot was deleted since
+     * @return False if the write was skipped
+     */
+    public static synchronized boolean write(File file, List<InventoryCard> cards, int dbVersion,
+                                          long lastUpdatedAt, long lastTombstoneId,
+                                          int generation) throws IOException {
+        if (generation != CardSnapshot.generation) {
+            return false;
+        }
+        int count = cards.size();
+        int poolChars = 0;
+        for (InventoryCard card : cards) {
+            poolChars += card.getName().length();
+        }
+
+        Map<Long, Integer> recordOf = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            recordOf.put(cards.get(i).getId(), i);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            long size = size(count, poolChars);
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Card snapshot too large: " + size + " bytes");
+            }
+            raf.setLength(size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_FORMAT, FORMAT_VERSION);
+            buffer.putInt(H_DB_VERSION, dbVersion);
+            buffer.putInt(H_COUNT, count);
+            buffer.putInt(H_POOL_CHARS, poolChars);
+            buffer.putInt(H_ORDERS, SortCriteria.values().length);
+            buffer.putLong(H_LAST_UPDATED_AT, lastUpdatedAt);
+            buffer.putLong(H_LAST_TOMBSTONE_ID, lastTombstoneId);
+            buffer.putLong(H_WRITTEN_AT, System.currentTimeMillis());
+
+            int poolStart = HEADER_SIZE + count * RECORD_SIZE;
+            CharBuffer pool = slice(buffer, poolStart).asCharBuffer();
+            int nameOffset = 0;
+            for (int i = 0; i < count; i++) {
+                InventoryCard card = cards.get(i);
+                int at = HEADER_SIZE + i * RECORD_SIZE;
+                String name = card.getName();
+                buffer.putLong(at + R_ID, card.getId());
+                buffer.putLong(at + R_PRICE_CENTS, card.getPriceCents());
+                buffer.putLong(at + R_CATEGORY_ID, idOrZero(card.getCategoryId()));
+                buffer.putLong(at + R_SUPPLIER_ID, idOrZero(card.getSupplierId()));
+                buffer.putLong(at + R_LOCATION_ID, idOrZero(card.getLocationId()));
+                buffer.putLong(at + R_CREATED_AT, card.getCreatedAt());
+                buffer.putLong(at + R_UPDATED_AT, card.getUpdatedAt());
+                buffer.putInt(at + R_QUANTITY, card.getQuantity());
+                buffer.putInt(at + R_MIN_STOCK_LEVEL, card.getMinStockLevel());
+                buffer.putInt(at + R_NAME_OFFSET, nameOffset);
+                buffer.putInt(at + R_NAME_LENGTH, name.length());
+                String abcClass = card.getAbcClass();
+                buffer.put(at + R_ABC_CLASS, abcClass != null && !abcClass.isEmpty()
+                        ? (byte) abcClass.charAt(0) : 0);
+
+                pool.put(name);
+                nameOffset += name.length();
+            }
+
+            // One permutation per sort order, with the comparator the grid merges deltas with
+            int permutation = align4(poolStart + poolChars * 2);
+            List<InventoryCard> sorted = new ArrayList<>(cards);
+            for (SortCriteria criteria : SortCriteria.values()) {
+                sorted.sort(InventorySortManager.comparator(criteria));
+                for (InventoryCard card : sorted) {
+                    buffer.putInt(permutation, recordOf.get(card.getId()));
+                    permutation += 4;
+                }
+            }
+
+            buffer.force();
+        }
+        if (!tmp.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the snapshot, e.g. before a full reload that prunes the
+     * tombstones it would need to catch up, or after a restore.
+     */
+    public static synchronized void delete(File file) {
+        generation++;
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    public static synchronized int generation() {
+        return generation;
+    }
+
+    private static long size(int count, int poolChars) {
+        return align4(HEADER_SIZE + (long) count * RECORD_SIZE + (long) poolChars * 2)
+                + (long) SortCriteria.values().length * count * 4;
+    }
+
+    private static int align4(int offset) {
+        return (offset + 3) & ~3;
+    }
+
+    private static long align4(long offset) {
+        return (offset + 3) & ~3L;
+    }
+
+    private static long idOrZero(Long id) {
+        return id != null ? id : 0;
+    }
+}
@@ -9,14 +9,14 @@ public class CategoryStats {
     public String categoryName;
     public int itemCount;
     public int totalQuantity;
-    public double totalValue;
+    public long totalValueCents;
 
     public CategoryStats(long categoryId, String categoryName, int itemCount,
-                         int totalQuantity, double totalValue) {
+                         int totalQuantity, long totalValueCents) {
         this.categoryId = categoryId;
         this.categoryName = categoryName;
         this.itemCount = itemCount;
         this.totalQuantity = totalQuantity;
-        this.totalValue = totalValue;
+        this.totalValueCents = totalValueCents;
     }
 }
@@ -0,0 +1,101 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Compact history row for numeric field changes (see HistoryField), written
+ * by the inventory_audit_on_update trigger.
+ *
+ * Instead of the action, field name and old/new values as text, a row holds
+ * a field id, the old value and the signed delta as integers, which SQLite
+ * stores in 1-8 bytes depending on magnitude (typically 1 byte each for
+ * quantity changes).
+ *
+ * InventoryHistoryDao decodes these rows into InventoryHistory, so callers
+ * see a single history stream.
+ */
+@Entity(
+    tableName = "inventory_history_compact",
+    foreignKeys = {
+        @ForeignKey(
+            entity = InventoryItem.class,
+            parentColumns = "id",
+            childColumns = "item_id",
+            onDelete = ForeignKey.CASCADE
+        )
+    },
+    indices = {
+        @Index(value = {"item_id", "timestamp"}),  // Per-item timeline in time order
+        @Index(value = "timestamp")                // Recent history and time ranges
+    }
+)
+public class CompactHistoryEvent {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @ColumnInfo(name = "item_id")
+    private long itemId;
+
+    private int field;          // HistoryField id
+
+    @ColumnInfo(name = "old_value")
+    private long oldValue;
+
+    private long delta;         // new value - old value
+
+    private long timestamp;
+
+    // Constructor for Room (all fields)
+    public CompactHistoryEvent(long id, long itemId, int field, long oldValue, long delta,
+                               long timestamp) {
+        this.id = id;
+        this.itemId = itemId;
+        this.field = field;
+        this.oldValue = oldValue;
+        this.delta = delta;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Decode into the regular history API. Ids are negated so they never
+     * collide with inventory_history ids.
+     */
+    public InventoryHistory toHistory() {
+        return new InventoryHistory(-id, itemId, null, "UPDATED",
+                HistoryField.fromId(field).getColumn(),
+                String.valueOf(oldValue), String.valueOf(oldValue + delta), timestamp);
+    }
+
+    // Getters
+    public long getId() {
+        return id;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    public int getField() {
+        return field;
+    }
+
+    public long getOldValue() {
+        return oldValue;
+    }
+
+    public long getDelta() {
+        return delta;
+    }
+
+    public long getNewValue() {
+        return oldValue + delta;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,275 @@
+package com.myapps.keithpottratz;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumption forecasts and reorder points from quantity decreases.
+ *
+ * Each run reads only the quantity decreases recorded in
+ * inventory_history_compact since the previous run (the highest event id any
+ * forecast has applied) and updates only the items they belong to. Per item,
+ * daily demand is tracked as an exponentially weighted mean and variance
+ * (see ItemForecast), giving:
+ *
+ *   reorder point = rate * lead time + z * sqrt(variance * lead time)
+ *   order up to   = reorder point + rate * REVIEW_DAYS
+ *
+ * with the lead time of the item's supplier. The reorder point is written to
+ * min_stock_level, which the low-stock queries and alerts already use, but
+ * only while min_stock_level still holds the value the forecast last wrote (or
+ * the default, before the first forecast): a minimum set by hand, e.g. by a
+ * CSV import, pins the item and is never overwritten.
+ *
+ * Days without consumption since a forecast's open day count as zero demand,
+ * so each run also recomputes the forecasts not updated for a day; reorder
+ * points of items that stopped selling decay instead of staying put.
+ *
+ * Must run before HistoryRetention purges the events it has not read yet.
+ */
+public class ConsumptionForecaster {
+
+    // Time constant of the weighting: a day's demand fades to 1/e after this many days
+    static final double TAU_DAYS = 14;
+    static final double ALPHA = 1 - Math.exp(-1 / TAU_DAYS);
+
+    // Service level of the safety stock (1.65 = about 95% of lead times without a stockout)
+    static final double SERVICE_Z = 1.65;
+
+    // Days of demand an order covers beyond the reorder point
+    static final int REVIEW_DAYS = 30;
+
+    // Longer gaps without consumption decay the averages to zero anyway
+    static final int MAX_GAP_DAYS = 365;
+
+    static final int EVENT_CHUNK_SIZE = 5000;
+
+    // Bound on the ids per IN (...) list, below SQLite's variable limit
+    static final int ID_CHUNK_SIZE = 500;
+
+    private final AppDatabase db;
+    private final ForecastDao dao;
+
+    public ConsumptionForecaster(AppDatabase db) {
+        this.db = db;
+        this.dao = db.forecastDao();
+    }
+
+    /**
+     * Apply every quantity decrease recorded since the last run, then decay
+     * the forecasts no event has touched for a day. Runs one transaction per
+     * chunk - call from a background thread.
+     *
+     * @return Number of item forecasts updated
+     */
+    public int run() {
+        Long watermark = dao.getWatermark();
+        long afterId = watermark != null ? watermark : 0;
+        int updated = 0;
+
+        List<CompactHistoryEvent> events;
+        while (!(events = dao.getDecreasesAfter(afterId, EVENT_CHUNK_SIZE)).isEmpty()) {
+            List<CompactHistoryEvent> chunk = events;
+            updated += db.runInTransaction(() -> applyChunk(chunk));
+            afterId = events.get(events.size() - 1).getId();
+        }
+        return updated + decayStale(System.currentTimeMillis());
+    }
+
+    /**
+     * Recompute reorder points of one supplier's items, e.g. after its lead time changed.
+     */
+    public void refreshSupplier(long supplierId) {
+        db.runInTransaction(() -> {
+            List<ItemForecast> forecasts = new ArrayList<>();
+            List<Long> appliedIds = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            for (ForecastInput input : dao.getInputsForSupplier(supplierId)) {
+                boolean follows = followsForecast(input, input.forecast);
+                updateReorderPoint(input.forecast, input.leadTimeDays, now);
+                forecasts.add(input.forecast);
+                if (follows) {
+                    appliedIds.add(input.itemId);
+                }
+            }
+            save(forecasts, appliedIds, now);
+        });
+    }
+
+    /**
+     * Recompute forecasts last updated more than a day before now, a page at
+     * a time, saving only those whose reorder point or order-up-to changed.
+     *
+     * @return Number of item forecasts updated
+     */
+    int decayStale(long now) {
+        long before = now - InventoryHistoryDaily.DAY_MS;
+        long afterItemId = 0;
+        int updated = 0;
+        List<ForecastInput> page;
+        while (!(page = dao.getStaleInputs(before, afterItemId, ID_CHUNK_SIZE)).isEmpty()) {
+            List<ForecastInput> inputs = page;
+            updated += db.runInTransaction(() -> {
+                List<ItemForecast> forecasts = new ArrayList<>();
+                List<Long> appliedIds = new ArrayList<>();
+                for (ForecastInput input : inputs) {
+                    ItemForecast forecast = input.forecast;
+                    boolean follows = followsForecast(input, forecast);
+                    int reorderPoint = forecast.getReorderPoint();
+                    int orderUpTo = forecast.getOrderUpTo();
+                    updateReorderPoint(forecast, input.leadTimeDays, now);
+                    if (forecast.getReorderPoint() != reorderPoint || forecast.getOrderUpTo() != orderUpTo) {
+                        forecasts.add(forecast);
+                        if (follows) {
+                            appliedIds.add(input.itemId);
+                        }
+                    }
+                }
+                save(forecasts, appliedIds, now);
+                return forecasts.size();
+            });
+            afterItemId = page.get(page.size() - 1).itemId;
+        }
+        return updated;
+    }
+
+    /**
+     * True while the item's min_stock_level is the one the forecast manages:
+     * the reorder point it last wrote, or the default before the first forecast.
+     * Call with the forecast as read, before it is updated.
+     */
+    static boolean followsForecast(ForecastInput input, ItemForecast previous) {
+        int managed = previous != null ? previous.getReorderPoint() : InventoryItem.DEFAULT_MIN_STOCK_LEVEL;
+        return input.minStockLevel == managed;
+    }
+
+    private int applyChunk(List<CompactHistoryEvent> events) {
+        // Events in id order, grouped by item
+        Map<Long, List<CompactHistoryEvent>> byItem = new LinkedHashMap<>();
+        for (CompactHistoryEvent event : events) {
+            List<CompactHistoryEvent> itemEvents = byItem.get(event.getItemId());
+            if (itemEvents == null) {
+                itemEvents = new ArrayList<>();
+                byItem.put(event.getItemId(), itemEvents);
+            }
+            itemEvents.add(event);
+        }
+
+        Map<Long, ForecastInput> inputs = new HashMap<>();
+        List<Long> itemIds = new ArrayList<>(byItem.keySet());
+        for (int i = 0; i < itemIds.size(); i += ID_CHUNK_SIZE) {
+            List<Long> ids = itemIds.subList(i, Math.min(i + ID_CHUNK_SIZE, itemIds.size()));
+            for (ForecastInput input : dao.getInputs(ids)) {
+                inputs.put(input.itemId, input);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        List<ItemForecast> forecasts = new ArrayList<>();
+        List<Long> appliedIds = new ArrayList<>();
+        for (Map.Entry<Long, List<CompactHistoryEvent>> entry : byItem.entrySet()) {
+            ForecastInput input = inputs.get(entry.getKey());
+            if (input == null) {
+                continue;   // Item deleted since
+            }
+            ItemForecast forecast = input.forecast;
+            boolean follows = followsForecast(input, forecast);
+            boolean changed = false;
+            for (CompactHistoryEvent event : entry.getValue()) {
+                // Already applied (the watermark can move back when its item is deleted)
+                if (forecast != null && event.getId() <= forecast.getLastEventId()) {
+                    continue;
+                }
+                forecast = addConsumption(forecast, event);
+                changed = true;
+            }
+            if (changed) {
+                updateReorderPoint(forecast, input.leadTimeDays, now);
+                forecasts.add(forecast);
+                if (follows) {
+                    appliedIds.add(entry.getKey());
+                }
+            }
+        }
+
+        save(forecasts, appliedIds, now);
+        return forecasts.size();
+    }
+
+    /**
+     * Store the forecasts, then copy the reorder points of the items that
+     * follow their forecast into min_stock_level.
+     */
+    private void save(List<ItemForecast> forecasts, List<Long> appliedIds, long now) {
+        dao.upsertAll(forecasts);
+        for (int i = 0; i < appliedIds.size(); i += ID_CHUNK_SIZE) {
+            dao.applyReorderPoints(appliedIds.subList(i, Math.min(i + ID_CHUNK_SIZE, appliedIds.size())), now);
+        }
+    }
+
+    /**
+     * Add one decrease to the open day, first closing it (and any days without
+     * consumption in between) if the event falls on a later day.
+     */
+    static ItemForecast addConsumption(ItemForecast forecast, CompactHistoryEvent event) {
+        long day = Math.floorDiv(event.getTimestamp(), InventoryHistoryDaily.DAY_MS);
+        if (forecast == null) {
+            forecast = new ItemForecast(event.getItemId(), 0, 0, 0, day, 0, 0, 0, 0, 0);
+        } else if (day > forecast.getOpenDay()) {
+            closeDay(forecast, forecast.getOpenDayQuantity());
+            long emptyDays = Math.min(day - forecast.getOpenDay() - 1, MAX_GAP_DAYS);
+            for (long i = 0; i < emptyDays; i++) {
+                closeDay(forecast, 0);
+            }
+            forecast.setOpenDay(day);
+            forecast.setOpenDayQuantity(0);
+        }
+        // Events of earlier days (clock changes) count toward the open day
+        forecast.setOpenDayQuantity(forecast.getOpenDayQuantity() - event.getDelta());
+        forecast.setLastEventId(event.getId());
+        return forecast;
+    }
+
+    /**
+     * Fold one day's demand into the weighted mean and variance.
+     */
+    private static void closeDay(ItemForecast forecast, long demand) {
+        double diff = demand - forecast.getConsumptionRate();
+        forecast.setConsumptionRate(forecast.getConsumptionRate() + ALPHA * diff);
+        forecast.setDemandVariance((1 - ALPHA) * (forecast.getDemandVariance() + ALPHA * diff * diff));
+        forecast.setObservedDays(Math.min(forecast.getObservedDays() + 1, MAX_GAP_DAYS));
+    }
+
+    /**
+     * Recompute reorder point and order-up-to level, counting the open day as
+     * if it closed now and every whole day since then as a day without
+     * consumption. The stored averages are left as they are.
+     */
+    static void updateReorderPoint(ItemForecast forecast, int leadTimeDays, long now) {
+        double diff = forecast.getOpenDayQuantity() - forecast.getConsumptionRate();
+        double rate = forecast.getConsumptionRate() + ALPHA * diff;
+        double variance = (1 - ALPHA) * (forecast.getDemandVariance() + ALPHA * diff * diff);
+
+        long today = Math.floorDiv(now, InventoryHistoryDaily.DAY_MS);
+        long emptyDays = Math.max(0, Math.min(today - forecast.getOpenDay() - 1, MAX_GAP_DAYS));
+        for (long i = 0; i < emptyDays; i++) {
+            variance = (1 - ALPHA) * (variance + ALPHA * rate * rate);
+            rate -= ALPHA * rate;
+        }
+
+        // Averages start at zero; divide out the weight still missing after n days
+        double weight = 1 - Math.pow(1 - ALPHA, forecast.getObservedDays() + 1 + emptyDays);
+        rate /= weight;
+        variance /= weight;
+
+        double reorderPoint = rate * leadTimeDays + SERVICE_Z * Math.sqrt(variance * leadTimeDays);
+        int rounded = (int) Math.min(Math.ceil(reorderPoint), Integer.MAX_VALUE);
+        forecast.setReorderPoint(rate > 0 ? Math.max(rounded, 1) : 0);
+        forecast.setOrderUpTo((int) Math.min(
+                Math.ceil(forecast.getReorderPoint() + rate * REVIEW_DAYS), Integer.MAX_VALUE));
+        forecast.setUpdatedAt(now);
+    }
+}
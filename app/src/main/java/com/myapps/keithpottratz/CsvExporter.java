@@ -0,0 +1,259 @@
+package com.myapps.keithpottratz;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming CSV export (RFC 4180, UTF-8, optionally gzip-compressed).
+ *
+ * Rows are read with raw cursors in keyset batches over the primary key, so
+ * every batch is a fresh indexed query that fits one CursorWindow, and are
+ * written straight through a buffered channel writer. Memory use does not
+ * depend on the row count.
+ *
+ * Batches are separate reads: rows changed during a long export appear as of
+ * the batch that read them. Money columns are written as plain decimals
+ * ("12.50"); the DETAILS layout is the one CsvImporter reads.
+ */
+public class CsvExporter {
+
+    static final int BATCH_SIZE = 5000;
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // Exact cents -> "units.cc" for non-negative amounts, without floating point
+    private static final String PRICE =
+            "(i.price_cents / 100) || '.' || substr('0' || (i.price_cents % 100), -2)";
+
+    /**
+     * One keyset-paged query. The first selected column is the key (not
+     * written); the statement takes the last key and the batch size.
+     */
+    private static final class Source {
+        final String countSql;
+        final String pageSql;
+
+        Source(String countSql, String pageSql) {
+            this.countSql = countSql;
+            this.pageSql = pageSql;
+        }
+    }
+
+    /**
+     * Exportable data sets and their CSV layouts.
+     */
+    public enum Dataset {
+        INVENTORY(new String[]{"id", "name", "description", "sku", "quantity", "price",
+                "min_stock_level", "category_id", "supplier_id", "location_id", "abc_class",
+                "created_at", "updated_at"},
+                new Source("SELECT COUNT(*) FROM inventory",
+                        "SELECT i.id, i.id, i.name, i.description, i.sku, i.quantity, " + PRICE + ", " +
+                        "i.min_stock_level, i.category_id, i.supplier_id, i.location_id, i.abc_class, " +
+                        "i.created_at, i.updated_at " +
+                        "FROM inventory i WHERE i.id > ? ORDER BY i.id LIMIT ?")),
+
+        DETAILS(new String[]{"id", "sku", "name", "description", "quantity", "price",
+                "min_stock_level", "category", "supplier", "location"},
+                new Source("SELECT COUNT(*) FROM inventory",
+                        "SELECT i.id, i.id, i.sku, i.name, i.description, i.quantity, " + PRICE + ", " +
+                        "i.min_stock_level, c.name, s.name, l.name " +
+                        "FROM inventory i " +
+                        "LEFT JOIN categories c ON i.category_id = c.id " +
+                        "LEFT JOIN suppliers s ON i.supplier_id = s.id " +
+                        "LEFT JOIN locations l ON i.location_id = l.id " +
+                        "WHERE i.id > ? ORDER BY i.id LIMIT ?")),
+
+        // Same rows as InventoryDao.getReorderReport, in id order
+        REORDER_REPORT(new String[]{"item_id", "name", "quantity", "min_stock_level", "deficit",
+                "suggested_order", "supplier", "supplier_email", "supplier_phone"},
+                new Source("SELECT COUNT(*) FROM inventory WHERE low_stock_deficit > 0",
+                        "SELECT i.id, i.id, i.name, i.quantity, i.min_stock_level, i.low_stock_deficit, " +
+                        "MAX(COALESCE(f.order_up_to, i.min_stock_level) - i.quantity, 0), " +
+                        "s.name, s.email, s.phone " +
+                        "FROM inventory i " +
+                        "LEFT JOIN suppliers s ON i.supplier_id = s.id " +
+                        "LEFT JOIN item_forecasts f ON f.item_id = i.id " +
+                        "WHERE i.low_stock_deficit > 0 AND i.id > ? ORDER BY i.id LIMIT ?")),
+
+        // Raw events: text rows, then decoded compact rows (negative ids, as in
+        // InventoryHistoryDao.HISTORY_ALL). Daily rollups are not included.
+        HISTORY(new String[]{"id", "item_id", "user_id", "action", "field_changed",
+                "old_value", "new_value", "timestamp"},
+                new Source("SELECT COUNT(*) FROM inventory_history",
+                        "SELECT id, id, item_id, user_id, action, field_changed, old_value, new_value, " +
+                        "timestamp FROM inventory_history WHERE id > ? ORDER BY id LIMIT ?"),
+                new Source("SELECT COUNT(*) FROM inventory_history_compact",
+                        "SELECT id, -id, item_id, NULL, 'UPDATED', " +
+                        "CASE field WHEN 1 THEN 'quantity' WHEN 2 THEN 'price_cents' " +
+                        "WHEN 3 THEN 'min_stock_level' END, " +
+                        "old_value, old_value + delta, timestamp " +
+                        "FROM inventory_history_compact WHERE id > ? ORDER BY id LIMIT ?"));
+
+        private final String[] header;
+        private final Source[] sources;
+
+        Dataset(String[] header, Source... sources) {
+            this.header = header;
+            this.sources = sources;
+        }
+    }
+
+    /**
+     * Receives progress after every batch (on the exporting thread).
+     */
+    public interface ProgressListener {
+        void onProgress(long rowsWritten, long totalRows);
+    }
+
+    private final AppDatabase db;
+    private volatile boolean cancelled = false;
+
+    public CsvExporter(AppDatabase db) {
+        this.db = db;
+    }
+
+    /**
+     * Stop a running export after the current batch. It then throws
+     * CancellationException.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Export to a file, deleting the partial file if the export fails or is cancelled.
+     *
+     * @return Number of rows written
+     */
+    public long exportToFile(Dataset dataset, File file, boolean gzip, ProgressListener listener)
+            throws IOException {
+        boolean done = false;
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            long rows = export(dataset, out, gzip, listener);
+            done = true;
+            return rows;
+        } finally {
+            if (!done) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Export a data set to a stream (left open; compressed output is finished).
+     * Call from a background thread.
+     *
+     * @param listener Optional progress callback
+     * @return Number of rows written (excluding the header)
+     * @throws CancellationException if cancel() was called
+     */
+    public long export(Dataset dataset, OutputStream out, boolean gzip, ProgressListener listener)
+            throws IOException {
+        GZIPOutputStream zip = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        WritableByteChannel channel = Channels.newChannel(zip != null ? zip : out);
+        Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+
+        long total = 0;
+        for (Source source : dataset.sources) {
+            total += count(source);
+        }
+
+        StringBuilder line = new StringBuilder(256);
+        for (int i = 0; i < dataset.header.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(dataset.header[i]);
+        }
+        writer.append(line).append("\r\n");
+
+        long rows = 0;
+        for (Source source : dataset.sources) {
+            long lastKey = Long.MIN_VALUE;
+            int batchRows;
+            do {
+                if (cancelled) {
+                    throw new CancellationException("CSV export cancelled after " + rows + " rows");
+                }
+                batchRows = 0;
+                try (Cursor cursor = db.query(new SimpleSQLiteQuery(source.pageSql,
+                        new Object[]{lastKey, BATCH_SIZE}))) {
+                    int columns = cursor.getColumnCount();
+                    while (cursor.moveToNext()) {
+                        lastKey = cursor.getLong(0);
+                        line.setLength(0);
+                        for (int c = 1; c < columns; c++) {
+                            if (c > 1) {
+                                line.append(',');
+                            }
+                            appendField(line, cursor.getString(c));
+                        }
+                        writer.append(line).append("\r\n");
+                        batchRows++;
+                    }
+                }
+                rows += batchRows;
+                if (listener != null) {
+                    listener.onProgress(rows, Math.max(total, rows));
+                }
+            } while (batchRows == BATCH_SIZE);
+        }
+
+        writer.flush();
+        if (zip != null) {
+            zip.finish();
+        }
+        out.flush();
+        return rows;
+    }
+
+    private long count(Source source) {
+        try (Cursor cursor = db.query(new SimpleSQLiteQuery(source.countSql))) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Append one field, quoted only when it contains a separator, quote or line break.
+     * NULL is written as an empty field.
+     */
+    static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                line.append('"');
+            }
+            line.append(ch);
+        }
+        line.append('"');
+    }
+}
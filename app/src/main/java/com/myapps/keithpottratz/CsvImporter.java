@@ -0,0 +1,398 @@
+package com.myapps.keithpottratz;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming CSV import of items, upserted by SKU.
+ *
+ * Reads the CsvExporter DETAILS layout; columns are matched by header name
+ * (sku, name, description, quantity, price, min_stock_level, category,
+ * supplier, location), only name is required and unknown columns such as id
+ * are ignored. Gzip input is detected automatically.
+ *
+ * Rows are validated as AddItemDialogFragment does (name required, price a
+ * non-negative amount) plus whole non-negative quantities. Valid rows are
+ * written BATCH_SIZE at a time, each batch in one transaction: a row whose
+ * SKU already exists updates that item (empty cells keep the current value),
+ * any other row inserts a new item. Rows are merged in memory so a batch costs
+ * one SKU lookup per SKU_CHUNK_SIZE rows plus one bulk update and one bulk
+ * insert; the inventory triggers still run per row. Category, supplier and location names are
+ * resolved through an in-memory cache and created when missing. Invalid rows
+ * are skipped and reported with their line number.
+ */
+public class CsvImporter {
+
+    static final int BATCH_SIZE = 5000;
+
+    // Bound on the ids per IN (...) list, below SQLite's variable limit
+    static final int SKU_CHUNK_SIZE = 500;
+
+    // Errors kept for the report; later ones are only counted
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A rejected row.
+     */
+    public static final class RowError {
+        public final long line;
+        public final String message;
+
+        RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * Outcome of an import.
+     */
+    public static final class Result {
+        public long inserted;
+        public long updated;
+        public long rejected;
+        public final List<RowError> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+    }
+
+    /**
+     * Receives progress after every batch (on the importing thread).
+     */
+    public interface ProgressListener {
+        void onProgress(long rowsRead);
+    }
+
+    // One validated row; null fields were empty or absent
+    private static final class Row {
+        String sku;
+        String name;
+        String description;
+        Integer quantity;
+        Long priceCents;
+        Integer minStockLevel;
+        String category;
+        String supplier;
+        String location;
+    }
+
+    private final AppDatabase db;
+    private final InventoryDao dao;
+    private volatile boolean cancelled = false;
+
+    // Name -> id caches, loaded once per import
+    private Map<String, Long> categoryIds;
+    private Map<String, Long> supplierIds;
+    private Map<String, Long> locationIds;
+
+    public CsvImporter(AppDatabase db) {
+        this.db = db;
+        this.dao = db.inventoryDao();
+    }
+
+    /**
+     * Stop a running import after the current batch. Batches already written
+     * stay committed; importCsv() then throws CancellationException.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Import a CSV stream (closed when done). Call from a background thread.
+     *
+     * @param listener Optional progress callback
+     * @throws IOException if the stream cannot be read or the header has no name column
+     * @throws CancellationException if cancel() was called
+     */
+    public Result importCsv(InputStream input, ProgressListener listener) throws IOException {
+        Result result = new Result();
+        loadNameCaches();
+
+        try (CsvReader reader = new CsvReader(new InputStreamReader(
+                maybeGunzip(new BufferedInputStream(input, BUFFER_SIZE)), StandardCharsets.UTF_8))) {
+            List<String> fields = new ArrayList<>();
+            if (!reader.next(fields)) {
+                return result;  // Empty file
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                columns.put(fields.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("name")) {
+                throw new IOException("CSV header has no name column");
+            }
+            int[] index = {
+                    column(columns, "sku"), column(columns, "name"), column(columns, "description"),
+                    column(columns, "quantity"), column(columns, "price"),
+                    column(columns, "min_stock_level"), column(columns, "category"),
+                    column(columns, "supplier"), column(columns, "location")
+            };
+
+            List<Row> batch = new ArrayList<>(BATCH_SIZE);
+            long rowsRead = 0;
+            while (reader.next(fields)) {
+                if (fields.isEmpty() || (fields.size() == 1 && fields.get(0).isEmpty())) {
+                    continue;   // Blank line
+                }
+                rowsRead++;
+                Row row = parse(fields, index, reader.getLineNumber(), result);
+                if (row != null) {
+                    batch.add(row);
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    writeBatch(batch, result, rowsRead, listener);
+                }
+            }
+            if (!batch.isEmpty() || listener != null) {
+                writeBatch(batch, result, rowsRead, listener);
+            }
+        }
+        return result;
+    }
+
+    private void writeBatch(List<Row> batch, Result result, long rowsRead, ProgressListener listener) {
+        if (cancelled) {
+            throw new CancellationException("CSV import cancelled after " + rowsRead + " rows");
+        }
+        db.runInTransaction(() -> upsert(batch, result));
+        batch.clear();
+        if (listener != null) {
+            listener.onProgress(rowsRead);
+        }
+    }
+
+    /**
+     * Validate one record. Returns null (and records the error) for a rejected row.
+     */
+    private static Row parse(List<String> fields, int[] index, long line, Result result) {
+        Row row = new Row();
+        row.sku = cell(fields, index[0]);
+        row.name = cell(fields, index[1]);
+        row.description = cell(fields, index[2]);
+        row.category = cell(fields, index[6]);
+        row.supplier = cell(fields, index[7]);
+        row.location = cell(fields, index[8]);
+
+        if (row.name == null) {
+            result.reject(line, "Name required");
+            return null;
+        }
+
+        String price = cell(fields, index[4]);
+        if (price != null) {
+            try {
+                row.priceCents = Money.parseCents(price);
+            } catch (NumberFormatException e) {
+                result.reject(line, "Invalid price: " + price);
+                return null;
+            }
+            if (row.priceCents < 0) {
+                result.reject(line, "Price cannot be negative");
+                return null;
+            }
+        }
+
+        String quantity = cell(fields, index[3]);
+        if (quantity != null) {
+            row.quantity = parseCount(quantity);
+            if (row.quantity == null) {
+                result.reject(line, "Invalid quantity: " + quantity);
+                return null;
+            }
+        }
+
+        String minStock = cell(fields, index[5]);
+        if (minStock != null) {
+            row.minStockLevel = parseCount(minStock);
+            if (row.minStockLevel == null) {
+                result.reject(line, "Invalid min_stock_level: " + minStock);
+                return null;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Write one batch (inside a transaction): rows are merged in memory into
+     * the existing item for their SKU or into a new item, then written with
+     * one updateAll() and one insertAll() call.
+     */
+    private void upsert(List<Row> batch, Result result) {
+        // Existing items for the batch's SKUs
+        Map<String, InventoryItem> itemsBySku = new HashMap<>();
+        List<String> skus = new ArrayList<>();
+        for (Row row : batch) {
+            if (row.sku != null) {
+                skus.add(row.sku);
+            }
+        }
+        for (int i = 0; i < skus.size(); i += SKU_CHUNK_SIZE) {
+            for (InventoryItem item : dao.getFirstBySku(skus.subList(i, Math.min(i + SKU_CHUNK_SIZE, skus.size())))) {
+                itemsBySku.put(item.getSku(), item);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        Map<Long, InventoryItem> updates = new LinkedHashMap<>();
+        List<InventoryItem> inserts = new ArrayList<>();
+        for (Row row : batch) {
+            Long categoryId = resolve(categoryIds, row.category, Kind.CATEGORY);
+            Long supplierId = resolve(supplierIds, row.supplier, Kind.SUPPLIER);
+            Long locationId = resolve(locationIds, row.location, Kind.LOCATION);
+
+            InventoryItem item = row.sku != null ? itemsBySku.get(row.sku) : null;
+            if (item != null) {
+                merge(item, row, categoryId, supplierId, locationId, now);
+                if (item.getId() != 0) {
+                    updates.put(item.getId(), item);
+                }
+                result.updated++;
+            } else {
+                item = new InventoryItem(row.name, row.description,
+                        row.quantity != null ? row.quantity : 0,
+                        categoryId, supplierId, locationId,
+                        row.priceCents != null ? row.priceCents : 0, row.sku,
+                        row.minStockLevel != null ? row.minStockLevel : InventoryItem.DEFAULT_MIN_STOCK_LEVEL);
+                item.setUpdatedAt(now);
+                inserts.add(item);
+                if (row.sku != null) {
+                    itemsBySku.put(row.sku, item);  // Later rows with this SKU merge into it
+                }
+                result.inserted++;
+            }
+        }
+        if (!updates.isEmpty()) {
+            dao.updateAll(new ArrayList<>(updates.values()));
+        }
+        if (!inserts.isEmpty()) {
+            dao.insertAll(inserts);
+        }
+    }
+
+    // Apply an imported row to an item: the name always, other cells only when present
+    private static void merge(InventoryItem item, Row row, Long categoryId, Long supplierId,
+                              Long locationId, long now) {
+        item.setName(row.name);
+        if (row.description != null) {
+            item.setDescription(row.description);
+        }
+        if (row.quantity != null) {
+            item.setQuantity(row.quantity);
+        }
+        if (row.priceCents != null) {
+            item.setPriceCents(row.priceCents);
+        }
+        if (row.minStockLevel != null) {
+            item.setMinStockLevel(row.minStockLevel);
+        }
+        if (categoryId != null) {
+            item.setCategoryId(categoryId);
+        }
+        if (supplierId != null) {
+            item.setSupplierId(supplierId);
+        }
+        if (locationId != null) {
+            item.setLocationId(locationId);
+        }
+        item.setUpdatedAt(now);
+    }
+
+    private enum Kind { CATEGORY, SUPPLIER, LOCATION }
+
+    /**
+     * Id for a category, supplier or location name, creating it when missing.
+     */
+    private Long resolve(Map<String, Long> cache, String name, Kind kind) {
+        if (name == null) {
+            return null;
+        }
+        Long id = cache.get(name);
+        if (id == null) {
+            switch (kind) {
+                case CATEGORY:
+                    id = db.categoryDao().insert(new Category(name, null, null));
+                    break;
+                case SUPPLIER:
+                    id = db.supplierDao().insert(new Supplier(name, null, null, null, null));
+                    break;
+                default:
+                    id = db.locationDao().insert(new Location(name, null, null, null, null));
+                    break;
+            }
+            cache.put(name, id);
+        }
+        return id;
+    }
+
+    private void loadNameCaches() {
+        categoryIds = new HashMap<>();
+        for (Category category : db.categoryDao().getAll()) {
+            categoryIds.put(category.getName(), category.getId());
+        }
+        supplierIds = new HashMap<>();
+        for (Supplier supplier : db.supplierDao().getAll()) {
+            supplierIds.put(supplier.getName(), supplier.getId());
+        }
+        locationIds = new HashMap<>();
+        for (Location location : db.locationDao().getAll()) {
+            locationIds.put(location.getName(), location.getId());
+        }
+    }
+
+    private static int column(Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null ? index : -1;
+    }
+
+    // Trimmed cell text, null when the column is absent or the cell empty
+    private static String cell(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Whole number >= 0, or null
+    private static Integer parseCount(String text) {
+        try {
+            int value = Integer.parseInt(text);
+            return value >= 0 ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static InputStream maybeGunzip(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        boolean gzip = b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >>> 8);
+        return gzip ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+}
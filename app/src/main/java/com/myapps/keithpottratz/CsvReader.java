@@ -0,0 +1,132 @@
+package com.myapps.keithpottratz;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader: quoted fields with doubled quotes, line
+ * breaks inside quotes, CRLF or LF line endings and a leading byte order mark.
+ *
+ * Reads through its own char buffer and reuses the caller's field list, so
+ * memory use depends on the longest record, not on the file size.
+ */
+class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder(64);
+    private int pos = 0;
+    private int limit = 0;
+
+    private long line = 1;          // Line the next record starts on
+    private long recordLine = 0;    // Line the last record started on
+    private boolean first = true;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Line number (1-based) where the record last returned by next() started.
+     */
+    long getLineNumber() {
+        return recordLine;
+    }
+
+    /**
+     * Read the next record into fields (cleared first).
+     *
+     * @return False at end of input
+     */
+    boolean next(List<String> fields) throws IOException {
+        fields.clear();
+        field.setLength(0);
+        recordLine = line;
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+        if (first) {
+            first = false;
+            if (c == '\uFEFF') {
+                c = read();
+                if (c == -1) {
+                    return false;
+                }
+            }
+        }
+
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (c != -1) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return true;
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
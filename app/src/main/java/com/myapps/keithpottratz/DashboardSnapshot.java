@@ -0,0 +1,25 @@
+package com.myapps.keithpottratz;
+
+/**
+ * POJO class for dashboard statistics.
+ * Every field comes from one scan of the inventory table, so they all
+ * describe the same snapshot.
+ */
+public class DashboardSnapshot {
+    public int itemCount;
+    public long totalQuantity;
+    public long totalValueCents;
+    public double averagePriceCents;
+    public int lowStockCount;
+    public int outOfStockCount;
+
+    public DashboardSnapshot(int itemCount, long totalQuantity, long totalValueCents,
+                             double averagePriceCents, int lowStockCount, int outOfStockCount) {
+        this.itemCount = itemCount;
+        this.totalQuantity = totalQuantity;
+        this.totalValueCents = totalValueCents;
+        this.averagePriceCents = averagePriceCents;
+        this.lowStockCount = lowStockCount;
+        this.outOfStockCount = outOfStockCount;
+    }
+}
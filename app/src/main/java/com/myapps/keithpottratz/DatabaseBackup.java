@@ -0,0 +1,687 @@
+package com.myapps.keithpottratz;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.os.SystemClock;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental, page-deduplicated backups of inventory.db.
+ *
+ * A backup reads the live database file page by page inside one read
+ * transaction on a separate read-only connection (see beginSnapshot()), so
+ * the app's writer is not blocked and no staging copy is made. Every page is
+ * hashed (SHA-256, first 16 bytes). Pages whose hash the previous backup
+ * already stored are referenced, not copied, so only new pages go into this
+ * backup's pack file. The lookup is by content, not position, so pages that
+ * only moved still match. (A VACUUM INTO copy would repack every page and
+ * leave almost nothing to match.)
+ *
+ * Files in the backup directory, per backup id (the creation time):
+ *
+ *   id.pack      the pages first stored by this backup, back to back
+ *   id.manifest  header (MAGIC, FORMAT_VERSION, id, user_version, page size,
+ *                page count), one entry per page (hash, pack id, offset),
+ *                then a trailer with the SHA-256 of the whole snapshot and
+ *                the pack ids the entries reference
+ *
+ * The manifest is renamed into place last, so a backup exists only once it
+ * is complete. Restore rebuilds the file page by page, checks every page
+ * hash and the whole-file hash against the original snapshot, runs an
+ * integrity check, and only then replaces the database.
+ *
+ * The newest KEEP_BACKUPS backups are kept, along with every pack they
+ * reference. When the packs a chain references grow past MAX_PACK_GROWTH
+ * times the database size, the next backup is a full one, so a chain of
+ * mostly-dead packs can be pruned.
+ *
+ * Runs for a while on large databases and touches disk - call from a background thread.
+ */
+public class DatabaseBackup {
+
+    static final String DIR_NAME = "backups";
+    static final int KEEP_BACKUPS = 7;
+    static final int MAX_PACK_GROWTH = 2;
+
+    private static final int MAGIC = 0x49564250;    // "IVBP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 28;
+    private static final int ENTRY_SIZE = 32;
+    private static final String MANIFEST = ".manifest";
+    private static final String PACK = ".pack";
+    private static final String TMP = ".tmp";
+    private static final String RESTORE_SUFFIX = "-restore";
+    private static final byte[] SQLITE_HEADER = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+
+    // Attempts at a snapshot the writer did not race, SNAPSHOT_RETRY_MS apart
+    private static final int SNAPSHOT_ATTEMPTS = 5;
+    private static final long SNAPSHOT_RETRY_MS = 200;
+
+    // One backup, restore or runExclusive() job at a time across instances
+    private static final Object LOCK = new Object();
+
+    /**
+     * Summary of a stored backup.
+     */
+    public static final class BackupInfo {
+        public final long id;           // Creation time in ms
+        public final int dbVersion;     // Schema version (user_version) of the snapshot
+        public final int pageSize;
+        public final int pageCount;
+        public final int newPages;      // Pages stored by this backup (-1 when read from disk)
+
+        BackupInfo(long id, int dbVersion, int pageSize, int pageCount, int newPages) {
+            this.id = id;
+            this.dbVersion = dbVersion;
+            this.pageSize = pageSize;
+            this.pageCount = pageCount;
+            this.newPages = newPages;
+        }
+
+        @Override
+        public String toString() {
+            return "Backup " + id + ": " + pageCount + " pages of " + pageSize + " bytes"
+                    + (newPages >= 0 ? ", " + newPages + " new" : "");
+        }
+    }
+
+    private final Context context;
+    private final File dir;
+
+    public DatabaseBackup(Context context) {
+        this.context = context.getApplicationContext();
+        this.dir = new File(this.context.getFilesDir(), DIR_NAME);
+    }
+
+    /**
+     * Take a backup of the live database and prune old ones.
+     */
+    public BackupInfo backup() throws IOException {
+        synchronized (LOCK) {
+            AppDatabase db = AppDatabase.getInstance(context);
+            File database = context.getDatabasePath(AppDatabase.DATABASE_NAME);
+            SQLiteDatabase reader;
+            try {
+                reader = SQLiteDatabase.openDatabase(database.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            } catch (SQLiteException e) {
+                throw new IOException("Cannot open " + database, e);
+            }
+            try {
+                int pageCount = beginSnapshot(db, reader);
+                BackupInfo info = store(dir, database, pageCount,
+                        Math.max(System.currentTimeMillis(), latestId(dir) + 1));
+                prune(dir, KEEP_BACKUPS);
+                return info;
+            } finally {
+                if (reader.inTransaction()) {
+                    reader.endTransaction();
+                }
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Run database work under the lock backups and restores take, so a
+     * restore cannot close or replace the database while it runs (used by
+     * the daily maintenance job). The work is skipped when a restore has
+     * already closed db.
+     *
+     * @return false if db was closed and the work did not run
+     */
+    public static boolean runExclusive(AppDatabase db, Runnable work) {
+        synchronized (LOCK) {
+            if (!db.isOpen()) {
+                return false;
+            }
+            work.run();
+            return true;
+        }
+    }
+
+    /**
+     * Stored backups, newest first.
+     */
+    public List<BackupInfo> list() throws IOException {
+        List<BackupInfo> backups = new ArrayList<>();
+        for (long id : ids(dir)) {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(manifestFile(dir, id)))) {
+                Header header = Header.read(in);
+                backups.add(new BackupInfo(header.id, header.dbVersion, header.pageSize, header.pageCount, -1));
+            }
+        }
+        Collections.reverse(backups);
+        return backups;
+    }
+
+    /**
+     * Replace the database with a backup after verifying the rebuilt file
+     * against the original snapshot. Closes the open AppDatabase; nothing may
+     * use the old instance afterwards (restart the UI).
+     *
+     * @throws IOException if the backup is damaged or newer than this app's schema;
+     *                     the database is left untouched
+     */
+    public void restore(long id) throws IOException {
+        synchronized (LOCK) {
+            AppDatabase db = AppDatabase.getInstance(context);
+            int currentVersion = db.getOpenHelper().getReadableDatabase().getVersion();
+
+            File target = context.getDatabasePath(AppDatabase.DATABASE_NAME + RESTORE_SUFFIX);
+            deleteOrThrow(target);
+            boolean done = false;
+            try {
+                Header header = rebuild(dir, id, target);
+                if (header.dbVersion > currentVersion) {
+                    throw new IOException("Backup schema version " + header.dbVersion
+                            + " is newer than " + currentVersion);
+                }
+                checkIntegrity(target);
+                AppDatabase.replaceFile(context, target);
+                CardSnapshot.delete(new File(context.getCacheDir(), CardSnapshot.FILE_NAME));
+                done = true;
+            } finally {
+                if (!done) {
+                    //noinspection ResultOfMethodCallIgnored
+                    target.delete();
+                }
+            }
+        }
+    }
+
+    // ========================================================================
+    // SNAPSHOT (Android SQLite)
+    // ========================================================================
+
+    /**
+     * Open a read transaction on reader during which the main database file
+     * holds exactly that transaction's snapshot, and return its page count.
+     *
+     * After the transaction starts, a passive checkpoint on the app's
+     * connection copies every logged frame the snapshot can see into the
+     * main file. If that leaves nothing in the log, no commit came after the
+     * snapshot, and while the transaction stays open SQLite neither copies
+     * newer frames over those pages nor restarts the log. Otherwise a write
+     * raced us and we start over. Outside WAL the reader's shared lock keeps
+     * writers from committing until the backup ends.
+     *
+     * @throws IOException if every attempt was raced by a write
+     */
+    private static int beginSnapshot(AppDatabase db, SQLiteDatabase reader) throws IOException {
+        try {
+            for (int attempt = 1; attempt <= SNAPSHOT_ATTEMPTS; attempt++) {
+                // On a read-only connection BEGIN IMMEDIATE takes no write lock;
+                // the read transaction starts with the first read
+                reader.beginTransactionNonExclusive();
+                int pageCount = (int) DatabaseUtils.longForQuery(reader, "PRAGMA page_count", null);
+                try (Cursor cursor = db.getOpenHelper().getWritableDatabase()
+                        .query("PRAGMA wal_checkpoint(PASSIVE)")) {
+                    // Columns: busy, frames in the log, frames checkpointed (-1, -1 outside WAL)
+                    if (cursor.moveToFirst() && cursor.getInt(1) == cursor.getInt(2)) {
+                        return pageCount;
+                    }
+                }
+                reader.endTransaction();
+                SystemClock.sleep(SNAPSHOT_RETRY_MS);
+            }
+        } catch (SQLiteException e) {
+            throw new IOException("Cannot snapshot the database", e);
+        }
+        throw new IOException("No stable snapshot after " + SNAPSHOT_ATTEMPTS + " attempts");
+    }
+
+    private static void checkIntegrity(File file) throws IOException {
+        String result;
+        try {
+            SQLiteDatabase restored = SQLiteDatabase.openDatabase(file.getPath(), null,
+                    SQLiteDatabase.OPEN_READONLY);
+            try (Cursor cursor = restored.rawQuery("PRAGMA integrity_check", null)) {
+                result = cursor.moveToFirst() ? cursor.getString(0) : null;
+            } finally {
+                restored.close();
+            }
+        } catch (SQLiteException e) {
+            throw new IOException("Cannot open restored database", e);
+        }
+        if (!"ok".equals(result)) {
+            throw new IOException("Restored database failed integrity check: " + result);
+        }
+    }
+
+    // ========================================================================
+    // STORE AND REBUILD (plain files)
+    // ========================================================================
+
+    /**
+     * Store a snapshot file as backup id, writing only pages the previous
+     * backup does not already hold.
+     */
+    static BackupInfo store(File dir, File snapshot, long id) throws IOException {
+        return store(dir, snapshot, -1, id);
+    }
+
+    /**
+     * Store the first pageCount pages of a database file (the whole file
+     * when pageCount is -1) as backup id.
+     */
+    static BackupInfo store(File dir, File snapshot, int pageCount, long id) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        long fileLength = snapshot.length();
+        int pageSize;
+        int dbVersion;
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot, "r")) {
+            byte[] header = new byte[100];
+            raf.readFully(header);
+            if (!Arrays.equals(Arrays.copyOf(header, SQLITE_HEADER.length), SQLITE_HEADER)) {
+                throw new IOException(snapshot + " is not a SQLite database");
+            }
+            ByteBuffer fields = ByteBuffer.wrap(header);
+            int size = fields.getShort(16) & 0xffff;
+            pageSize = size == 1 ? 65536 : size;
+            dbVersion = fields.getInt(60);
+        }
+        if (pageCount < 0) {
+            if (pageSize < 512 || fileLength % pageSize != 0 || fileLength / pageSize > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected size " + fileLength + " for page size " + pageSize);
+            }
+            pageCount = (int) (fileLength / pageSize);
+        } else if (pageSize < 512 || (long) pageCount * pageSize > fileLength) {
+            throw new IOException(pageCount + " pages of " + pageSize + " bytes exceed " + fileLength);
+        }
+        long length = (long) pageCount * pageSize;
+
+        // Pages of the previous backup, unless its chain should be restarted
+        Manifest previous = null;
+        long latest = latestId(dir);
+        if (latest > 0) {
+            Manifest candidate = Manifest.read(manifestFile(dir, latest));
+            long packBytes = 0;
+            for (long packId : candidate.packIds) {
+                packBytes += packFile(dir, packId).length();
+            }
+            if (candidate.pageSize == pageSize && packBytes <= MAX_PACK_GROWTH * length) {
+                previous = candidate;
+            }
+        }
+        PageIndex index = new PageIndex(previous);
+
+        File packTmp = new File(dir, id + PACK + TMP);
+        File manifestTmp = new File(dir, id + MANIFEST + TMP);
+        MessageDigest fileDigest = sha256();
+        MessageDigest pageDigest = sha256();
+        Set<Long> packIds = new HashSet<>();
+        int newPages = 0;
+        long packOffset = 0;
+
+        try (FileInputStream in = new FileInputStream(snapshot);
+             FileOutputStream packOut = new FileOutputStream(packTmp);
+             FileOutputStream manifestOut = new FileOutputStream(manifestTmp)) {
+            BufferedInputStream pages = new BufferedInputStream(in, 16 * pageSize);
+            BufferedOutputStream pack = new BufferedOutputStream(packOut, 16 * pageSize);
+            DataOutputStream manifest = new DataOutputStream(new BufferedOutputStream(manifestOut, 64 * 1024));
+            new Header(id, dbVersion, pageSize, pageCount).write(manifest);
+
+            byte[] page = new byte[pageSize];
+            for (int i = 0; i < pageCount; i++) {
+                readFully(pages, page);
+                fileDigest.update(page);
+                ByteBuffer hash = ByteBuffer.wrap(pageDigest.digest(page));
+                long hi = hash.getLong(0);
+                long lo = hash.getLong(8);
+
+                long packId;
+                long offset;
+                int match = index.find(hi, lo);
+                if (match >= 0) {
+                    packId = previous.packs[match];
+                    offset = previous.offsets[match];
+                } else {
+                    pack.write(page);
+                    packId = id;
+                    offset = packOffset;
+                    packOffset += pageSize;
+                    newPages++;
+                }
+                packIds.add(packId);
+                manifest.writeLong(hi);
+                manifest.writeLong(lo);
+                manifest.writeLong(packId);
+                manifest.writeLong(offset);
+            }
+
+            manifest.write(fileDigest.digest());
+            manifest.writeInt(packIds.size());
+            for (long packId : packIds) {
+                manifest.writeLong(packId);
+            }
+
+            pack.flush();
+            packOut.getFD().sync();
+            manifest.flush();
+            manifestOut.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            //noinspection ResultOfMethodCallIgnored
+            packTmp.delete();
+            //noinspection ResultOfMethodCallIgnored
+            manifestTmp.delete();
+            throw e;
+        }
+
+        // Pack first: a manifest in place means every page it references is on disk
+        if (newPages == 0) {
+            //noinspection ResultOfMethodCallIgnored
+            packTmp.delete();
+        } else {
+            renameOrThrow(packTmp, packFile(dir, id));
+        }
+        renameOrThrow(manifestTmp, manifestFile(dir, id));
+        return new BackupInfo(id, dbVersion, pageSize, pageCount, newPages);
+    }
+
+    /**
+     * Rebuild backup id into target, checking every page hash and the hash
+     * of the whole file against the original snapshot.
+     */
+    static Header rebuild(File dir, long id, File target) throws IOException {
+        Manifest manifest = Manifest.read(manifestFile(dir, id));
+        MessageDigest fileDigest = sha256();
+        MessageDigest pageDigest = sha256();
+        Map<Long, RandomAccessFile> packs = new HashMap<>();
+        byte[] page = new byte[manifest.pageSize];
+
+        try (FileOutputStream out = new FileOutputStream(target)) {
+            BufferedOutputStream file = new BufferedOutputStream(out, 16 * manifest.pageSize);
+            for (int i = 0; i < manifest.pageCount; i++) {
+                RandomAccessFile pack = packs.get(manifest.packs[i]);
+                if (pack == null) {
+                    pack = new RandomAccessFile(packFile(dir, manifest.packs[i]), "r");
+                    packs.put(manifest.packs[i], pack);
+                }
+                pack.seek(manifest.offsets[i]);
+                pack.readFully(page);
+
+                ByteBuffer hash = ByteBuffer.wrap(pageDigest.digest(page));
+                if (hash.getLong(0) != manifest.hashHi[i] || hash.getLong(8) != manifest.hashLo[i]) {
+                    throw new IOException("Backup " + id + ": page " + (i + 1) + " is damaged");
+                }
+                fileDigest.update(page);
+                file.write(page);
+            }
+            file.flush();
+            out.getFD().sync();
+        } finally {
+            for (RandomAccessFile pack : packs.values()) {
+                pack.close();
+            }
+        }
+
+        if (!Arrays.equals(fileDigest.digest(), manifest.fileHash)) {
+            throw new IOException("Backup " + id + " does not match the original database");
+        }
+        return manifest.header;
+    }
+
+    /**
+     * Delete all but the newest keep backups, then every pack no remaining
+     * backup references, and leftovers of interrupted runs.
+     */
+    static void prune(File dir, int keep) throws IOException {
+        List<Long> ids = ids(dir);
+        for (int i = 0; i < ids.size() - keep; i++) {
+            deleteOrThrow(manifestFile(dir, ids.get(i)));
+        }
+
+        Set<Long> referenced = new HashSet<>();
+        for (long id : ids.subList(Math.max(ids.size() - keep, 0), ids.size())) {
+            referenced.addAll(Manifest.readPackIds(manifestFile(dir, id)));
+        }
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            boolean unusedPack = name.endsWith(PACK)
+                    && !referenced.contains(parseId(name.substring(0, name.length() - PACK.length())));
+            if (unusedPack || name.endsWith(TMP)) {
+                deleteOrThrow(file);
+            }
+        }
+    }
+
+    // ========================================================================
+    // MANIFEST FORMAT
+    // ========================================================================
+
+    static final class Header {
+        final long id;
+        final int dbVersion;
+        final int pageSize;
+        final int pageCount;
+
+        Header(long id, int dbVersion, int pageSize, int pageCount) {
+            this.id = id;
+            this.dbVersion = dbVersion;
+            this.pageSize = pageSize;
+            this.pageCount = pageCount;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(id);
+            out.writeInt(dbVersion);
+            out.writeInt(pageSize);
+            out.writeInt(pageCount);
+        }
+
+        static Header read(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a backup manifest");
+            }
+            return new Header(in.readLong(), in.readInt(), in.readInt(), in.readInt());
+        }
+    }
+
+    /**
+     * A manifest loaded into parallel arrays, one slot per page.
+     */
+    static final class Manifest {
+        final Header header;
+        final int pageSize;
+        final int pageCount;
+        final long[] hashHi;
+        final long[] hashLo;
+        final long[] packs;
+        final long[] offsets;
+        final byte[] fileHash = new byte[32];
+        final List<Long> packIds = new ArrayList<>();
+
+        private Manifest(Header header) {
+            this.header = header;
+            this.pageSize = header.pageSize;
+            this.pageCount = header.pageCount;
+            hashHi = new long[pageCount];
+            hashLo = new long[pageCount];
+            packs = new long[pageCount];
+            offsets = new long[pageCount];
+        }
+
+        static Manifest read(File file) throws IOException {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+                Manifest manifest = new Manifest(Header.read(in));
+                for (int i = 0; i < manifest.pageCount; i++) {
+                    manifest.hashHi[i] = in.readLong();
+                    manifest.hashLo[i] = in.readLong();
+                    manifest.packs[i] = in.readLong();
+                    manifest.offsets[i] = in.readLong();
+                }
+                in.readFully(manifest.fileHash);
+                int packCount = in.readInt();
+                for (int i = 0; i < packCount; i++) {
+                    manifest.packIds.add(in.readLong());
+                }
+                return manifest;
+            }
+        }
+
+        // Only the trailer's pack list, without reading the entries
+        static List<Long> readPackIds(File file) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                raf.seek(HEADER_SIZE - 4);
+                int pageCount = raf.readInt();
+                raf.seek(HEADER_SIZE + (long) pageCount * ENTRY_SIZE + 32);
+                int packCount = raf.readInt();
+                List<Long> packIds = new ArrayList<>(packCount);
+                for (int i = 0; i < packCount; i++) {
+                    packIds.add(raf.readLong());
+                }
+                return packIds;
+            }
+        }
+    }
+
+    /**
+     * Open-addressing hash table from page hash to manifest slot; about
+     * 8 bytes per page on top of the manifest arrays.
+     */
+    static final class PageIndex {
+        private final Manifest manifest;
+        private final int[] slots;      // Manifest slot + 1, 0 = empty
+        private final int mask;
+
+        PageIndex(Manifest manifest) {
+            this.manifest = manifest;
+            int count = manifest != null ? manifest.pageCount : 0;
+            int capacity = Integer.highestOneBit(Math.max(count * 2, 2) - 1) << 1;
+            slots = new int[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < count; i++) {
+                int slot = (int) manifest.hashLo[i] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i + 1;
+            }
+        }
+
+        /**
+         * Manifest slot holding a page with this hash, or -1.
+         */
+        int find(long hi, long lo) {
+            if (manifest == null) {
+                return -1;
+            }
+            for (int slot = (int) lo & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int i = slots[slot] - 1;
+                if (manifest.hashLo[i] == lo && manifest.hashHi[i] == hi) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // ========================================================================
+    // FILES
+    // ========================================================================
+
+    // Backup ids with a complete manifest, oldest first
+    private static List<Long> ids(File dir) {
+        List<Long> ids = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(MANIFEST)) {
+                    long id = parseId(name.substring(0, name.length() - MANIFEST.length()));
+                    if (id > 0) {
+                        ids.add(id);
+                    }
+                }
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static long latestId(File dir) {
+        List<Long> ids = ids(dir);
+        return ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+    }
+
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static File manifestFile(File dir, long id) {
+        return new File(dir, id + MANIFEST);
+    }
+
+    private static File packFile(File dir, long id) {
+        return new File(dir, id + PACK);
+    }
+
+    private static void readFully(BufferedInputStream in, byte[] buffer) throws IOException {
+        int read = 0;
+        while (read < buffer.length) {
+            int n = in.read(buffer, read, buffer.length - read);
+            if (n < 0) {
+                throw new IOException("Snapshot ended early");
+            }
+            read += n;
+        }
+    }
+
+    private static void renameOrThrow(File from, File to) throws IOException {
+        if (!from.renameTo(to)) {
+            throw new IOException("Cannot rename " + from + " to " + to);
+        }
+    }
+
+    private static void deleteOrThrow(File file) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot delete " + file);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);     // Required on every platform
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.myapps.keithpottratz;
+
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.switchmaterial.SwitchMaterial;
+
+import org.json.JSONException;
+
+/**
+ * Shows per-statement query latency, main-thread usage and the slow-query
+ * log collected by QueryMetrics, and shares the same data as JSON.
+ * Recording can be turned on here for release builds (debuggable builds
+ * always record); it takes effect when the database is next opened.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private TextView tvReport;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        tvReport = findViewById(R.id.diagnosticsReport);
+        MaterialButton btnRefresh = findViewById(R.id.refreshDiagnostics);
+        MaterialButton btnShare = findViewById(R.id.shareDiagnostics);
+        MaterialButton btnReset = findViewById(R.id.resetDiagnostics);
+        SwitchMaterial switchRecord = findViewById(R.id.recordDiagnostics);
+
+        SharedPreferences prefs = getSharedPreferences("prefs", MODE_PRIVATE);
+        switchRecord.setChecked(QueryMetrics.isEnabled(this));
+        switchRecord.setEnabled(!QueryMetrics.isDebuggable(this));
+        switchRecord.setOnCheckedChangeListener((button, checked) ->
+                prefs.edit().putBoolean(QueryMetrics.PREF_ENABLED, checked).apply());
+
+        btnRefresh.setOnClickListener(v -> showReport());
+
+        btnShare.setOnClickListener(v -> shareJson());
+
+        btnReset.setOnClickListener(v -> {
+            QueryMetrics.get().reset();
+            showReport();
+        });
+
+        showReport();
+    }
+
+    private void showReport() {
+        tvReport.setText(QueryMetrics.get().formatReport());
+    }
+
+    /**
+     * Hand the machine-readable dump to any app that accepts text.
+     */
+    private void shareJson() {
+        String json;
+        try {
+            json = QueryMetrics.get().toJson().toString(2);
+        } catch (JSONException e) {
+            Toast.makeText(this, "Could not build dump: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        Intent send = new Intent(Intent.ACTION_SEND);
+        send.setType("application/json");
+        send.putExtra(Intent.EXTRA_SUBJECT, "Inventory query metrics");
+        send.putExtra(Intent.EXTRA_TEXT, json);
+        startActivity(Intent.createChooser(send, "Share query metrics"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface ForecastDao {
+
+    // Newest compact history id any forecast has applied (null before the first run)
+    @Query("SELECT MAX(last_event_id) FROM item_forecasts")
+    Long getWatermark();
+
+    // Quantity decreases after a history id, oldest first (rowid range scan)
+    @Query("SELECT * FROM inventory_history_compact " +
+           "WHERE id > :afterId AND field = 1 AND delta < 0 " +
+           "ORDER BY id LIMIT :limit")
+    List<CompactHistoryEvent> getDecreasesAfter(long afterId, int limit);
+
+    // Forecast state and lead time of the given items
+    @Query("SELECT i.id AS itemId, " +
+           "COALESCE(s.lead_time_days, " + Supplier.DEFAULT_LEAD_TIME_DAYS + ") AS leadTimeDays, " +
+           "i.min_stock_level AS minStockLevel, f.* " +
+           "FROM inventory i " +
+           "LEFT JOIN suppliers s ON s.id = i.supplier_id " +
+           "LEFT JOIN item_forecasts f ON f.item_id = i.id " +
+           "WHERE i.id IN (:itemIds)")
+    List<ForecastInput> getInputs(List<Long> itemIds);
+
+    // Forecast state of every forecast item from one supplier
+    @Query("SELECT i.id AS itemId, s.lead_time_days AS leadTimeDays, " +
+           "i.min_stock_level AS minStockLevel, f.* " +
+           "FROM item_forecasts f " +
+           "JOIN inventory i ON i.id = f.item_id " +
+           "JOIN suppliers s ON s.id = i.supplier_id " +
+           "WHERE i.supplier_id = :supplierId")
+    List<ForecastInput> getInputsForSupplier(long supplierId);
+
+    // Forecast state of forecasts last updated before a time, a page at a time by item id
+    @Query("SELECT i.id AS itemId, " +
+           "COALESCE(s.lead_time_days, " + Supplier.DEFAULT_LEAD_TIME_DAYS + ") AS leadTimeDays, " +
+           "i.min_stock_level AS minStockLevel, f.* " +
+           "FROM item_forecasts f " +
+           "JOIN inventory i ON i.id = f.item_id " +
+           "LEFT JOIN suppliers s ON s.id = i.supplier_id " +
+           "WHERE f.updated_at < :before AND f.item_id > :afterItemId " +
+           "ORDER BY f.item_id LIMIT :limit")
+    List<ForecastInput> getStaleInputs(long before, long afterItemId, int limit);
+
+    @Query("SELECT * FROM item_forecasts WHERE item_id = :itemId")
+    ItemForecast get(long itemId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<ItemForecast> forecasts);
+
+    // Use the forecast reorder point as min_stock_level, so the low-stock
+    // deficit, alerts and reorder report follow it (bumps updated_at for the grid refresh)
+    @Query("UPDATE inventory SET min_stock_level = " +
+           "(SELECT f.reorder_point FROM item_forecasts f WHERE f.item_id = inventory.id), " +
+           "updated_at = :now " +
+           "WHERE id IN (:itemIds) AND EXISTS (SELECT 1 FROM item_forecasts f " +
+           "WHERE f.item_id = inventory.id AND f.reorder_point <> inventory.min_stock_level)")
+    int applyReorderPoints(List<Long> itemIds, long now);
+}
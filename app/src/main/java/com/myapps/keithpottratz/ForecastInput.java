@@ -0,0 +1,17 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.Embedded;
+
+/**
+ * POJO class for an item's forecast state with its supplier lead time and
+ * current min_stock_level. Used by ConsumptionForecaster (see ForecastDao).
+ */
+public class ForecastInput {
+    public long itemId;
+    public int leadTimeDays;
+    public int minStockLevel;
+
+    // Null until the item's first quantity decrease has been processed
+    @Embedded
+    public ItemForecast forecast;
+}
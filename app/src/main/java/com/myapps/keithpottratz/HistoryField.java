@@ -0,0 +1,50 @@
+package com.myapps.keithpottratz;
+
+/**
+ * Numeric inventory columns whose changes are stored in the compact
+ * history table (inventory_history_compact) as a one-byte field id.
+ *
+ * Ids are persisted: never renumber. The CASE expressions in
+ * InventoryHistoryDao.HISTORY_ALL and MIGRATION_8_9 must list the same ids.
+ */
+public enum HistoryField {
+    QUANTITY(1, "quantity"),
+    PRICE_CENTS(2, "price_cents"),
+    MIN_STOCK_LEVEL(3, "min_stock_level");
+
+    private final int id;
+    private final String column;
+
+    /**
+     * Constructor for HistoryField enum values.
+     *
+     * @param id     Stored field id
+     * @param column inventory column name (reported as field_changed)
+     */
+    HistoryField(int id, String column) {
+        this.id = id;
+        this.column = column;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Look up a field by its stored id.
+     *
+     * @throws IllegalArgumentException for unknown ids
+     */
+    public static HistoryField fromId(int id) {
+        for (HistoryField field : values()) {
+            if (field.id == id) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown history field id: " + id);
+    }
+}
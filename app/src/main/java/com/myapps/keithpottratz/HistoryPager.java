@@ -0,0 +1,87 @@
+package com.myapps.keithpottratz;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset pager over one item's history, newest first.
+ *
+ * Merges text rows, compact rows and daily rollups. Each source keeps its own
+ * position (the last row taken from it), so every page costs three index range
+ * reads of at most pageSize rows, however long the history is.
+ *
+ * Not thread-safe: drive it from one thread at a time.
+ */
+public class HistoryPager {
+
+    private final InventoryHistoryDao dao;
+    private final long itemId;
+
+    // Position of the last row returned from each source
+    private long textTime = Long.MAX_VALUE;
+    private long textId = Long.MAX_VALUE;
+    private long compactTime = Long.MAX_VALUE;
+    private long compactId = Long.MAX_VALUE;
+    private long rollupDay = Long.MAX_VALUE;
+
+    private boolean exhausted = false;
+
+    public HistoryPager(InventoryHistoryDao dao, long itemId) {
+        this.dao = dao;
+        this.itemId = itemId;
+    }
+
+    /**
+     * True once a page came back short; later calls return empty lists.
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Read the next page of up to pageSize entries.
+     */
+    public List<InventoryHistory> next(int pageSize) {
+        List<InventoryHistory> page = new ArrayList<>(pageSize);
+        if (exhausted) {
+            return page;
+        }
+
+        List<InventoryHistory> text = dao.getTextHistoryPage(itemId, textTime, textId, pageSize);
+        List<CompactHistoryEvent> compact =
+                dao.getCompactHistoryPage(itemId, compactTime, compactId, pageSize);
+        List<InventoryHistoryDaily> rollups = dao.getRollupPage(itemId, rollupDay, pageSize);
+
+        // Three-way merge by timestamp, advancing each source's position as rows are taken
+        int t = 0, c = 0, r = 0;
+        while (page.size() < pageSize) {
+            long textTs = t < text.size() ? text.get(t).getTimestamp() : Long.MIN_VALUE;
+            long compactTs = c < compact.size() ? compact.get(c).getTimestamp() : Long.MIN_VALUE;
+            long rollupTs = r < rollups.size() ? rollups.get(r).getDay() * InventoryHistoryDaily.DAY_MS
+                    : Long.MIN_VALUE;
+
+            if (t < text.size() && textTs >= compactTs && textTs >= rollupTs) {
+                InventoryHistory row = text.get(t++);
+                textTime = row.getTimestamp();
+                textId = row.getId();
+                page.add(row);
+            } else if (c < compact.size() && compactTs >= rollupTs) {
+                CompactHistoryEvent event = compact.get(c++);
+                compactTime = event.getTimestamp();
+                compactId = event.getId();
+                page.add(event.toHistory());
+            } else if (r < rollups.size()) {
+                InventoryHistoryDaily daily = rollups.get(r++);
+                rollupDay = daily.getDay();
+                page.add(daily.toHistory());
+            } else {
+                break;
+            }
+        }
+
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+        return page;
+    }
+}
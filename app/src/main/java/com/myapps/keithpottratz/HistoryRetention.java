@@ -0,0 +1,152 @@
+package com.myapps.keithpottratz;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retention for inventory_history and inventory_history_compact.
+ *
+ * Events older than their action's retention period are deleted in small
+ * transactions, so writers are never blocked for long; quantity changes are
+ * first rolled into inventory_history_daily. Freed pages are then returned to
+ * the file system with an incremental vacuum, once the database has been
+ * converted by enableIncrementalVacuum() (new databases start out converted).
+ *
+ * History reads fall back to the daily rollups for purged periods
+ * (see InventoryHistoryDao.getHistoryForItem).
+ */
+public final class HistoryRetention {
+
+    static final long DAY_MS = InventoryHistoryDaily.DAY_MS;
+    static final long DEFAULT_RETENTION_MS = 90 * DAY_MS;
+    static final int DEFAULT_CHUNK_SIZE = 500;
+    private static final long AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final AppDatabase db;
+    private final InventoryHistoryDao dao;
+    private final Map<String, Long> retentionByAction = new HashMap<>();
+    private long defaultRetentionMs = DEFAULT_RETENTION_MS;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public HistoryRetention(AppDatabase db) {
+        this.db = db;
+        this.dao = db.inventoryHistoryDao();
+        retentionByAction.put("CREATED", 365 * DAY_MS);
+    }
+
+    /**
+     * Keep raw events of this action type for the given time.
+     */
+    public HistoryRetention setRetention(String action, long retentionMs) {
+        retentionByAction.put(action, retentionMs);
+        return this;
+    }
+
+    /**
+     * Retention for action types without their own setting.
+     */
+    public HistoryRetention setDefaultRetention(long retentionMs) {
+        this.defaultRetentionMs = retentionMs;
+        return this;
+    }
+
+    /**
+     * Maximum events rolled up and deleted per transaction.
+     */
+    public HistoryRetention setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    private long retentionFor(String action) {
+        Long retention = retentionByAction.get(action);
+        return retention != null ? retention : defaultRetentionMs;
+    }
+
+    /**
+     * Roll up and purge expired events, then vacuum freed pages.
+     * Runs many short transactions - call from a background thread.
+     *
+     * @return Number of raw events purged
+     */
+    public int run() {
+        long now = System.currentTimeMillis();
+        int purged = 0;
+
+        // Text rows (CREATED and text field changes): purge only
+        for (String action : dao.getActions()) {
+            long cutoff = now - retentionFor(action);
+            List<Long> ids;
+            while (!(ids = dao.getExpiredIds(action, cutoff, chunkSize)).isEmpty()) {
+                purged += dao.deleteByIds(ids);
+            }
+        }
+
+        // Compact numeric changes (all UPDATED): roll quantities up, then purge
+        long cutoff = now - retentionFor("UPDATED");
+        List<Long> ids;
+        while (!(ids = dao.getExpiredCompactIds(cutoff, chunkSize)).isEmpty()) {
+            purged += dao.rollUpAndPurge(ids);
+        }
+
+        if (purged > 0) {
+            vacuum();
+        }
+        return purged;
+    }
+
+    /**
+     * Release free pages. Does nothing until the database is converted (free
+     * pages are then reused by later writes instead).
+     */
+    private void vacuum() {
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        if (autoVacuumMode(sqlite) != AUTO_VACUUM_INCREMENTAL) {
+            return;
+        }
+
+        // Each step of the pragma frees pages, so read it to the end
+        try (Cursor cursor = sqlite.query("PRAGMA incremental_vacuum")) {
+            while (cursor.moveToNext()) {
+                // Nothing to read
+            }
+        }
+    }
+
+    /**
+     * True if the database already uses auto_vacuum=INCREMENTAL.
+     */
+    public static boolean isIncrementalVacuum(AppDatabase db) {
+        return autoVacuumMode(db.getOpenHelper().getWritableDatabase()) == AUTO_VACUUM_INCREMENTAL;
+    }
+
+    /**
+     * Convert a database created without auto_vacuum=INCREMENTAL. This needs a
+     * full VACUUM, which rewrites the file and blocks writers while it runs,
+     * and cannot run inside the transaction Room wraps migrations in, so it is
+     * done once by IncrementalVacuumJob while the device is idle and charging.
+     * Later calls only read the pragma.
+     *
+     * @return true if the database was converted by this call
+     */
+    public static boolean enableIncrementalVacuum(AppDatabase db) {
+        if (isIncrementalVacuum(db)) {
+            return false;
+        }
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        sqlite.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        sqlite.execSQL("VACUUM");
+        return true;
+    }
+
+    private static long autoVacuumMode(SupportSQLiteDatabase sqlite) {
+        try (Cursor cursor = sqlite.query("PRAGMA auto_vacuum")) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.myapps.keithpottratz;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+
+/**
+ * One-time conversion of an existing database to auto_vacuum=INCREMENTAL
+ * (see HistoryRetention.enableIncrementalVacuum).
+ *
+ * The conversion is a full VACUUM, which rewrites the whole file and blocks
+ * writers while it runs, so it is left to JobScheduler to start while the
+ * device is idle and charging. The daily maintenance schedules it while the
+ * database still needs it; databases created by AppDatabase.build() start out
+ * incremental and never do.
+ */
+public class IncrementalVacuumJob extends JobService {
+
+    static final int JOB_ID = 1001;
+
+    /**
+     * Schedule the conversion unless it is already pending. Not persisted
+     * across reboots: the next daily maintenance schedules it again.
+     */
+    static void schedule(Context ctx) {
+        JobScheduler scheduler = ctx.getSystemService(JobScheduler.class);
+        if (scheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+        scheduler.schedule(new JobInfo.Builder(JOB_ID, new ComponentName(ctx, IncrementalVacuumJob.class))
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .build());
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        AppDatabase db = AppDatabase.getInstance(getApplicationContext());
+        // Under the backup lock: a restore waits for the VACUUM, or the job is skipped
+        db.getQueryExecutor().execute(() -> {
+            DatabaseBackup.runExclusive(db, () -> {
+                HistoryRetention.enableIncrementalVacuum(db);
+                db.checkpoint();    // The rewritten pages went to the log
+            });
+            jobFinished(params, false);
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Idle or charging ended first: try again next time (a finished
+        // conversion is not repeated, enableIncrementalVacuum checks the pragma)
+        return true;
+    }
+}
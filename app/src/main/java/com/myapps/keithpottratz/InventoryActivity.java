@@ -1,19 +1,28 @@
 package com.myapps.keithpottratz;
 
 import android.Manifest;
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.graphics.Rect;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.telephony.SmsManager;
+import android.text.InputType;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.animation.AnimationUtils;
 import android.view.animation.LayoutAnimationController;
+import android.widget.EditText;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
@@ -26,8 +35,21 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.DateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Main inventory management activity displaying items in a grid.
@@ -36,17 +58,32 @@ import java.util.List;
 public class InventoryActivity extends AppCompatActivity
         implements AddItemDialogFragment.AddItemListener {
 
+    private static final String TAG = "InventoryActivity";
     private static final int REQ_SMS = 1001;
     private static final String PREF_SORT_CRITERIA = "sort_criteria";
+    private static final String PREF_MAINTENANCE_AT = "history_retention_at";
 
     private InventoryAdapter adapter;
-    private List<InventoryItem> items;           // All items from database
-    private List<InventoryItem> filteredItems;   // Items after search filter
+    private Map<Long, InventoryCard> items;      // All grid cards from database, by id
+    private List<InventoryCard> filteredItems;   // Cards after search filter (sorted)
     private RecyclerView recyclerView;
 
     // DB/DAO
     private AppDatabase db;
     private InventoryDao dao;
+    private InventoryDeltaTracker deltaTracker;
+
+    // Pushes inventory diffs whenever the inventory table changes
+    private TableStream<InventoryDelta> inventoryStream;
+    private final TableStream.Subscriber<InventoryDelta> inventorySubscriber = this::applyDelta;
+
+    // Card snapshot for the next cold start, rewritten shortly after changes (see CardSnapshot)
+    private static final long SNAPSHOT_DELAY_MS = 5000;
+    private final Handler snapshotHandler = new Handler(Looper.getMainLooper());
+    private final Runnable snapshotWriter = this::writeSnapshot;
+    private File snapshotFile;
+    private long snapshotUpdatedAt;     // Delta tracker watermarks the cards in items are current to
+    private long snapshotTombstoneId;
 
     // Sorting state
     private SortCriteria currentSortCriteria = SortCriteria.DATE_ADDED_DESC;
@@ -55,6 +92,24 @@ public class InventoryActivity extends AppCompatActivity
     private String currentSearchQuery = "";
     private boolean isSearchActive = false;
 
+    // Search runs on the query executor SEARCH_DELAY_MS after the last keystroke;
+    // results of a search started before the latest one are dropped
+    private static final long SEARCH_DELAY_MS = 250;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunner = this::runSearch;
+    private int searchGeneration = 0;
+
+    // ABC class filter (null = all classes)
+    private String currentAbcClass = null;
+
+    // Asks where to save a CSV export, then writes it in the background
+    private final ActivityResultLauncher<String> exportLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"), this::exportCsv);
+
+    // Asks for a CSV file to import, then upserts it in the background
+    private final ActivityResultLauncher<String[]> importLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::importCsv);
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -70,15 +125,33 @@ public class InventoryActivity extends AppCompatActivity
         // Restore saved sort preference
         restoreSortPreference();
 
-        // Build inventory UI (read from DB)
-        items = new ArrayList<>(dao.getAll());
-        filteredItems = new ArrayList<>(items);
-
-        // Apply saved sort order
-        InventorySortManager.sort(filteredItems, currentSortCriteria);
+        // Build inventory UI from the card snapshot, already in the saved sort order;
+        // without a usable one, read the card columns from DB and sort
+        deltaTracker = new InventoryDeltaTracker(dao);
+        snapshotFile = new File(getCacheDir(), CardSnapshot.FILE_NAME);
+        filteredItems = loadSnapshot();
+        if (filteredItems == null) {
+            // The full load prunes tombstones an old snapshot would need to catch up
+            CardSnapshot.delete(snapshotFile);
+            filteredItems = new ArrayList<>(deltaTracker.loadAll());
+            InventorySortManager.sort(filteredItems, currentSortCriteria);
+            scheduleSnapshot();
+        }
+        items = new LinkedHashMap<>();
+        for (InventoryCard card : filteredItems) {
+            items.put(card.getId(), card);
+        }
+        snapshotUpdatedAt = deltaTracker.getLastUpdatedAt();
+        snapshotTombstoneId = deltaTracker.getLastTombstoneId();
 
         adapter = new InventoryAdapter(this, filteredItems);
 
+        // Observe DB changes instead of polling; bursts of writes are coalesced
+        inventoryStream = new TableStream<>(db, deltaTracker::poll, "inventory");
+        inventoryStream.subscribe(inventorySubscriber);
+        inventoryStream.refresh();  // catch writes since the snapshot or load, and before subscribing
+        adapter.startObserving();
+
         recyclerView = findViewById(R.id.inventoryGrid);
         recyclerView.setLayoutManager(new GridLayoutManager(this, 2));
         recyclerView.setAdapter(adapter);
@@ -89,6 +162,7 @@ public class InventoryActivity extends AppCompatActivity
         );
 
         maybeShowSmsSetup();
+        maybeRunDailyMaintenance();
 
         // spacing between cards
         int space = (int) (8 * getResources().getDisplayMetrics().density);
@@ -126,7 +200,8 @@ public class InventoryActivity extends AppCompatActivity
                 @Override
                 public boolean onQueryTextChange(String newText) {
                     currentSearchQuery = newText;
-                    applySearchFilter();
+                    searchHandler.removeCallbacks(searchRunner);
+                    searchHandler.postDelayed(searchRunner, SEARCH_DELAY_MS);
                     return true;
                 }
             });
@@ -161,6 +236,42 @@ public class InventoryActivity extends AppCompatActivity
             return true;
         }
 
+        if (id == R.id.action_filter_class) {
+            showAbcClassDialog();
+            return true;
+        }
+
+        if (id == R.id.action_lead_times) {
+            showLeadTimeDialog();
+            return true;
+        }
+
+        if (id == R.id.action_export) {
+            exportLauncher.launch("inventory.csv");
+            return true;
+        }
+
+        if (id == R.id.action_import) {
+            importLauncher.launch(new String[]{"text/csv", "text/comma-separated-values",
+                    "application/gzip", "text/plain"});
+            return true;
+        }
+
+        if (id == R.id.action_backup) {
+            backupNow();
+            return true;
+        }
+
+        if (id == R.id.action_restore) {
+            showRestoreDialog();
+            return true;
+        }
+
+        if (id == R.id.action_diagnostics) {
+            startActivity(new Intent(this, DiagnosticsActivity.class));
+            return true;
+        }
+
         return super.onOptionsItemSelected(item);
     }
 
@@ -238,33 +349,207 @@ public class InventoryActivity extends AppCompatActivity
         }
     }
 
+    // ========================================================================
+    // ABC CLASS FILTER
+    // ========================================================================
+
+    /**
+     * Shows a dialog to show only one ABC class (classes come from AbcClassifier).
+     */
+    private void showAbcClassDialog() {
+        String[] classes = {null, AbcThresholds.CLASS_A, AbcThresholds.CLASS_B, AbcThresholds.CLASS_C};
+        String[] options = {
+                getString(R.string.abc_all_classes),
+                getString(R.string.abc_class_a),
+                getString(R.string.abc_class_b),
+                getString(R.string.abc_class_c)
+        };
+        int currentIndex = Arrays.asList(classes).indexOf(currentAbcClass);
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.filter_abc_class)
+                .setSingleChoiceItems(options, currentIndex, (dialog, which) -> {
+                    currentAbcClass = classes[which];
+                    applySearchFilter();
+                    dialog.dismiss();
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    private boolean matchesAbcClass(InventoryCard card) {
+        return currentAbcClass == null || currentAbcClass.equals(card.getAbcClass());
+    }
+
+    // ========================================================================
+    // SUPPLIER LEAD TIMES
+    // ========================================================================
+
+    /**
+     * Lists the suppliers with their lead times; picking one edits its lead time.
+     */
+    private void showLeadTimeDialog() {
+        db.getQueryExecutor().execute(() -> {
+            List<Supplier> suppliers = db.supplierDao().getAll();
+            runOnUiThread(() -> {
+                if (suppliers.isEmpty()) {
+                    Toast.makeText(this, R.string.no_suppliers, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                String[] labels = new String[suppliers.size()];
+                for (int i = 0; i < labels.length; i++) {
+                    Supplier supplier = suppliers.get(i);
+                    labels[i] = getString(R.string.supplier_lead_time_item,
+                            supplier.getName(), supplier.getLeadTimeDays());
+                }
+                new AlertDialog.Builder(this)
+                        .setTitle(R.string.supplier_lead_times)
+                        .setItems(labels, (dialog, which) -> editLeadTime(suppliers.get(which)))
+                        .setNegativeButton(R.string.cancel, null)
+                        .show();
+            });
+        });
+    }
+
+    private void editLeadTime(Supplier supplier) {
+        EditText input = new EditText(this);
+        input.setInputType(InputType.TYPE_CLASS_NUMBER);
+        input.setHint(R.string.lead_time_days_hint);
+        input.setText(String.valueOf(supplier.getLeadTimeDays()));
+        input.setPadding(48, 32, 48, 32);
+
+        new AlertDialog.Builder(this)
+                .setTitle(supplier.getName())
+                .setView(input)
+                .setPositiveButton(R.string.save, (dialog, which) -> {
+                    int days;
+                    try {
+                        days = Integer.parseInt(input.getText().toString().trim());
+                    } catch (NumberFormatException e) {
+                        Toast.makeText(this, R.string.lead_time_invalid, Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    saveLeadTime(supplier, days);
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * Store a supplier's lead time and recompute the reorder points of its
+     * items in the same transaction, on the query executor.
+     */
+    private void saveLeadTime(Supplier supplier, int days) {
+        supplier.setLeadTimeDays(days);
+        db.getQueryExecutor().execute(() -> {
+            db.runInTransaction(() -> {
+                db.supplierDao().update(supplier);
+                new ConsumptionForecaster(db).refreshSupplier(supplier.getId());
+            });
+            runOnUiThread(() -> Toast.makeText(this, R.string.lead_time_saved, Toast.LENGTH_SHORT).show());
+        });
+    }
+
+    // ========================================================================
+    // CSV EXPORT / IMPORT
+    // ========================================================================
+
+    /**
+     * Stream every item with its category, supplier and location names to the
+     * chosen document on the query executor (see CsvExporter).
+     */
+    private void exportCsv(@Nullable Uri uri) {
+        if (uri == null) {
+            return;     // Picker cancelled
+        }
+        db.getQueryExecutor().execute(() -> {
+            String message;
+            try (OutputStream out = getContentResolver().openOutputStream(uri)) {
+                if (out == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                long rows = new CsvExporter(db).export(CsvExporter.Dataset.DETAILS, out, false, null);
+                message = getString(R.string.export_done, rows);
+            } catch (IOException | RuntimeException e) {
+                // RuntimeException covers SQLiteException and a cancelled import
+                Log.w(TAG, "CSV export failed", e);
+                message = getString(R.string.export_failed);
+            }
+            String toast = message;
+            runOnUiThread(() -> Toast.makeText(this, toast, Toast.LENGTH_SHORT).show());
+        });
+    }
+
+    /**
+     * Upsert items from the chosen CSV document on the query executor (see
+     * CsvImporter). The inventory stream picks up the written rows.
+     */
+    private void importCsv(@Nullable Uri uri) {
+        if (uri == null) {
+            return;     // Picker cancelled
+        }
+        db.getQueryExecutor().execute(() -> {
+            String message;
+            try (InputStream in = getContentResolver().openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                CsvImporter.Result result = new CsvImporter(db).importCsv(in, null);
+                message = getString(R.string.import_done, result.inserted, result.updated, result.rejected);
+            } catch (IOException | RuntimeException e) {
+                // RuntimeException covers SQLiteException and a cancelled import
+                Log.w(TAG, "CSV import failed", e);
+                message = getString(R.string.import_failed);
+            }
+            String toast = message;
+            runOnUiThread(() -> Toast.makeText(this, toast, Toast.LENGTH_LONG).show());
+        });
+    }
+
     // ========================================================================
     // SEARCH FUNCTIONALITY
     // ========================================================================
 
     /**
-     * Filters the inventory list based on the current search query.
+     * Filters the inventory list based on the current search query and ABC class.
      * Searches in item name and description (case-insensitive).
+     * Cards do not hold the description, so matching ids come from the DB.
      */
     private void applySearchFilter() {
-        filteredItems.clear();
+        searchHandler.removeCallbacks(searchRunner);
+        runSearch();
+    }
 
-        if (currentSearchQuery == null || currentSearchQuery.trim().isEmpty()) {
-            // No search query - show all items
-            filteredItems.addAll(items);
-        } else {
-            // Filter items matching the query
-            String query = currentSearchQuery.toLowerCase().trim();
-
-            for (InventoryItem item : items) {
-                boolean matchesName = item.getName() != null &&
-                        item.getName().toLowerCase().contains(query);
-                boolean matchesDesc = item.getDescription() != null &&
-                        item.getDescription().toLowerCase().contains(query);
-
-                if (matchesName || matchesDesc) {
-                    filteredItems.add(item);
+    /**
+     * Look up the ids matching the current query on the query executor (see
+     * ItemSearch), then show them. Without a query the view is rebuilt at once.
+     */
+    private void runSearch() {
+        int generation = ++searchGeneration;
+        String query = currentSearchQuery == null ? "" : currentSearchQuery.trim();
+        if (query.isEmpty()) {
+            showFiltered(null);
+            return;
+        }
+        db.getQueryExecutor().execute(() -> {
+            Set<Long> matchingIds = new HashSet<>(ItemSearch.matchingIds(dao, query));
+            runOnUiThread(() -> {
+                if (generation == searchGeneration && !isFinishing()) {
+                    showFiltered(matchingIds);
                 }
+            });
+        });
+    }
+
+    /**
+     * Show the cards of the selected class that are in matchingIds (all of
+     * them when null), in the current sort order.
+     */
+    private void showFiltered(@Nullable Set<Long> matchingIds) {
+        filteredItems.clear();
+        for (InventoryCard card : items.values()) {
+            if ((matchingIds == null || matchingIds.contains(card.getId())) && matchesAbcClass(card)) {
+                filteredItems.add(card);
             }
         }
 
@@ -275,7 +560,7 @@ public class InventoryActivity extends AppCompatActivity
         adapter.notifyDataSetChanged();
 
         // Show feedback if no results
-        if (filteredItems.isEmpty() && !currentSearchQuery.isEmpty()) {
+        if (filteredItems.isEmpty() && (!currentSearchQuery.isEmpty() || currentAbcClass != null)) {
             Toast.makeText(this, R.string.no_results, Toast.LENGTH_SHORT).show();
         }
     }
@@ -285,19 +570,281 @@ public class InventoryActivity extends AppCompatActivity
     // ========================================================================
 
     /**
-     * Refresh the grid from DB each time we return to this screen.
-     * Maintains current sort order and search filter.
+     * Checkpoint the write-ahead log and write a pending card snapshot when
+     * the screen is hidden.
      */
     @Override
-    protected void onResume() {
-        super.onResume();
+    protected void onStop() {
+        super.onStop();
+        // Write a pending card snapshot now, the process may not come back
+        if (snapshotHandler.hasCallbacks(snapshotWriter)) {
+            snapshotHandler.removeCallbacks(snapshotWriter);
+            writeSnapshot();
+        }
+        // While we are in the background: fold the log back into the file
+        db.getQueryExecutor().execute(() -> DatabaseBackup.runExclusive(db, db::checkpoint));
+    }
+
+    /**
+     * Stop observing the database when the screen goes away.
+     * Observation stays on while stopped, so edits made in ItemDetailActivity
+     * are merged as they happen and nothing is reloaded on return.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchHandler.removeCallbacks(searchRunner);
+        if (inventoryStream != null) {
+            inventoryStream.unsubscribe(inventorySubscriber);
+        }
+        if (adapter != null) {
+            adapter.stopObserving();
+        }
+    }
+
+    // ========================================================================
+    // INCREMENTAL REFRESH
+    // ========================================================================
+
+    /**
+     * Merges rows changed or deleted since the last refresh (pushed by the
+     * inventory stream) into the in-memory map and the sorted, filtered view.
+     */
+    private void applyDelta(InventoryDelta delta) {
+        snapshotUpdatedAt = delta.lastUpdatedAt;
+        snapshotTombstoneId = delta.lastTombstoneId;
+        if (delta.isEmpty()) {
+            return;
+        }
+        scheduleSnapshot();
+
+        // Search matching needs the description, which cards do not hold, and a
+        // class filter can add or drop changed cards: rebuild the filtered view
+        if ((currentSearchQuery != null && !currentSearchQuery.trim().isEmpty())
+                || currentAbcClass != null) {
+            for (Long id : delta.deletedIds) {
+                items.remove(id);
+            }
+            for (InventoryCard card : delta.changed) {
+                items.put(card.getId(), card);
+            }
+            applySearchFilter();
+            return;
+        }
+
+        Comparator<InventoryRecord> comparator = InventorySortManager.comparator(currentSortCriteria);
+
+        // Deleted rows: drop from the map and the view
+        for (Long id : delta.deletedIds) {
+            InventoryCard removed = items.remove(id);
+            if (removed != null) {
+                int position = findPosition(removed, comparator);
+                if (position >= 0) {
+                    filteredItems.remove(position);
+                    adapter.notifyItemRemoved(position);
+                }
+            }
+        }
+
+        // Changed rows: replace in the map, move to their sorted position in the view
+        for (InventoryCard card : delta.changed) {
+            InventoryCard previous = items.put(card.getId(), card);
+            int oldPosition = previous != null ? findPosition(previous, comparator) : -1;
+            if (oldPosition >= 0) {
+                filteredItems.remove(oldPosition);
+            }
 
-        // Reload from database
-        items.clear();
-        items.addAll(dao.getAll());
+            int newPosition = Collections.binarySearch(filteredItems, card, comparator);
+            if (newPosition < 0) {
+                newPosition = -newPosition - 1;
+            }
+            filteredItems.add(newPosition, card);
+
+            if (oldPosition < 0) {
+                adapter.notifyItemInserted(newPosition);
+            } else if (oldPosition == newPosition) {
+                adapter.notifyItemChanged(newPosition);
+            } else {
+                adapter.notifyItemMoved(oldPosition, newPosition);
+                adapter.notifyItemChanged(newPosition);
+            }
+        }
+    }
 
-        // Re-apply search filter (which also applies sort)
-        applySearchFilter();
+    /**
+     * Finds a card in the sorted view by binary search, then scans the run of
+     * equal keys for the exact instance. Falls back to a linear scan if the
+     * card was modified in place after it was sorted.
+     */
+    private int findPosition(InventoryCard card, Comparator<InventoryRecord> comparator) {
+        int hit = Collections.binarySearch(filteredItems, card, comparator);
+        if (hit >= 0) {
+            for (int i = hit; i >= 0 && comparator.compare(filteredItems.get(i), card) == 0; i--) {
+                if (filteredItems.get(i) == card) {
+                    return i;
+                }
+            }
+            for (int i = hit + 1; i < filteredItems.size()
+                    && comparator.compare(filteredItems.get(i), card) == 0; i++) {
+                if (filteredItems.get(i) == card) {
+                    return i;
+                }
+            }
+        }
+        return filteredItems.indexOf(card);
+    }
+
+    // ========================================================================
+    // BACKUP / RESTORE
+    // ========================================================================
+
+    /**
+     * Take a backup on the query executor (see DatabaseBackup).
+     */
+    private void backupNow() {
+        db.getQueryExecutor().execute(() -> {
+            String message;
+            try {
+                DatabaseBackup.BackupInfo info = new DatabaseBackup(this).backup();
+                message = getString(R.string.backup_done, info.newPages, info.pageCount);
+            } catch (IOException e) {
+                message = getString(R.string.backup_failed);
+            }
+            String toast = message;
+            runOnUiThread(() -> Toast.makeText(this, toast, Toast.LENGTH_SHORT).show());
+        });
+    }
+
+    /**
+     * List the stored backups, newest first, and restore the chosen one after confirmation.
+     */
+    private void showRestoreDialog() {
+        db.getQueryExecutor().execute(() -> {
+            List<DatabaseBackup.BackupInfo> backups;
+            try {
+                backups = new DatabaseBackup(this).list();
+            } catch (IOException e) {
+                backups = Collections.emptyList();
+            }
+            List<DatabaseBackup.BackupInfo> found = backups;
+            runOnUiThread(() -> {
+                if (found.isEmpty()) {
+                    Toast.makeText(this, R.string.restore_none, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                DateFormat format = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.SHORT);
+                String[] options = new String[found.size()];
+                for (int i = 0; i < options.length; i++) {
+                    options[i] = format.format(new Date(found.get(i).id));
+                }
+                new AlertDialog.Builder(this)
+                        .setTitle(R.string.restore_backup)
+                        .setItems(options, (dialog, which) -> confirmRestore(found.get(which), options[which]))
+                        .setNegativeButton(R.string.cancel, null)
+                        .show();
+            });
+        });
+    }
+
+    private void confirmRestore(DatabaseBackup.BackupInfo backup, String label) {
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.restore_backup)
+                .setMessage(getString(R.string.restore_confirm, label))
+                .setPositiveButton(R.string.restore, (dialog, which) -> restoreBackup(backup.id))
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * Restore a backup, then restart from the login screen so every screen
+     * reopens the restored database. Observers and pending snapshot writes
+     * are stopped first; they would otherwise touch the closed database.
+     */
+    private void restoreBackup(long backupId) {
+        snapshotHandler.removeCallbacks(snapshotWriter);
+        searchHandler.removeCallbacks(searchRunner);
+        searchGeneration++;
+        inventoryStream.unsubscribe(inventorySubscriber);
+        adapter.stopObserving();
+        db.getQueryExecutor().execute(() -> {
+            boolean restored;
+            try {
+                new DatabaseBackup(this).restore(backupId);
+                restored = true;
+            } catch (IOException e) {
+                Log.w(TAG, "Restore failed", e);
+                restored = false;
+            }
+            boolean success = restored;
+            runOnUiThread(() -> {
+                Toast.makeText(this, success ? R.string.restore_done : R.string.restore_failed,
+                        Toast.LENGTH_LONG).show();
+                if (success || !db.isOpen()) {
+                    startActivity(new Intent(this, LoginActivity.class)
+                            .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK));
+                    finish();
+                } else {
+                    // The database was left as it was: resume observing
+                    inventoryStream.subscribe(inventorySubscriber);
+                    inventoryStream.refresh();
+                    adapter.startObserving();
+                }
+            });
+        });
+    }
+
+    // ========================================================================
+    // CARD SNAPSHOT
+    // ========================================================================
+
+    /**
+     * Cards from the snapshot in the current sort order, with the delta
+     * tracker resumed at its watermarks. Null if there is no usable snapshot.
+     */
+    @Nullable
+    private List<InventoryCard> loadSnapshot() {
+        int dbVersion = db.getOpenHelper().getReadableDatabase().getVersion();
+        CardSnapshot snapshot = CardSnapshot.open(snapshotFile, dbVersion);
+        if (snapshot == null
+                || !deltaTracker.resume(snapshot.getLastUpdatedAt(), snapshot.getLastTombstoneId())) {
+            return null;
+        }
+        try {
+            return snapshot.cards(currentSortCriteria);
+        } catch (RuntimeException e) {
+            // Corrupt records: the tracker is reset by the full load
+            return null;
+        }
+    }
+
+    /**
+     * Write the snapshot SNAPSHOT_DELAY_MS after the last change, so a burst
+     * of changes is written once.
+     */
+    private void scheduleSnapshot() {
+        snapshotHandler.removeCallbacks(snapshotWriter);
+        snapshotHandler.postDelayed(snapshotWriter, SNAPSHOT_DELAY_MS);
+    }
+
+    /**
+     * Copy the cards and their watermarks, then write the snapshot on the
+     * query executor and prune the tombstones it has applied.
+     */
+    private void writeSnapshot() {
+        List<InventoryCard> cards = new ArrayList<>(items.values());
+        long updatedAt = snapshotUpdatedAt;
+        long tombstoneId = snapshotTombstoneId;
+        int generation = CardSnapshot.generation();
+        db.getQueryExecutor().execute(() -> {
+            try {
+                int dbVersion = db.getOpenHelper().getReadableDatabase().getVersion();
+                if (CardSnapshot.write(snapshotFile, cards, dbVersion, updatedAt, tombstoneId, generation)) {
+                    deltaTracker.pruneBefore(tombstoneId);
+                }
+            } catch (IOException e) {
+                CardSnapshot.delete(snapshotFile);
+            }
+        });
     }
 
     // ========================================================================
@@ -342,7 +889,7 @@ public class InventoryActivity extends AppCompatActivity
      */
     @Override
     public void onNewItem(String name, String description, int quantity,
-                          double price, Long categoryId, Long supplierId, Long locationId) {
+                          long priceCents, Long categoryId, Long supplierId, Long locationId) {
         // Create item with all fields using the full constructor
         InventoryItem newItem = new InventoryItem(
                 name,
@@ -351,23 +898,15 @@ public class InventoryActivity extends AppCompatActivity
                 categoryId,
                 supplierId,
                 locationId,
-                price,
+                priceCents,
                 null,            // sku (optional)
-                10               // default minStockLevel
+                InventoryItem.DEFAULT_MIN_STOCK_LEVEL
         );
 
         long newId = dao.insert(newItem);
         newItem.setId(newId);
 
-        // Refresh in-memory list from DB
-        items.clear();
-        items.addAll(dao.getAll());
-
-        // Refresh adapter's category cache in case new ones were added
-        adapter.refreshCategories();
-
-        // Re-apply search filter and sort
-        applySearchFilter();
+        // No reload here: the inventory stream merges the new row into the grid
 
         // Low-stock alert if quantity < minStockLevel
         if (quantity < newItem.getMinStockLevel()) {
@@ -376,35 +915,73 @@ public class InventoryActivity extends AppCompatActivity
     }
 
     /**
-     * UPDATE an item (called by adapter)
+     * Checkpoint stock levels, update consumption forecasts and ABC classes,
+     * then roll up and purge old history and stock series buckets, at most
+     * once a day and off the main thread. Also schedules the one-time
+     * incremental vacuum conversion while an older database still needs it.
      */
-    public void updateItem(InventoryItem item, int newQuantity, int position) {
-        item.setQuantity(newQuantity);
-        dao.update(item);
+    private void maybeRunDailyMaintenance() {
+        SharedPreferences prefs = getSharedPreferences("prefs", MODE_PRIVATE);
+        long now = System.currentTimeMillis();
+        if (now - prefs.getLong(PREF_MAINTENANCE_AT, 0) < HistoryRetention.DAY_MS) {
+            return;
+        }
+        prefs.edit().putLong(PREF_MAINTENANCE_AT, now).apply();
+        // The job can outlive this screen: hold the application, not the activity
+        Context appContext = getApplicationContext();
+        AppDatabase db = this.db;
+        // Under the backup lock: a restore waits for the job, or the job is skipped
+        db.getQueryExecutor().execute(() -> DatabaseBackup.runExclusive(db, () -> {
+            new StockSnapshots(db).maybeCheckpoint();
+            new ConsumptionForecaster(db).run();    // Before retention purges unread events
+            new AbcClassifier(db).run();
+            new HistoryRetention(db).run();
+            new StockSeries(db).prune();
+            if (!HistoryRetention.isIncrementalVacuum(db)) {
+                // Converted later, while the device is idle and charging
+                IncrementalVacuumJob.schedule(appContext);
+            }
+            try {
+                new DatabaseBackup(appContext).backup();
+            } catch (IOException e) {
+                Log.w(TAG, "Nightly backup failed", e);
+            }
+        }));
+    }
 
-        // Update in both lists
-        int masterIndex = items.indexOf(item);
-        if (masterIndex >= 0) {
-            items.set(masterIndex, item);
+    /**
+     * UPDATE an item's quantity by a delta (called by adapter).
+     * The change is applied in SQL, so the cached item is never written back.
+     */
+    public void adjustItemQuantity(InventoryCard card, int delta, int position) {
+        int newQuantity = dao.adjustQuantity(card.getId(), delta);
+
+        // Item was deleted elsewhere - drop it from both lists
+        if (newQuantity < 0) {
+            items.remove(card.getId());
+            filteredItems.remove(position);
+            adapter.notifyItemRemoved(position);
+            return;
         }
 
-        filteredItems.set(position, item);
+        // Refresh the cached copy with the value stored in the DB
+        card.setQuantity(newQuantity);
         adapter.notifyItemChanged(position);
 
-        // Low-stock alert if quantity < 10
-        if (newQuantity < 10) {
-            sendLowStockAlert(item);
+        // Low-stock alert if quantity < minStockLevel
+        if (newQuantity < card.getMinStockLevel()) {
+            sendLowStockAlert(card);
         }
     }
 
     /**
      * DELETE an item (called by adapter)
      */
-    public void deleteItem(InventoryItem item, int position) {
-        dao.delete(item);
+    public void deleteItem(InventoryCard card, int position) {
+        dao.deleteById(card.getId());
 
         // Remove from both lists
-        items.remove(item);
+        items.remove(card.getId());
         filteredItems.remove(position);
         adapter.notifyItemRemoved(position);
     }
@@ -413,7 +990,7 @@ public class InventoryActivity extends AppCompatActivity
     // SMS HELPER
     // ========================================================================
 
-    private void sendLowStockAlert(InventoryItem item) {
+    private void sendLowStockAlert(InventoryRecord item) {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.SEND_SMS)
                 == PackageManager.PERMISSION_GRANTED) {
             String phoneNumber = "1234567890";
@@ -13,82 +13,110 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
 
-import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 /**
  * RecyclerView adapter for displaying inventory items in a grid.
- * Shows item name, quantity, price, and category.
+ * Shows item name, quantity, price, and category from lightweight card rows.
  */
 public class InventoryAdapter
         extends RecyclerView.Adapter<InventoryAdapter.ViewHolder> {
 
-    private final List<InventoryItem> items;
+    private final List<InventoryCard> items;
     private final Context context;
     private final AppDatabase db;
     private final Map<Long, String> categoryCache = new HashMap<>();
     private final Map<Long, String> supplierCache = new HashMap<>();
     private final Map<Long, String> locationCache = new HashMap<>();
-    private final NumberFormat currencyFormat;
 
-    public InventoryAdapter(Context context, List<InventoryItem> items) {
+    // One stream per reference table, so only the cache whose table changed reloads
+    private final TableStream<Map<Long, String>> categoryStream;
+    private final TableStream<Map<Long, String>> supplierStream;
+    private final TableStream<Map<Long, String>> locationStream;
+    private final TableStream.Subscriber<Map<Long, String>> categorySubscriber =
+            names -> replaceCache(categoryCache, names);
+    private final TableStream.Subscriber<Map<Long, String>> supplierSubscriber =
+            names -> replaceCache(supplierCache, names);
+    private final TableStream.Subscriber<Map<Long, String>> locationSubscriber =
+            names -> replaceCache(locationCache, names);
+
+    public InventoryAdapter(Context context, List<InventoryCard> items) {
         this.context = context;
         this.items = items;
         this.db = AppDatabase.getInstance(context);
-        this.currencyFormat = NumberFormat.getCurrencyInstance(Locale.US);
 
         // Pre-load all reference data for efficiency
-        loadCategories();
-        loadSuppliers();
-        loadLocations();
+        categoryCache.putAll(loadCategories());
+        supplierCache.putAll(loadSuppliers());
+        locationCache.putAll(loadLocations());
+
+        categoryStream = new TableStream<>(db, this::loadCategories, "categories");
+        supplierStream = new TableStream<>(db, this::loadSuppliers, "suppliers");
+        locationStream = new TableStream<>(db, this::loadLocations, "locations");
     }
 
     /**
-     * Load all categories into cache for quick lookup.
+     * Load all category names for quick lookup.
      */
-    private void loadCategories() {
-        categoryCache.clear();
-        List<Category> categories = db.categoryDao().getAll();
-        for (Category cat : categories) {
-            categoryCache.put(cat.getId(), cat.getName());
+    private Map<Long, String> loadCategories() {
+        Map<Long, String> names = new HashMap<>();
+        for (Category cat : db.categoryDao().getAll()) {
+            names.put(cat.getId(), cat.getName());
         }
+        return names;
     }
 
     /**
-     * Load all suppliers into cache for quick lookup.
+     * Load all supplier names for quick lookup.
      */
-    private void loadSuppliers() {
-        supplierCache.clear();
-        List<Supplier> suppliers = db.supplierDao().getAll();
-        for (Supplier sup : suppliers) {
-            supplierCache.put(sup.getId(), sup.getName());
+    private Map<Long, String> loadSuppliers() {
+        Map<Long, String> names = new HashMap<>();
+        for (Supplier sup : db.supplierDao().getAll()) {
+            names.put(sup.getId(), sup.getName());
         }
+        return names;
     }
 
     /**
-     * Load all locations into cache for quick lookup.
+     * Load all location names for quick lookup.
      */
-    private void loadLocations() {
-        locationCache.clear();
-        List<Location> locations = db.locationDao().getAll();
-        for (Location loc : locations) {
-            locationCache.put(loc.getId(), loc.getName());
+    private Map<Long, String> loadLocations() {
+        Map<Long, String> names = new HashMap<>();
+        for (Location loc : db.locationDao().getAll()) {
+            names.put(loc.getId(), loc.getName());
         }
+        return names;
     }
 
     /**
-     * Refresh all caches (call when reference data changes).
+     * Swap in freshly loaded names and rebind the visible cards.
      */
-    public void refreshCategories() {
-        loadCategories();
-        loadSuppliers();
-        loadLocations();
+    private void replaceCache(Map<Long, String> cache, Map<Long, String> names) {
+        cache.clear();
+        cache.putAll(names);
         notifyDataSetChanged();
     }
 
+    /**
+     * Start reloading reference caches when their tables change.
+     */
+    public void startObserving() {
+        categoryStream.subscribe(categorySubscriber);
+        supplierStream.subscribe(supplierSubscriber);
+        locationStream.subscribe(locationSubscriber);
+    }
+
+    /**
+     * Stop observing reference tables.
+     */
+    public void stopObserving() {
+        categoryStream.unsubscribe(categorySubscriber);
+        supplierStream.unsubscribe(supplierSubscriber);
+        locationStream.unsubscribe(locationSubscriber);
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(
@@ -100,14 +128,14 @@ public class InventoryAdapter
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        InventoryItem item = items.get(position);
+        InventoryCard item = items.get(position);
 
         // Bind basic info
         holder.name.setText(item.getName());
         holder.qty.setText("Qty: " + item.getQuantity());
 
         // Bind price
-        holder.price.setText(currencyFormat.format(item.getPrice()));
+        holder.price.setText(Money.format(item.getPriceCents()));
 
         // Build category chip text (can include supplier/location)
         String chipText = buildChipText(item);
@@ -118,12 +146,11 @@ public class InventoryAdapter
             holder.category.setVisibility(View.GONE);
         }
 
-        // Navigate to detail when tapped
+        // Navigate to detail when tapped (the full item is loaded there)
         holder.itemView.setOnClickListener(v -> {
             Intent intent = new Intent(v.getContext(), ItemDetailActivity.class);
             intent.putExtra(ItemDetailActivity.EXTRA_ITEM_ID, item.getId());
             intent.putExtra(ItemDetailActivity.EXTRA_ITEM_NAME, item.getName());
-            intent.putExtra(ItemDetailActivity.EXTRA_ITEM_DESC, item.getDescription());
             intent.putExtra(ItemDetailActivity.EXTRA_ITEM_QTY, item.getQuantity());
             v.getContext().startActivity(intent);
         });
@@ -132,11 +159,10 @@ public class InventoryAdapter
         holder.itemView.setOnLongClickListener(v -> {
             int pos = holder.getAdapterPosition();
             if (pos != RecyclerView.NO_POSITION) {
-                InventoryItem target = items.get(pos);
-                int newQty = target.getQuantity() + 1;
+                InventoryCard target = items.get(pos);
 
                 if (context instanceof InventoryActivity) {
-                    ((InventoryActivity) context).updateItem(target, newQty, pos);
+                    ((InventoryActivity) context).adjustItemQuantity(target, 1, pos);
                 }
             }
             return true; // consumed
@@ -146,7 +172,7 @@ public class InventoryAdapter
         holder.deleteButton.setOnClickListener(v -> {
             int pos = holder.getAdapterPosition();
             if (pos != RecyclerView.NO_POSITION) {
-                InventoryItem target = items.get(pos);
+                InventoryCard target = items.get(pos);
 
                 if (context instanceof InventoryActivity) {
                     ((InventoryActivity) context).deleteItem(target, pos);
@@ -159,7 +185,7 @@ public class InventoryAdapter
      * Build the text for the category chip.
      * Shows category name, or supplier/location if no category.
      */
-    private String buildChipText(InventoryItem item) {
+    private String buildChipText(InventoryCard item) {
         // Priority: Category > Supplier > Location
         Long categoryId = item.getCategoryId();
         if (categoryId != null && categoryCache.containsKey(categoryId)) {
@@ -0,0 +1,124 @@
+package com.myapps.keithpottratz;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+/**
+ * POJO class for the inventory grid.
+ * Holds only the columns a card displays or sorts on; the full
+ * InventoryItem is loaded when ItemDetailActivity opens.
+ */
+public class InventoryCard implements InventoryRecord {
+
+    // Column list shared by the card queries in InventoryDao
+    static final String COLUMNS =
+            "id, name, quantity, price_cents, min_stock_level, " +
+            "category_id, supplier_id, location_id, created_at, updated_at, abc_class";
+
+    private long id;
+
+    @NonNull
+    private String name;
+
+    private int quantity;
+
+    @ColumnInfo(name = "price_cents")
+    private long priceCents;
+
+    @ColumnInfo(name = "min_stock_level")
+    private int minStockLevel;
+
+    @ColumnInfo(name = "category_id")
+    private Long categoryId;
+
+    @ColumnInfo(name = "supplier_id")
+    private Long supplierId;
+
+    @ColumnInfo(name = "location_id")
+    private Long locationId;
+
+    // Needed for the date-added sort orders
+    @ColumnInfo(name = "created_at")
+    private long createdAt;
+
+    // Watermark for incremental refresh
+    @ColumnInfo(name = "updated_at")
+    private long updatedAt;
+
+    // Grid filter by ABC class (null until classified)
+    @ColumnInfo(name = "abc_class")
+    private String abcClass;
+
+    public InventoryCard(long id, @NonNull String name, int quantity, long priceCents,
+                         int minStockLevel, Long categoryId, Long supplierId,
+                         Long locationId, long createdAt, long updatedAt, String abcClass) {
+        this.id = id;
+        this.name = name;
+        this.quantity = quantity;
+        this.priceCents = priceCents;
+        this.minStockLevel = minStockLevel;
+        this.categoryId = categoryId;
+        this.supplierId = supplierId;
+        this.locationId = locationId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.abcClass = abcClass;
+    }
+
+    // Getters
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    @Override
+    public int getMinStockLevel() {
+        return minStockLevel;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    @Override
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getAbcClass() {
+        return abcClass;
+    }
+
+    // Setters
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -3,11 +3,15 @@ package com.myapps.keithpottratz;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Dao
 public interface InventoryDao {
@@ -28,14 +32,123 @@ public interface InventoryDao {
     @Insert
     long insert(InventoryItem item);
 
+    @Insert
+    List<Long> insertAll(List<InventoryItem> items);
+
     // UPDATE
     @Update
     int update(InventoryItem item);
 
+    @Update
+    int updateAll(List<InventoryItem> items);
+
     // DELETE
     @Delete
     int delete(InventoryItem item);
 
+    // DELETE by ID
+    @Query("DELETE FROM inventory WHERE id = :id")
+    int deleteById(long id);
+
+
+    // CARD PROJECTION (only the columns the inventory grid needs)
+
+
+    // READ all grid cards
+    @Query("SELECT " + InventoryCard.COLUMNS + " FROM inventory ORDER BY id DESC")
+    List<InventoryCard> getAllCards();
+
+    // READ single grid card by ID
+    @Query("SELECT " + InventoryCard.COLUMNS + " FROM inventory WHERE id = :id LIMIT 1")
+    InventoryCard getCardById(long id);
+
+    // Search ids by name or description (cards do not carry the description).
+    // The search text must be escaped with ItemSearch.escapeLike()
+    @Query("SELECT id FROM inventory WHERE name LIKE '%' || :search || '%' ESCAPE '\\'"
+            + " OR description LIKE '%' || :search || '%' ESCAPE '\\'")
+    List<Long> searchIdsByNameOrDescription(String search);
+
+    // Id, name and description of every item, for searches LIKE cannot fold (see ItemSearch)
+    @Query("SELECT id, name, description FROM inventory")
+    List<ItemText> getAllItemText();
+
+
+    // DELTA REFRESH (rows changed or deleted since a watermark)
+
+
+    // READ cards updated at or after a timestamp (uses index_inventory_updated_at)
+    @Query("SELECT " + InventoryCard.COLUMNS + " FROM inventory WHERE updated_at >= :since ORDER BY updated_at ASC, id ASC")
+    List<InventoryCard> getCardsChangedSince(long since);
+
+    // READ deletions recorded after a tombstone id
+    @Query("SELECT * FROM inventory_tombstones WHERE id > :afterId ORDER BY id ASC")
+    List<InventoryTombstone> getTombstonesAfter(long afterId);
+
+    // READ newest tombstone id
+    @Query("SELECT MAX(id) FROM inventory_tombstones")
+    Long getMaxTombstoneId();
+
+    // DELETE old tombstones
+    @Query("DELETE FROM inventory_tombstones WHERE deleted_at < :beforeTime")
+    int pruneTombstones(long beforeTime);
+
+    // DELETE old tombstones below an id (already applied by a CardSnapshot)
+    @Query("DELETE FROM inventory_tombstones WHERE id < :beforeId AND deleted_at < :beforeTime")
+    int pruneTombstonesBefore(long beforeId, long beforeTime);
+
+    // READ newest updated_at (uses index_inventory_updated_at)
+    @Query("SELECT MAX(updated_at) FROM inventory")
+    Long getMaxUpdatedAt();
+
+
+    // ATOMIC QUANTITY ADJUSTMENTS
+
+
+    // Read just the current quantity of an item (null if it no longer exists)
+    @Query("SELECT quantity FROM inventory WHERE id = :id")
+    Integer getQuantity(long id);
+
+    // Apply a delta in SQL so concurrent writers never overwrite each other.
+    // Room compiles this once and reuses the statement for every call.
+    @Query("UPDATE inventory SET quantity = MAX(quantity + :delta, 0), updated_at = :updatedAt WHERE id = :id")
+    int applyQuantityDelta(long id, int delta, long updatedAt);
+
+    /**
+     * Atomically adjust an item's quantity by delta (clamped at zero).
+     * The inventory_audit_on_update trigger records the change in inventory_history.
+     *
+     * @return The new quantity, or -1 if the item does not exist
+     */
+    @Transaction
+    default int adjustQuantity(long id, int delta) {
+        Integer oldQuantity = getQuantity(id);
+        if (oldQuantity == null) {
+            return -1;
+        }
+
+        int newQuantity = Math.max(oldQuantity + delta, 0);
+        if (newQuantity == oldQuantity) {
+            return oldQuantity;
+        }
+
+        applyQuantityDelta(id, delta, System.currentTimeMillis());
+        return newQuantity;
+    }
+
+    /**
+     * Apply several quantity deltas (item id -> delta) in a single transaction.
+     *
+     * @return New quantity per item id (-1 for items that no longer exist)
+     */
+    @Transaction
+    default Map<Long, Integer> adjustQuantities(Map<Long, Integer> deltas) {
+        Map<Long, Integer> results = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            results.put(entry.getKey(), adjustQuantity(entry.getKey(), entry.getValue()));
+        }
+        return results;
+    }
+
 
     // RELATIONSHIP QUERIES (JOIN via @Transaction)
 
@@ -81,6 +194,41 @@ public interface InventoryDao {
     List<ItemWithDetails> getAllWithDetails();
 
 
+    // FLATTENED DETAIL QUERIES (single LEFT JOIN instead of one query per @Relation)
+
+
+    // Get item with ALL details in one query
+    @Query(ItemDetailsRow.SELECT_FROM + "WHERE i.id = :id")
+    ItemDetailsRow getItemDetailsRow(long id);
+
+    // Get all items with all details in one query
+    @Query(ItemDetailsRow.SELECT_FROM + "ORDER BY i.name ASC")
+    List<ItemDetailsRow> getAllDetailsRows();
+
+    // Get next batch of detail rows after an id (keyset page, walks the primary key)
+    @Query(ItemDetailsRow.SELECT_FROM + "WHERE i.id > :afterId ORDER BY i.id ASC LIMIT :limit")
+    List<ItemDetailsRow> getDetailsRowsAfter(long afterId, int limit);
+
+    /**
+     * Stream every item with its details in id order, holding at most
+     * batchSize rows in memory at a time.
+     *
+     * @param batchSize Rows fetched per query
+     * @param consumer  Called once per row
+     */
+    default void forEachDetailsRow(int batchSize, Consumer<ItemDetailsRow> consumer) {
+        long lastId = 0;
+        List<ItemDetailsRow> batch;
+        do {
+            batch = getDetailsRowsAfter(lastId, batchSize);
+            for (ItemDetailsRow row : batch) {
+                consumer.accept(row);
+                lastId = row.item.getId();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+
     // FILTERING QUERIES
 
 
@@ -96,8 +244,8 @@ public interface InventoryDao {
     @Query("SELECT * FROM inventory WHERE location_id = :locationId ORDER BY name ASC")
     List<InventoryItem> getByLocation(long locationId);
 
-    // Get LOW STOCK items (quantity below minimum)
-    @Query("SELECT * FROM inventory WHERE quantity < min_stock_level ORDER BY (min_stock_level - quantity) DESC")
+    // Get LOW STOCK items (quantity below minimum), read from index_inventory_low_stock_deficit
+    @Query("SELECT * FROM inventory WHERE low_stock_deficit > 0 ORDER BY low_stock_deficit DESC")
     List<InventoryItem> getLowStockItems();
 
     // Get OUT OF STOCK items (quantity = 0)
@@ -108,9 +256,9 @@ public interface InventoryDao {
     @Query("SELECT * FROM inventory WHERE quantity > 0 ORDER BY name ASC")
     List<InventoryItem> getInStockItems();
 
-    // Get items by price range
-    @Query("SELECT * FROM inventory WHERE price BETWEEN :minPrice AND :maxPrice ORDER BY price ASC")
-    List<InventoryItem> getByPriceRange(double minPrice, double maxPrice);
+    // Get items by price range (in cents)
+    @Query("SELECT * FROM inventory WHERE price_cents BETWEEN :minCents AND :maxCents ORDER BY price_cents ASC")
+    List<InventoryItem> getByPriceRange(long minCents, long maxCents);
 
     // Get items by quantity range
     @Query("SELECT * FROM inventory WHERE quantity BETWEEN :minQty AND :maxQty ORDER BY quantity ASC")
@@ -120,25 +268,31 @@ public interface InventoryDao {
     // SEARCH QUERIES
 
 
-    // Search by name (partial match)
-    @Query("SELECT * FROM inventory WHERE name LIKE '%' || :search || '%' ORDER BY name ASC")
+    // Search by name (partial match; escape the text with ItemSearch.escapeLike())
+    @Query("SELECT * FROM inventory WHERE name LIKE '%' || :search || '%' ESCAPE '\\' ORDER BY name ASC")
     List<InventoryItem> searchByName(String search);
 
     // Search by SKU (exact match)
     @Query("SELECT * FROM inventory WHERE sku = :sku LIMIT 1")
     InventoryItem getBySku(String sku);
 
-    // Search by name or description
-    @Query("SELECT * FROM inventory WHERE name LIKE '%' || :search || '%' OR description LIKE '%' || :search || '%' ORDER BY name ASC")
+    // Search by name or description (escape the text with ItemSearch.escapeLike())
+    @Query("SELECT * FROM inventory WHERE name LIKE '%' || :search || '%' ESCAPE '\\'"
+            + " OR description LIKE '%' || :search || '%' ESCAPE '\\' ORDER BY name ASC")
     List<InventoryItem> searchByNameOrDescription(String search);
 
+    // The lowest-id item per SKU among the given SKUs (uses index_inventory_sku)
+    @Query("SELECT * FROM inventory WHERE id IN " +
+           "(SELECT MIN(id) FROM inventory WHERE sku IN (:skus) GROUP BY sku)")
+    List<InventoryItem> getFirstBySku(List<String> skus);
+
 
     // AGGREGATION QUERIES
 
 
-    // Get total inventory value (sum of quantity * price)
-    @Query("SELECT COALESCE(SUM(quantity * price), 0) FROM inventory")
-    double getTotalInventoryValue();
+    // Get total inventory value in cents (exact integer sum of stored quantity * price)
+    @Query("SELECT COALESCE(SUM(stock_value_cents), 0) FROM inventory")
+    long getTotalInventoryValueCents();
 
     // Get total item count
     @Query("SELECT COUNT(*) FROM inventory")
@@ -148,18 +302,28 @@ public interface InventoryDao {
     @Query("SELECT COALESCE(SUM(quantity), 0) FROM inventory")
     int getTotalQuantity();
 
-    // Get average price
-    @Query("SELECT COALESCE(AVG(price), 0) FROM inventory")
-    double getAveragePrice();
+    // Get average price in cents
+    @Query("SELECT COALESCE(AVG(price_cents), 0) FROM inventory")
+    double getAveragePriceCents();
 
-    // Get count of low stock items
-    @Query("SELECT COUNT(*) FROM inventory WHERE quantity < min_stock_level")
+    // Get count of low stock items (index range count)
+    @Query("SELECT COUNT(*) FROM inventory WHERE low_stock_deficit > 0")
     int getLowStockCount();
 
     // Get count of out of stock items
     @Query("SELECT COUNT(*) FROM inventory WHERE quantity = 0")
     int getOutOfStockCount();
 
+    // Get all of the above in ONE scan (conditional aggregation; one statement, so one snapshot)
+    @Query("SELECT COUNT(*) as itemCount, " +
+           "COALESCE(SUM(quantity), 0) as totalQuantity, " +
+           "COALESCE(SUM(stock_value_cents), 0) as totalValueCents, " +
+           "COALESCE(AVG(price_cents), 0) as averagePriceCents, " +
+           "COALESCE(SUM(CASE WHEN quantity < min_stock_level THEN 1 ELSE 0 END), 0) as lowStockCount, " +
+           "COALESCE(SUM(CASE WHEN quantity = 0 THEN 1 ELSE 0 END), 0) as outOfStockCount " +
+           "FROM inventory")
+    DashboardSnapshot getDashboardSnapshot();
+
 
     // STATISTICS QUERIES (GROUP BY)
 
@@ -168,22 +332,22 @@ public interface InventoryDao {
     @Query("SELECT c.id as categoryId, c.name as categoryName, " +
            "COUNT(i.id) as itemCount, " +
            "COALESCE(SUM(i.quantity), 0) as totalQuantity, " +
-           "COALESCE(SUM(i.quantity * i.price), 0) as totalValue " +
+           "COALESCE(SUM(i.stock_value_cents), 0) as totalValueCents " +
            "FROM categories c " +
            "LEFT JOIN inventory i ON c.id = i.category_id " +
            "GROUP BY c.id, c.name " +
-           "ORDER BY totalValue DESC")
+           "ORDER BY totalValueCents DESC")
     List<CategoryStats> getCategoryStatistics();
 
     // Get statistics by supplier
     @Query("SELECT s.id as supplierId, s.name as supplierName, " +
            "COUNT(i.id) as itemCount, " +
            "COALESCE(SUM(i.quantity), 0) as totalQuantity, " +
-           "COALESCE(SUM(i.quantity * i.price), 0) as totalValue " +
+           "COALESCE(SUM(i.stock_value_cents), 0) as totalValueCents " +
            "FROM suppliers s " +
            "LEFT JOIN inventory i ON s.id = i.supplier_id " +
            "GROUP BY s.id, s.name " +
-           "ORDER BY totalValue DESC")
+           "ORDER BY totalValueCents DESC")
     List<SupplierStats> getSupplierStatistics();
 
 
@@ -192,15 +356,46 @@ public interface InventoryDao {
 
     @Query("SELECT i.id as itemId, i.name as itemName, " +
            "i.quantity as quantity, i.min_stock_level as minStockLevel, " +
-           "(i.min_stock_level - i.quantity) as deficit, " +
-           "s.name as supplierName, s.email as supplierEmail, s.phone as supplierPhone " +
+           "i.low_stock_deficit as deficit, " +
+           "s.name as supplierName, s.email as supplierEmail, s.phone as supplierPhone, " +
+           "MAX(COALESCE(f.order_up_to, i.min_stock_level) - i.quantity, 0) as suggestedOrder " +
            "FROM inventory i " +
            "LEFT JOIN suppliers s ON i.supplier_id = s.id " +
-           "WHERE i.quantity < i.min_stock_level " +
-           "ORDER BY deficit DESC")
+           "LEFT JOIN item_forecasts f ON f.item_id = i.id " +
+           "WHERE i.low_stock_deficit > 0 " +
+           "ORDER BY i.low_stock_deficit DESC")
     List<LowStockItem> getReorderReport();
 
 
+    // ABC CLASSIFICATION (see AbcClassifier)
+
+
+    // Stock values above zero, read from index_inventory_stock_value_cents alone
+    @Query("SELECT stock_value_cents FROM inventory WHERE stock_value_cents > 0")
+    List<Long> getPositiveStockValues();
+
+    // READ current cut points (null before the first classification)
+    @Query("SELECT * FROM abc_thresholds WHERE id = 0")
+    AbcThresholds getAbcThresholds();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void saveAbcThresholds(AbcThresholds thresholds);
+
+    // Reclassify items whose class changed under the stored cut points;
+    // updated_at moves so the grid's delta refresh picks them up
+    @Query("UPDATE inventory SET abc_class = " + AbcThresholds.CLASS_OF_STOCK_VALUE + ", " +
+           "updated_at = :now WHERE abc_class IS NOT " + AbcThresholds.CLASS_OF_STOCK_VALUE)
+    int reclassifyAbc(long now);
+
+    // Get items of one class, most valuable first
+    @Query("SELECT * FROM inventory WHERE abc_class = :abcClass ORDER BY stock_value_cents DESC")
+    List<InventoryItem> getByAbcClass(String abcClass);
+
+    // Item count per class
+    @Query("SELECT COUNT(*) FROM inventory WHERE abc_class = :abcClass")
+    int countByAbcClass(String abcClass);
+
+
     // SORTING OPTIONS
 
 
@@ -217,17 +412,21 @@ public interface InventoryDao {
     List<InventoryItem> getAllSortedByQuantityDesc();
 
     // Sort by price (lowest first)
-    @Query("SELECT * FROM inventory ORDER BY price ASC")
+    @Query("SELECT * FROM inventory ORDER BY price_cents ASC")
     List<InventoryItem> getAllSortedByPriceAsc();
 
     // Sort by price (highest first)
-    @Query("SELECT * FROM inventory ORDER BY price DESC")
+    @Query("SELECT * FROM inventory ORDER BY price_cents DESC")
     List<InventoryItem> getAllSortedByPriceDesc();
 
-    // Sort by value (quantity * price, highest first)
-    @Query("SELECT * FROM inventory ORDER BY (quantity * price) DESC")
+    // Sort by value (quantity * price, highest first) - walks index_inventory_stock_value_cents
+    @Query("SELECT * FROM inventory ORDER BY stock_value_cents DESC")
     List<InventoryItem> getAllSortedByValueDesc();
 
+    // Top N items by value - reads only N index entries
+    @Query("SELECT * FROM inventory ORDER BY stock_value_cents DESC LIMIT :limit")
+    List<InventoryItem> getTopByValue(int limit);
+
     // Sort by recently added
     @Query("SELECT * FROM inventory ORDER BY created_at DESC")
     List<InventoryItem> getAllSortedByNewest();
@@ -0,0 +1,28 @@
+package com.myapps.keithpottratz;
+
+import java.util.List;
+
+/**
+ * Changes to the inventory table since the last refresh.
+ * Produced by InventoryDeltaTracker and merged into the grid by InventoryActivity.
+ */
+public class InventoryDelta {
+    public final List<InventoryCard> changed;   // Inserted or updated rows
+    public final List<Long> deletedIds;         // Ids removed since last refresh
+
+    // Tracker watermarks after this delta (what a CardSnapshot of the merged cards is current to)
+    public final long lastUpdatedAt;
+    public final long lastTombstoneId;
+
+    public InventoryDelta(List<InventoryCard> changed, List<Long> deletedIds,
+                          long lastUpdatedAt, long lastTombstoneId) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+        this.lastUpdatedAt = lastUpdatedAt;
+        this.lastTombstoneId = lastTombstoneId;
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && deletedIds.isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package com.myapps.keithpottratz;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental refresh protocol for the inventory grid.
+ *
+ * Remembers the newest updated_at seen and the last tombstone id read, so a
+ * refresh only reads rows changed since then (via index_inventory_updated_at)
+ * plus deletions from inventory_tombstones, instead of reloading every row.
+ *
+ * Thread-safe: polls may run on a background executor (see TableStream).
+ */
+public class InventoryDeltaTracker {
+
+    // Tombstones older than this are pruned on a full load
+    private static final long TOMBSTONE_RETENTION_MS = 24L * 60 * 60 * 1000;
+
+    private final InventoryDao dao;
+
+    private long lastUpdatedAt = 0;     // Highest updated_at seen
+    private long lastTombstoneId = 0;   // Highest tombstone id seen
+
+    public InventoryDeltaTracker(InventoryDao dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Load every card and reset the watermarks to what was loaded.
+     */
+    public synchronized List<InventoryCard> loadAll() {
+        dao.pruneTombstones(System.currentTimeMillis() - TOMBSTONE_RETENTION_MS);
+
+        // Read the tombstone watermark first so deletes racing the load are not missed
+        Long maxTombstoneId = dao.getMaxTombstoneId();
+        lastTombstoneId = maxTombstoneId != null ? maxTombstoneId : 0;
+
+        List<InventoryCard> cards = dao.getAllCards();
+        lastUpdatedAt = 0;
+        advance(cards);
+        return cards;
+    }
+
+    /**
+     * Read changes since the last load or poll and advance the watermarks.
+     *
+     * Rows stamped with exactly the current watermark are read again, because
+     * another write in the same millisecond may have landed after our last read.
+     * Merging a row twice is harmless, missing one is not.
+     */
+    public synchronized InventoryDelta poll() {
+        List<Long> deletedIds = new ArrayList<>();
+        for (InventoryTombstone tombstone : dao.getTombstonesAfter(lastTombstoneId)) {
+            deletedIds.add(tombstone.getItemId());
+            lastTombstoneId = tombstone.getId();
+        }
+
+        List<InventoryCard> changed = dao.getCardsChangedSince(lastUpdatedAt);
+        advance(changed);
+
+        return new InventoryDelta(changed, deletedIds, lastUpdatedAt, lastTombstoneId);
+    }
+
+    /**
+     * Continue from watermarks saved with a CardSnapshot instead of loading
+     * every card; the next poll returns what changed since.
+     *
+     * @return False if the database is behind the watermarks (restored or
+     *         replaced since), so the snapshot cannot be caught up and a full
+     *         load is needed
+     */
+    public synchronized boolean resume(long updatedAt, long tombstoneId) {
+        Long maxTombstoneId = dao.getMaxTombstoneId();
+        Long maxUpdatedAt = dao.getMaxUpdatedAt();
+        if ((maxTombstoneId != null ? maxTombstoneId : 0) < tombstoneId
+                || (maxUpdatedAt != null ? maxUpdatedAt : 0) < updatedAt) {
+            return false;
+        }
+        lastUpdatedAt = updatedAt;
+        lastTombstoneId = tombstoneId;
+        return true;
+    }
+
+    /**
+     * Prune old tombstones a snapshot current to tombstoneId no longer needs.
+     * Keeps tombstoneId itself so resume() can tell the database has not gone back.
+     */
+    public void pruneBefore(long tombstoneId) {
+        dao.pruneTombstonesBefore(tombstoneId, System.currentTimeMillis() - TOMBSTONE_RETENTION_MS);
+    }
+
+    public synchronized long getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    public synchronized long getLastTombstoneId() {
+        return lastTombstoneId;
+    }
+
+    private void advance(List<InventoryCard> cards) {
+        for (InventoryCard card : cards) {
+            if (card.getUpdatedAt() > lastUpdatedAt) {
+                lastUpdatedAt = card.getUpdatedAt();
+            }
+        }
+    }
+}
@@ -25,7 +25,8 @@ import androidx.room.PrimaryKey;
         )
     },
     indices = {
-        @Index(value = "item_id"),
+        @Index(value = {"item_id", "timestamp"}),  // Per-item timeline in time order
+        @Index(value = "timestamp"),               // Recent history and time ranges
         @Index(value = "user_id")
     }
 )
@@ -0,0 +1,104 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+/**
+ * Daily per-item rollup of quantity history, written by HistoryRetention
+ * before raw inventory_history rows are purged.
+ *
+ * day is the UTC epoch day (timestamp / DAY_MS).
+ */
+@Entity(
+    tableName = "inventory_history_daily",
+    primaryKeys = {"item_id", "day"},
+    foreignKeys = {
+        @ForeignKey(
+            entity = InventoryItem.class,
+            parentColumns = "id",
+            childColumns = "item_id",
+            onDelete = ForeignKey.CASCADE
+        )
+    }
+)
+public class InventoryHistoryDaily {
+    public static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    // Action reported for rollup rows presented as InventoryHistory
+    public static final String ACTION_ROLLUP = "ROLLUP";
+
+    @ColumnInfo(name = "item_id")
+    private long itemId;
+
+    private long day;
+
+    // Sum of (new - old) over the day's quantity events
+    @ColumnInfo(name = "net_change")
+    private long netChange;
+
+    @ColumnInfo(name = "min_quantity")
+    private int minQuantity;
+
+    @ColumnInfo(name = "max_quantity")
+    private int maxQuantity;
+
+    @ColumnInfo(name = "event_count")
+    private int eventCount;
+
+    // Constructor for Room (all fields)
+    public InventoryHistoryDaily(long itemId, long day, long netChange,
+                                 int minQuantity, int maxQuantity, int eventCount) {
+        this.itemId = itemId;
+        this.day = day;
+        this.netChange = netChange;
+        this.minQuantity = minQuantity;
+        this.maxQuantity = maxQuantity;
+        this.eventCount = eventCount;
+    }
+
+    /**
+     * Combine with another rollup of the same item and day.
+     */
+    public InventoryHistoryDaily merge(InventoryHistoryDaily other) {
+        return new InventoryHistoryDaily(itemId, day,
+                netChange + other.netChange,
+                Math.min(minQuantity, other.minQuantity),
+                Math.max(maxQuantity, other.maxQuantity),
+                eventCount + other.eventCount);
+    }
+
+    /**
+     * Present the rollup as a history row at the start of its day:
+     * action ROLLUP, field "quantity", old/new value = the day's min/max quantity.
+     */
+    public InventoryHistory toHistory() {
+        return new InventoryHistory(0, itemId, null, ACTION_ROLLUP, "quantity",
+                String.valueOf(minQuantity), String.valueOf(maxQuantity), day * DAY_MS);
+    }
+
+    // Getters
+    public long getItemId() {
+        return itemId;
+    }
+
+    public long getDay() {
+        return day;
+    }
+
+    public long getNetChange() {
+        return netChange;
+    }
+
+    public int getMinQuantity() {
+        return minQuantity;
+    }
+
+    public int getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+}
@@ -2,46 +2,217 @@ package com.myapps.keithpottratz;
 
 import androidx.room.Dao;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Dao
 public interface InventoryHistoryDao {
 
-    // READ all history for an item (newest first)
+    /**
+     * Text history and decoded compact history (see CompactHistoryEvent) as one
+     * table with the inventory_history columns. Compact ids are negated.
+     * The CASE must list every HistoryField id.
+     */
+    String HISTORY_ALL =
+            "(SELECT id, item_id, user_id, action, field_changed, old_value, new_value, timestamp " +
+            "FROM inventory_history " +
+            "UNION ALL " +
+            "SELECT -id AS id, item_id, NULL AS user_id, 'UPDATED' AS action, " +
+            "CASE field WHEN 1 THEN 'quantity' WHEN 2 THEN 'price_cents' " +
+            "WHEN 3 THEN 'min_stock_level' END AS field_changed, " +
+            "CAST(old_value AS TEXT) AS old_value, CAST(old_value + delta AS TEXT) AS new_value, " +
+            "timestamp FROM inventory_history_compact)";
+
+    // READ raw (not rolled up) history for an item (newest first)
+    @Query("SELECT * FROM " + HISTORY_ALL + " WHERE item_id = :itemId ORDER BY timestamp DESC")
+    List<InventoryHistory> getRawHistoryForItem(long itemId);
+
+    /**
+     * All history for an item, newest first. Periods whose raw events were
+     * purged by HistoryRetention are returned as daily ROLLUP rows.
+     */
+    default List<InventoryHistory> getHistoryForItem(long itemId) {
+        return withRollups(getRawHistoryForItem(itemId), getRollupsForItem(itemId));
+    }
+
+    // READ text-encoded history rows only (CREATED and text field changes)
     @Query("SELECT * FROM inventory_history WHERE item_id = :itemId ORDER BY timestamp DESC")
-    List<InventoryHistory> getHistoryForItem(long itemId);
+    List<InventoryHistory> getTextHistoryForItem(long itemId);
+
+    // READ compact numeric change rows only (decode with CompactHistoryEvent.toHistory)
+    @Query("SELECT * FROM inventory_history_compact WHERE item_id = :itemId ORDER BY timestamp DESC")
+    List<CompactHistoryEvent> getCompactHistoryForItem(long itemId);
+
+    // KEYSET PAGES for an item's timeline (newest first), strictly older than
+    // (beforeTime, beforeId). Each reads index_*_item_id_timestamp in order and
+    // stops after limit rows. See HistoryPager.
+    @Query("SELECT * FROM inventory_history WHERE item_id = :itemId " +
+           "AND (timestamp < :beforeTime OR (timestamp = :beforeTime AND id < :beforeId)) " +
+           "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    List<InventoryHistory> getTextHistoryPage(long itemId, long beforeTime, long beforeId, int limit);
 
-    // READ all history by a user (newest first)
+    @Query("SELECT * FROM inventory_history_compact WHERE item_id = :itemId " +
+           "AND (timestamp < :beforeTime OR (timestamp = :beforeTime AND id < :beforeId)) " +
+           "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    List<CompactHistoryEvent> getCompactHistoryPage(long itemId, long beforeTime, long beforeId, int limit);
+
+    @Query("SELECT * FROM inventory_history_daily WHERE item_id = :itemId AND day < :beforeDay " +
+           "ORDER BY day DESC LIMIT :limit")
+    List<InventoryHistoryDaily> getRollupPage(long itemId, long beforeDay, int limit);
+
+    // READ all history by a user (newest first); compact rows carry no user
     @Query("SELECT * FROM inventory_history WHERE user_id = :userId ORDER BY timestamp DESC")
     List<InventoryHistory> getHistoryByUser(long userId);
 
     // READ recent history (all items, newest first, with limit)
-    @Query("SELECT * FROM inventory_history ORDER BY timestamp DESC LIMIT :limit")
+    @Query("SELECT * FROM " + HISTORY_ALL + " ORDER BY timestamp DESC LIMIT :limit")
     List<InventoryHistory> getRecentHistory(int limit);
 
     // READ history by action type
-    @Query("SELECT * FROM inventory_history WHERE action = :action ORDER BY timestamp DESC")
+    @Query("SELECT * FROM " + HISTORY_ALL + " WHERE action = :action ORDER BY timestamp DESC")
     List<InventoryHistory> getHistoryByAction(String action);
 
-    // READ history within time range
-    @Query("SELECT * FROM inventory_history WHERE timestamp BETWEEN :startTime AND :endTime ORDER BY timestamp DESC")
-    List<InventoryHistory> getHistoryInRange(long startTime, long endTime);
+    // READ raw history within time range
+    @Query("SELECT * FROM " + HISTORY_ALL + " WHERE timestamp BETWEEN :startTime AND :endTime " +
+           "ORDER BY timestamp DESC")
+    List<InventoryHistory> getRawHistoryInRange(long startTime, long endTime);
+
+    /**
+     * History within a time range, newest first, including daily ROLLUP rows
+     * for days in the range that have been rolled up.
+     */
+    default List<InventoryHistory> getHistoryInRange(long startTime, long endTime) {
+        return withRollups(getRawHistoryInRange(startTime, endTime),
+                getRollupsInRange(startTime, endTime));
+    }
 
     // COUNT total history entries for an item
-    @Query("SELECT COUNT(*) FROM inventory_history WHERE item_id = :itemId")
+    @Query("SELECT (SELECT COUNT(*) FROM inventory_history WHERE item_id = :itemId) + " +
+           "(SELECT COUNT(*) FROM inventory_history_compact WHERE item_id = :itemId)")
     int getHistoryCount(long itemId);
 
     // CREATE history entry
     @Insert
     long insert(InventoryHistory history);
 
-    // DELETE history for an item (used when item is deleted - CASCADE handles this, but manual option)
+    // CREATE many history entries in one transaction
+    @Insert
+    void insertAll(List<InventoryHistory> history);
+
+    // CREATE compact history entries (normally written by the audit trigger)
+    @Insert
+    void insertCompact(List<CompactHistoryEvent> events);
+
     @Query("DELETE FROM inventory_history WHERE item_id = :itemId")
-    int deleteHistoryForItem(long itemId);
+    int deleteTextHistoryForItem(long itemId);
+
+    @Query("DELETE FROM inventory_history_compact WHERE item_id = :itemId")
+    int deleteCompactHistoryForItem(long itemId);
+
+    // DELETE history for an item (used when item is deleted - CASCADE handles this, but manual option)
+    @Transaction
+    default int deleteHistoryForItem(long itemId) {
+        return deleteTextHistoryForItem(itemId) + deleteCompactHistoryForItem(itemId);
+    }
 
-    // DELETE old history (cleanup older than timestamp)
     @Query("DELETE FROM inventory_history WHERE timestamp < :beforeTime")
-    int deleteOldHistory(long beforeTime);
+    int deleteOldTextHistory(long beforeTime);
+
+    @Query("DELETE FROM inventory_history_compact WHERE timestamp < :beforeTime")
+    int deleteOldCompactHistory(long beforeTime);
+
+    // DELETE old history (cleanup older than timestamp)
+    @Transaction
+    default int deleteOldHistory(long beforeTime) {
+        return deleteOldTextHistory(beforeTime) + deleteOldCompactHistory(beforeTime);
+    }
+
+
+    // RETENTION AND DAILY ROLLUPS (see HistoryRetention)
+
+
+    // Action types present in the text history
+    @Query("SELECT DISTINCT action FROM inventory_history")
+    List<String> getActions();
+
+    // Oldest expired text event ids for one action, a chunk at a time
+    @Query("SELECT id FROM inventory_history WHERE action = :action AND timestamp < :beforeTime " +
+           "ORDER BY id LIMIT :limit")
+    List<Long> getExpiredIds(String action, long beforeTime, int limit);
+
+    @Query("DELETE FROM inventory_history WHERE id IN (:ids)")
+    int deleteByIds(List<Long> ids);
+
+    // Oldest expired compact event ids, a chunk at a time
+    @Query("SELECT id FROM inventory_history_compact WHERE timestamp < :beforeTime " +
+           "ORDER BY id LIMIT :limit")
+    List<Long> getExpiredCompactIds(long beforeTime, int limit);
+
+    // Daily quantity rollups of the given compact events (other fields are not rolled up)
+    @Query("SELECT item_id, timestamp / 86400000 AS day, " +
+           "SUM(delta) AS net_change, " +
+           "MIN(MIN(old_value, old_value + delta)) AS min_quantity, " +
+           "MAX(MAX(old_value, old_value + delta)) AS max_quantity, " +
+           "COUNT(*) AS event_count " +
+           "FROM inventory_history_compact WHERE id IN (:ids) AND field = 1 " +
+           "GROUP BY item_id, day")
+    List<InventoryHistoryDaily> rollUp(List<Long> ids);
+
+    @Query("SELECT * FROM inventory_history_daily WHERE item_id = :itemId AND day = :day")
+    InventoryHistoryDaily getDaily(long itemId, long day);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertDaily(InventoryHistoryDaily daily);
+
+    @Query("DELETE FROM inventory_history_compact WHERE id IN (:ids)")
+    int deleteCompactByIds(List<Long> ids);
+
+    /**
+     * Fold the given compact events into the daily rollups and delete them,
+     * in one short transaction.
+     *
+     * @return Number of events deleted
+     */
+    @Transaction
+    default int rollUpAndPurge(List<Long> ids) {
+        for (InventoryHistoryDaily rollup : rollUp(ids)) {
+            InventoryHistoryDaily existing = getDaily(rollup.getItemId(), rollup.getDay());
+            upsertDaily(existing == null ? rollup : existing.merge(rollup));
+        }
+        return deleteCompactByIds(ids);
+    }
+
+    @Query("SELECT * FROM inventory_history_daily WHERE item_id = :itemId ORDER BY day DESC")
+    List<InventoryHistoryDaily> getRollupsForItem(long itemId);
+
+    @Query("SELECT * FROM inventory_history_daily " +
+           "WHERE day BETWEEN :startTime / 86400000 AND :endTime / 86400000 ORDER BY day DESC")
+    List<InventoryHistoryDaily> getRollupsInRange(long startTime, long endTime);
+
+    /**
+     * Merge raw events and rollups (both newest first) into one list, newest first.
+     */
+    static List<InventoryHistory> withRollups(List<InventoryHistory> raw,
+                                              List<InventoryHistoryDaily> rollups) {
+        if (rollups.isEmpty()) {
+            return raw;
+        }
+        List<InventoryHistory> merged = new ArrayList<>(raw.size() + rollups.size());
+        int r = 0;
+        for (InventoryHistoryDaily daily : rollups) {
+            InventoryHistory rollup = daily.toHistory();
+            while (r < raw.size() && raw.get(r).getTimestamp() >= rollup.getTimestamp()) {
+                merged.add(raw.get(r++));
+            }
+            merged.add(rollup);
+        }
+        while (r < raw.size()) {
+            merged.add(raw.get(r++));
+        }
+        return merged;
+    }
 }
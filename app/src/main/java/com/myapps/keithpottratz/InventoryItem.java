@@ -37,10 +37,16 @@ import androidx.room.PrimaryKey;
         @Index(value = "category_id"),
         @Index(value = "supplier_id"),
         @Index(value = "location_id"),
-        @Index(value = "sku")
+        @Index(value = "sku"),
+        @Index(value = "updated_at"),  // Delta refresh reads rows changed since a watermark
+        @Index(value = "low_stock_deficit"),  // Low-stock queries range-scan deficit > 0
+        @Index(value = "stock_value_cents")  // Value-ordered queries read the index in order
     }
 )
-public class InventoryItem {
+public class InventoryItem implements InventoryRecord {
+    // min_stock_level of items created without one
+    static final int DEFAULT_MIN_STOCK_LEVEL = 10;
+
     @PrimaryKey(autoGenerate = true)
     private long id;
 
@@ -63,7 +69,9 @@ public class InventoryItem {
     private Long locationId;
 
     // NEW: Additional fields
-    private double price;
+    // Price in cents (fixed-point money, see Money)
+    @ColumnInfo(name = "price_cents")
+    private long priceCents;
 
     private String sku;
 
@@ -76,10 +84,24 @@ public class InventoryItem {
     @ColumnInfo(name = "updated_at")
     private long updatedAt;
 
+    // Stored min_stock_level - quantity (> 0 means low stock).
+    // Kept current by triggers for updates made in SQL (see InventoryTriggers).
+    @ColumnInfo(name = "low_stock_deficit")
+    private int lowStockDeficit;
+
+    // Stored quantity * price in cents, kept current the same way as lowStockDeficit
+    @ColumnInfo(name = "stock_value_cents")
+    private long stockValueCents;
+
+    // ABC class by stock value ("A", "B", "C"), null until the first classification.
+    // Set by AbcClassifier and by triggers, never from the UI.
+    @ColumnInfo(name = "abc_class")
+    private String abcClass;
+
     // Primary constructor for Room (all fields)
     public InventoryItem(long id, @NonNull String name, String description, int quantity,
                          Long categoryId, Long supplierId, Long locationId,
-                         double price, String sku, int minStockLevel,
+                         long priceCents, String sku, int minStockLevel,
                          long createdAt, long updatedAt) {
         this.id = id;
         this.name = name;
@@ -88,11 +110,13 @@ public class InventoryItem {
         this.categoryId = categoryId;
         this.supplierId = supplierId;
         this.locationId = locationId;
-        this.price = price;
+        this.priceCents = priceCents;
         this.sku = sku;
         this.minStockLevel = minStockLevel;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.lowStockDeficit = minStockLevel - quantity;
+        this.stockValueCents = quantity * priceCents;
     }
 
     // Convenience constructor for new items (basic fields only)
@@ -101,7 +125,9 @@ public class InventoryItem {
         this.name = name;
         this.description = description;
         this.quantity = quantity;
-        this.minStockLevel = 10;  // Default minimum stock level
+        this.minStockLevel = DEFAULT_MIN_STOCK_LEVEL;
+        this.lowStockDeficit = minStockLevel - quantity;
+        this.stockValueCents = quantity * priceCents;
         this.createdAt = System.currentTimeMillis();
         this.updatedAt = System.currentTimeMillis();
     }
@@ -110,27 +136,31 @@ public class InventoryItem {
     @Ignore
     public InventoryItem(@NonNull String name, String description, int quantity,
                          Long categoryId, Long supplierId, Long locationId,
-                         double price, String sku, int minStockLevel) {
+                         long priceCents, String sku, int minStockLevel) {
         this.name = name;
         this.description = description;
         this.quantity = quantity;
         this.categoryId = categoryId;
         this.supplierId = supplierId;
         this.locationId = locationId;
-        this.price = price;
+        this.priceCents = priceCents;
         this.sku = sku;
         this.minStockLevel = minStockLevel;
+        this.lowStockDeficit = minStockLevel - quantity;
+        this.stockValueCents = quantity * priceCents;
         this.createdAt = System.currentTimeMillis();
         this.updatedAt = System.currentTimeMillis();
     }
 
     // ==================== GETTERS ====================
 
+    @Override
     public long getId() {
         return id;
     }
 
     @NonNull
+    @Override
     public String getName() {
         return name;
     }
@@ -139,6 +169,7 @@ public class InventoryItem {
         return description;
     }
 
+    @Override
     public int getQuantity() {
         return quantity;
     }
@@ -155,18 +186,21 @@ public class InventoryItem {
         return locationId;
     }
 
-    public double getPrice() {
-        return price;
+    @Override
+    public long getPriceCents() {
+        return priceCents;
     }
 
     public String getSku() {
         return sku;
     }
 
+    @Override
     public int getMinStockLevel() {
         return minStockLevel;
     }
 
+    @Override
     public long getCreatedAt() {
         return createdAt;
     }
@@ -175,6 +209,18 @@ public class InventoryItem {
         return updatedAt;
     }
 
+    public int getLowStockDeficit() {
+        return lowStockDeficit;
+    }
+
+    public long getStockValueCents() {
+        return stockValueCents;
+    }
+
+    public String getAbcClass() {
+        return abcClass;
+    }
+
     // ==================== SETTERS ====================
 
     public void setId(long id) {
@@ -191,6 +237,8 @@ public class InventoryItem {
 
     public void setQuantity(int quantity) {
         this.quantity = quantity;
+        this.lowStockDeficit = minStockLevel - quantity;
+        this.stockValueCents = quantity * priceCents;
         this.updatedAt = System.currentTimeMillis();
     }
 
@@ -209,8 +257,9 @@ public class InventoryItem {
         this.updatedAt = System.currentTimeMillis();
     }
 
-    public void setPrice(double price) {
-        this.price = price;
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
+        this.stockValueCents = quantity * priceCents;
         this.updatedAt = System.currentTimeMillis();
     }
 
@@ -221,6 +270,7 @@ public class InventoryItem {
 
     public void setMinStockLevel(int minStockLevel) {
         this.minStockLevel = minStockLevel;
+        this.lowStockDeficit = minStockLevel - quantity;
         this.updatedAt = System.currentTimeMillis();
     }
 
@@ -232,13 +282,25 @@ public class InventoryItem {
         this.updatedAt = updatedAt;
     }
 
+    public void setLowStockDeficit(int lowStockDeficit) {
+        this.lowStockDeficit = lowStockDeficit;
+    }
+
+    public void setStockValueCents(long stockValueCents) {
+        this.stockValueCents = stockValueCents;
+    }
+
+    public void setAbcClass(String abcClass) {
+        this.abcClass = abcClass;
+    }
+
     // ==================== UTILITY METHODS ====================
 
     /**
-     * Calculate total value of this item (quantity * price)
+     * Calculate total value of this item in cents (quantity * price)
      */
-    public double getTotalValue() {
-        return quantity * price;
+    public long getTotalValueCents() {
+        return quantity * priceCents;
     }
 
     /**
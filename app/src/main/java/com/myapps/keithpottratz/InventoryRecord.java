@@ -0,0 +1,20 @@
+package com.myapps.keithpottratz;
+
+/**
+ * Common read-only view of an inventory row.
+ * Implemented by the full InventoryItem entity and the lightweight
+ * InventoryCard projection so sorting and alerts can work on either.
+ */
+public interface InventoryRecord {
+    long getId();
+
+    String getName();
+
+    int getQuantity();
+
+    long getPriceCents();
+
+    int getMinStockLevel();
+
+    long getCreatedAt();
+}
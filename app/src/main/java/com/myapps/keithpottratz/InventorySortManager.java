@@ -2,6 +2,7 @@ package com.myapps.keithpottratz;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -19,6 +20,9 @@ import java.util.List;
  * - CountingSort: O(n + k) for integer quantities, very fast
  * - InsertionSort: O(n^2) but efficient for small datasets (<50 items)
  *
+ * Works on any InventoryRecord, so both full InventoryItem entities and
+ * the lightweight InventoryCard rows used by the grid can be sorted.
+ *
  * @author Keith Pottratz
  * @version 1.0
  */
@@ -51,7 +55,7 @@ public class InventorySortManager {
      * @param items    List of inventory items to sort (modified in-place)
      * @param criteria The sorting criterion to use
      */
-    public static void sort(List<InventoryItem> items, SortCriteria criteria) {
+    public static <T extends InventoryRecord> void sort(List<T> items, SortCriteria criteria) {
         if (items == null || items.size() <= 1) {
             lastAlgorithmUsed = "None (trivial)";
             return;
@@ -85,6 +89,17 @@ public class InventorySortManager {
         quickSort(items, 0, items.size() - 1, criteria);
     }
 
+    /**
+     * Returns a comparator that orders records exactly like sort() does.
+     * Used to binary-search the sorted grid when merging incremental changes.
+     *
+     * @param criteria The sorting criterion to use
+     * @return Comparator consistent with the given criterion
+     */
+    public static Comparator<InventoryRecord> comparator(SortCriteria criteria) {
+        return (a, b) -> compare(a, b, criteria);
+    }
+
     /**
      * Gets the name of the algorithm used in the last sort operation.
      *
@@ -109,10 +124,10 @@ public class InventorySortManager {
      * @param high     End index of partition
      * @param criteria Sort criterion for comparisons
      */
-    private static void quickSort(List<InventoryItem> items,
-                                  int low,
-                                  int high,
-                                  SortCriteria criteria) {
+    private static <T extends InventoryRecord> void quickSort(List<T> items,
+                                                              int low,
+                                                              int high,
+                                                              SortCriteria criteria) {
         if (low < high) {
             // Partition and get pivot index
             int pivotIndex = partition(items, low, high, criteria);
@@ -133,13 +148,13 @@ public class InventorySortManager {
      * @param criteria Sort criterion
      * @return Final position of pivot element
      */
-    private static int partition(List<InventoryItem> items,
-                                 int low,
-                                 int high,
-                                 SortCriteria criteria) {
+    private static <T extends InventoryRecord> int partition(List<T> items,
+                                                             int low,
+                                                             int high,
+                                                             SortCriteria criteria) {
         // Choose middle element as pivot (avoids O(n^2) on sorted data)
         int middle = low + (high - low) / 2;
-        InventoryItem pivot = items.get(middle);
+        T pivot = items.get(middle);
 
         // Move pivot to end temporarily
         Collections.swap(items, middle, high);
@@ -174,7 +189,7 @@ public class InventorySortManager {
      * @param items    List to sort
      * @param criteria Sort criterion
      */
-    public static void mergeSort(List<InventoryItem> items, SortCriteria criteria) {
+    public static <T extends InventoryRecord> void mergeSort(List<T> items, SortCriteria criteria) {
         if (items == null || items.size() <= 1) {
             return;
         }
@@ -185,8 +200,8 @@ public class InventorySortManager {
     /**
      * Recursive MergeSort implementation.
      */
-    private static void mergeSortRecursive(List<InventoryItem> items,
-                                           SortCriteria criteria) {
+    private static <T extends InventoryRecord> void mergeSortRecursive(List<T> items,
+                                                                       SortCriteria criteria) {
         if (items.size() <= 1) {
             return;
         }
@@ -194,8 +209,8 @@ public class InventorySortManager {
         int mid = items.size() / 2;
 
         // Split into left and right halves
-        List<InventoryItem> left = new ArrayList<>(items.subList(0, mid));
-        List<InventoryItem> right = new ArrayList<>(items.subList(mid, items.size()));
+        List<T> left = new ArrayList<>(items.subList(0, mid));
+        List<T> right = new ArrayList<>(items.subList(mid, items.size()));
 
         // Recursively sort each half
         mergeSortRecursive(left, criteria);
@@ -213,10 +228,10 @@ public class InventorySortManager {
      * @param right    Right sorted half
      * @param criteria Sort criterion
      */
-    private static void merge(List<InventoryItem> result,
-                              List<InventoryItem> left,
-                              List<InventoryItem> right,
-                              SortCriteria criteria) {
+    private static <T extends InventoryRecord> void merge(List<T> result,
+                                                          List<T> left,
+                                                          List<T> right,
+                                                          SortCriteria criteria) {
         int i = 0, j = 0, k = 0;
 
         // Merge while both lists have elements
@@ -255,8 +270,8 @@ public class InventorySortManager {
      * @param items    List to sort
      * @param criteria Must be QUANTITY_ASC or QUANTITY_DESC
      */
-    private static void countingSort(List<InventoryItem> items,
-                                     SortCriteria criteria) {
+    private static <T extends InventoryRecord> void countingSort(List<T> items,
+                                                                 SortCriteria criteria) {
         if (items.isEmpty()) {
             return;
         }
@@ -265,13 +280,13 @@ public class InventorySortManager {
         int maxQuantity = findMaxQuantity(items);
 
         // Create buckets for each possible quantity value (0 to max)
-        List<List<InventoryItem>> buckets = new ArrayList<>(maxQuantity + 1);
+        List<List<T>> buckets = new ArrayList<>(maxQuantity + 1);
         for (int i = 0; i <= maxQuantity; i++) {
             buckets.add(new ArrayList<>());
         }
 
         // Place each item in its corresponding bucket
-        for (InventoryItem item : items) {
+        for (T item : items) {
             int quantity = item.getQuantity();
             // Handle negative quantities (shouldn't happen, but be safe)
             if (quantity < 0) {
@@ -299,9 +314,9 @@ public class InventorySortManager {
     /**
      * Find the maximum quantity in the item list.
      */
-    private static int findMaxQuantity(List<InventoryItem> items) {
+    private static int findMaxQuantity(List<? extends InventoryRecord> items) {
         int max = 0;
-        for (InventoryItem item : items) {
+        for (InventoryRecord item : items) {
             if (item.getQuantity() > max) {
                 max = item.getQuantity();
             }
@@ -324,10 +339,10 @@ public class InventorySortManager {
      * @param items    List to sort
      * @param criteria Sort criterion
      */
-    private static void insertionSort(List<InventoryItem> items,
-                                      SortCriteria criteria) {
+    private static <T extends InventoryRecord> void insertionSort(List<T> items,
+                                                                  SortCriteria criteria) {
         for (int i = 1; i < items.size(); i++) {
-            InventoryItem key = items.get(i);
+            T key = items.get(i);
             int j = i - 1;
 
             // Shift elements that are greater than key
@@ -354,8 +369,8 @@ public class InventorySortManager {
      * @param criteria Sort criterion determining comparison field
      * @return Negative if a < b, zero if equal, positive if a > b
      */
-    private static int compare(InventoryItem a,
-                               InventoryItem b,
+    private static int compare(InventoryRecord a,
+                               InventoryRecord b,
                                SortCriteria criteria) {
         int result;
 
@@ -375,7 +390,7 @@ public class InventorySortManager {
 
             case PRICE_ASC:
             case PRICE_DESC:
-                result = Double.compare(a.getPrice(), b.getPrice());
+                result = Long.compare(a.getPriceCents(), b.getPriceCents());
                 break;
 
             case DATE_ADDED_ASC:
@@ -415,9 +430,9 @@ public class InventorySortManager {
      * @param criteria  Sort criterion
      * @param algorithm Algorithm name: "quick", "merge", "counting", "insertion"
      */
-    public static void sortWithAlgorithm(List<InventoryItem> items,
-                                         SortCriteria criteria,
-                                         String algorithm) {
+    public static <T extends InventoryRecord> void sortWithAlgorithm(List<T> items,
+                                                                     SortCriteria criteria,
+                                                                     String algorithm) {
         if (items == null || items.size() <= 1) {
             return;
         }
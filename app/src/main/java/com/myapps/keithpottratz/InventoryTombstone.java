@@ -0,0 +1,41 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Record of a deleted inventory item, written by a SQLite trigger.
+ * Lets screens remove deleted rows incrementally instead of reloading everything.
+ */
+@Entity(tableName = "inventory_tombstones")
+public class InventoryTombstone {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @ColumnInfo(name = "item_id")
+    private long itemId;
+
+    @ColumnInfo(name = "deleted_at")
+    private long deletedAt;
+
+    // Constructor for Room (with ID)
+    public InventoryTombstone(long id, long itemId, long deletedAt) {
+        this.id = id;
+        this.itemId = itemId;
+        this.deletedAt = deletedAt;
+    }
+
+    // Getters
+    public long getId() {
+        return id;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    public long getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -0,0 +1,367 @@
+package com.myapps.keithpottratz;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQLite triggers that Room cannot declare through annotations.
+ *
+ * Triggers are (re)created every time the database opens, after Room has
+ * created or migrated the schema. Migrations that change a table a trigger
+ * depends on call drop() first so the new definition is picked up on open.
+ */
+final class InventoryTriggers {
+
+    // Current time in epoch milliseconds, matching System.currentTimeMillis()
+    static final String NOW_MILLIS =
+            "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+
+    // Every trigger name ever created, so drop() also removes retired ones
+    private static final String[] TRIGGER_NAMES = {
+            "inventory_tombstone_on_delete",
+            "stock_summary_on_insert",
+            "stock_summary_on_update",
+            "stock_summary_on_delete",
+            "low_stock_deficit_on_insert",
+            "low_stock_deficit_on_update",
+            "inventory_derived_on_insert",
+            "inventory_derived_on_update",
+            "inventory_audit_on_insert",
+            "inventory_audit_on_update",
+            "stock_series_on_insert",
+            "stock_series_on_update",
+            "stock_series_on_delete",
+            "inventory_abc_on_insert",
+            "inventory_abc_on_update",
+            "stock_checkpoints_on_delete"
+    };
+
+    private static final String[] AUDIT_TRIGGER_NAMES = {
+            "inventory_audit_on_insert",
+            "inventory_audit_on_update"
+    };
+
+    // User-editable text/nullable columns recorded in inventory_history when they change.
+    // Numeric HistoryField columns go to inventory_history_compact instead.
+    private static final String[] AUDITED_COLUMNS = {
+            "name", "description", "sku", "category_id", "supplier_id", "location_id"
+    };
+
+    private static final String COMPACT_INSERT =
+            "INSERT INTO `inventory_history_compact` (`item_id`, `field`, `old_value`, " +
+            "`delta`, `timestamp`) ";
+
+    private static final String HISTORY_INSERT =
+            "INSERT INTO `inventory_history` (`item_id`, `user_id`, `action`, " +
+            "`field_changed`, `old_value`, `new_value`, `timestamp`) ";
+
+    // True when a stored derived column no longer matches its inputs
+    private static final String DERIVED_STALE =
+            "NEW.`low_stock_deficit` IS NOT NEW.`min_stock_level` - NEW.`quantity` " +
+            "OR NEW.`stock_value_cents` IS NOT NEW.`quantity` * NEW.`price_cents`";
+
+    // Recompute the stored derived columns for the NEW row
+    private static final String DERIVED_UPDATE =
+            "UPDATE `inventory` SET " +
+            "`low_stock_deficit` = NEW.`min_stock_level` - NEW.`quantity`, " +
+            "`stock_value_cents` = NEW.`quantity` * NEW.`price_cents` " +
+            "WHERE `id` = NEW.`id`; ";
+
+    // Total quantity of a category after the triggering change: the stock_summary row
+    // the same trigger has just updated, a primary key lookup instead of a scan
+    private static final String CATEGORY_LEVEL =
+            "(SELECT `total_quantity` AS `level` FROM `stock_summary` WHERE `scope` = '" +
+            StockSummary.SCOPE_CATEGORY + "' AND `scope_id` = %s)";
+
+    // Quantity the NEW row adds to its category (OLD quantity already counted if it stayed)
+    private static final String CATEGORY_CHANGE =
+            "(NEW.`quantity` - CASE WHEN OLD.`category_id` IS NEW.`category_id` " +
+            "THEN OLD.`quantity` ELSE 0 END)";
+
+    // Move the NEW row to its ABC class under the stored cut points (see AbcClassifier)
+    private static final String ABC_UPDATE =
+            "UPDATE `inventory` SET `abc_class` = " + AbcThresholds.CLASS_OF_STOCK_VALUE + " " +
+            "WHERE `id` = NEW.`id` AND `abc_class` IS NOT " + AbcThresholds.CLASS_OF_STOCK_VALUE + "; ";
+
+    // stock_summary scopes and the inventory column that keys them (null = whole table)
+    private static final String[][] SUMMARY_SCOPES = {
+            {StockSummary.SCOPE_ALL, null},
+            {StockSummary.SCOPE_CATEGORY, "category_id"},
+            {StockSummary.SCOPE_SUPPLIER, "supplier_id"},
+            {StockSummary.SCOPE_LOCATION, "location_id"}
+    };
+
+    /**
+     * Private constructor - all methods are static.
+     */
+    private InventoryTriggers() {
+    }
+
+    /**
+     * Create all triggers that do not exist yet.
+     */
+    static void create(@NonNull SupportSQLiteDatabase database) {
+        // Record deleted item ids for incremental refresh
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `inventory_tombstone_on_delete` " +
+            "AFTER DELETE ON `inventory` BEGIN " +
+            "INSERT INTO `inventory_tombstones` (`item_id`, `deleted_at`) " +
+            "VALUES (OLD.`id`, " + NOW_MILLIS + "); " +
+            "END"
+        );
+
+        // Checkpoints outlive their item; mark when it went so as-of queries after
+        // that time leave it out (see StockCheckpointDao)
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `stock_checkpoints_on_delete` " +
+            "AFTER DELETE ON `inventory` BEGIN " +
+            "UPDATE `stock_checkpoints` SET `deleted_at` = " + NOW_MILLIS + " " +
+            "WHERE `item_id` = OLD.`id` AND `deleted_at` IS NULL; " +
+            "END"
+        );
+
+        // Keep the stored derived columns (low-stock deficit and stock value) in step
+        // with quantity, price and min_stock_level, including changes made in SQL
+        // (e.g. adjustQuantity)
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `inventory_derived_on_insert` " +
+            "AFTER INSERT ON `inventory` " +
+            "WHEN " + DERIVED_STALE + " BEGIN " +
+            DERIVED_UPDATE +
+            "END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `inventory_derived_on_update` " +
+            "AFTER UPDATE OF `quantity`, `price_cents`, `min_stock_level` ON `inventory` " +
+            "WHEN " + DERIVED_STALE + " BEGIN " +
+            DERIVED_UPDATE +
+            "END"
+        );
+
+        // Classify new and revalued items against the last ABC cut points. Also fires
+        // on stock_value_cents, so a value fixed by the derived triggers is reclassified.
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `inventory_abc_on_insert` " +
+            "AFTER INSERT ON `inventory` " +
+            "WHEN EXISTS (SELECT 1 FROM `abc_thresholds`) BEGIN " +
+            ABC_UPDATE +
+            "END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `inventory_abc_on_update` " +
+            "AFTER UPDATE OF `quantity`, `price_cents`, `stock_value_cents` ON `inventory` " +
+            "WHEN EXISTS (SELECT 1 FROM `abc_thresholds`) BEGIN " +
+            ABC_UPDATE +
+            "END"
+        );
+
+        createAudit(database);
+
+        // Keep stock_summary exact: add NEW rows, subtract OLD rows. The per-category
+        // stock level series is recorded here too, right after the CATEGORY totals it
+        // reads are updated (the order of separate triggers is not defined)
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `stock_summary_on_insert` " +
+            "AFTER INSERT ON `inventory` BEGIN " +
+            summaryDelta("NEW", "+") +
+            seriesUpdate(StockSeriesPoint.SCOPE_CATEGORY, "NEW.`category_id`",
+                    String.format(CATEGORY_LEVEL, "NEW.`category_id`"),
+                    "`level` - NEW.`quantity`", "`level`",
+                    "NEW.`category_id` IS NOT NULL") +
+            "END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `stock_summary_on_update` " +
+            "AFTER UPDATE OF `quantity`, `price_cents`, `min_stock_level`, " +
+            "`category_id`, `supplier_id`, `location_id` ON `inventory` BEGIN " +
+            summaryDelta("OLD", "-") +
+            summaryDelta("NEW", "+") +
+            // Category the item left
+            seriesUpdate(StockSeriesPoint.SCOPE_CATEGORY, "OLD.`category_id`",
+                    String.format(CATEGORY_LEVEL, "OLD.`category_id`"),
+                    "`level` + OLD.`quantity`", "`level`",
+                    "OLD.`category_id` IS NOT NULL AND OLD.`category_id` IS NOT NEW.`category_id`") +
+            // Category the item is in now
+            seriesUpdate(StockSeriesPoint.SCOPE_CATEGORY, "NEW.`category_id`",
+                    String.format(CATEGORY_LEVEL, "NEW.`category_id`"),
+                    "`level` - " + CATEGORY_CHANGE, "`level`",
+                    "NEW.`category_id` IS NOT NULL AND " + CATEGORY_CHANGE + " <> 0") +
+            "END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `stock_summary_on_delete` " +
+            "AFTER DELETE ON `inventory` BEGIN " +
+            summaryDelta("OLD", "-") +
+            seriesUpdate(StockSeriesPoint.SCOPE_CATEGORY, "OLD.`category_id`",
+                    String.format(CATEGORY_LEVEL, "OLD.`category_id`"),
+                    "`level` + OLD.`quantity`", "`level`",
+                    "OLD.`category_id` IS NOT NULL") +
+            "END"
+        );
+
+        // Per-item stock level series, one bucket per resolution
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `stock_series_on_insert` " +
+            "AFTER INSERT ON `inventory` BEGIN " +
+            seriesUpdate(StockSeriesPoint.SCOPE_ITEM, "NEW.`id`", null,
+                    "0", "NEW.`quantity`", "1") +
+            "END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `stock_series_on_update` " +
+            "AFTER UPDATE OF `quantity` ON `inventory` " +
+            "WHEN OLD.`quantity` IS NOT NEW.`quantity` BEGIN " +
+            seriesUpdate(StockSeriesPoint.SCOPE_ITEM, "NEW.`id`", null,
+                    "OLD.`quantity`", "NEW.`quantity`", "1") +
+            "END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `stock_series_on_delete` " +
+            "AFTER DELETE ON `inventory` BEGIN " +
+            "DELETE FROM `stock_series` WHERE `scope` = '" + StockSeriesPoint.SCOPE_ITEM + "' " +
+            "AND `scope_id` = OLD.`id`; " +
+            "END"
+        );
+    }
+
+    /**
+     * Create the triggers that write inventory_history for every insert and for
+     * each audited column an update actually changes, in the writer's transaction.
+     * Numeric fields (HistoryField) are written to inventory_history_compact.
+     * Deletes are not audited here: the history rows cascade away with the item,
+     * and inventory_tombstones already records the deletion.
+     */
+    static void createAudit(@NonNull SupportSQLiteDatabase database) {
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `inventory_audit_on_insert` " +
+            "AFTER INSERT ON `inventory` BEGIN " +
+            HISTORY_INSERT +
+            "VALUES (NEW.`id`, NULL, 'CREATED', NULL, NULL, NEW.`name`, " + NOW_MILLIS + "); " +
+            "END"
+        );
+
+        StringBuilder columns = new StringBuilder();
+        StringBuilder inserts = new StringBuilder();
+        for (String column : AUDITED_COLUMNS) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append('`').append(column).append('`');
+            inserts.append(HISTORY_INSERT)
+                   .append("SELECT NEW.`id`, NULL, 'UPDATED', '").append(column).append("', ")
+                   .append("OLD.`").append(column).append("`, NEW.`").append(column).append("`, ")
+                   .append(NOW_MILLIS).append(" ")
+                   .append("WHERE OLD.`").append(column).append("` IS NOT NEW.`").append(column).append("`; ");
+        }
+        for (HistoryField field : HistoryField.values()) {
+            String column = field.getColumn();
+            columns.append(", `").append(column).append('`');
+            inserts.append(COMPACT_INSERT)
+                   .append("SELECT NEW.`id`, ").append(field.getId()).append(", ")
+                   .append("OLD.`").append(column).append("`, NEW.`").append(column)
+                   .append("` - OLD.`").append(column).append("`, ")
+                   .append(NOW_MILLIS).append(" ")
+                   .append("WHERE OLD.`").append(column).append("` IS NOT NEW.`").append(column).append("`; ");
+        }
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `inventory_audit_on_update` " +
+            "AFTER UPDATE OF " + columns + " ON `inventory` BEGIN " +
+            inserts +
+            "END"
+        );
+    }
+
+    /**
+     * Drop only the audit triggers (StorageBenchmarkTest compares with and without them).
+     */
+    static void dropAudit(@NonNull SupportSQLiteDatabase database) {
+        for (String name : AUDIT_TRIGGER_NAMES) {
+            database.execSQL("DROP TRIGGER IF EXISTS `" + name + "`");
+        }
+    }
+
+    /**
+     * Build the trigger statements that add ("+") or subtract ("-") one
+     * inventory row (NEW or OLD) to every stock_summary scope it belongs to.
+     * Rows with a NULL category/supplier/location only count toward ALL.
+     */
+    private static String summaryDelta(String row, String sign) {
+        StringBuilder sql = new StringBuilder();
+        for (String[] scope : SUMMARY_SCOPES) {
+            String scopeId = scope[1] == null ? "0" : row + ".`" + scope[1] + "`";
+
+            // Make sure the row exists before adding to it
+            if ("+".equals(sign)) {
+                sql.append("INSERT OR IGNORE INTO `stock_summary` (`scope`, `scope_id`, `item_count`, ")
+                   .append("`total_quantity`, `total_value_cents`, `low_stock_count`, `out_of_stock_count`) ")
+                   .append("SELECT '").append(scope[0]).append("', ").append(scopeId)
+                   .append(", 0, 0, 0, 0, 0");
+                if (scope[1] != null) {
+                    sql.append(" WHERE ").append(scopeId).append(" IS NOT NULL");
+                }
+                sql.append("; ");
+            }
+
+            // scope_id = NULL matches nothing, so NULL keys are skipped here
+            sql.append("UPDATE `stock_summary` SET ")
+               .append("`item_count` = `item_count` ").append(sign).append(" 1, ")
+               .append("`total_quantity` = `total_quantity` ").append(sign).append(" ")
+               .append(row).append(".`quantity`, ")
+               .append("`total_value_cents` = `total_value_cents` ").append(sign).append(" ")
+               .append(row).append(".`quantity` * ").append(row).append(".`price_cents`, ")
+               .append("`low_stock_count` = `low_stock_count` ").append(sign).append(" (")
+               .append(row).append(".`quantity` < ").append(row).append(".`min_stock_level`), ")
+               .append("`out_of_stock_count` = `out_of_stock_count` ").append(sign).append(" (")
+               .append(row).append(".`quantity` = 0) ")
+               .append("WHERE `scope` = '").append(scope[0]).append("' AND `scope_id` = ")
+               .append(scopeId).append("; ");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Build the trigger statements that record one level change in the current
+     * bucket of every SeriesResolution: the first change in a bucket sets its
+     * open level, later ones widen the range and move the close.
+     *
+     * @param scopeId Expression for the item or category id
+     * @param from    Optional subquery the level expressions read from
+     * @param before  Level before the change
+     * @param after   Level after the change
+     * @param when    Condition for recording anything
+     */
+    private static String seriesUpdate(String scope, String scopeId, String from,
+                                       String before, String after, String when) {
+        StringBuilder sql = new StringBuilder();
+        for (SeriesResolution resolution : SeriesResolution.values()) {
+            // The WHERE clause is required: it keeps ON CONFLICT from parsing as a join constraint
+            sql.append("INSERT INTO `stock_series` (`scope`, `scope_id`, `resolution`, `bucket_start`, ")
+               .append("`open_quantity`, `min_quantity`, `max_quantity`, `close_quantity`, `change_count`) ")
+               .append("SELECT '").append(scope).append("', ").append(scopeId).append(", '")
+               .append(resolution.name()).append("', ").append(resolution.bucketStartSql(NOW_MILLIS))
+               .append(", ").append(before)
+               .append(", MIN(").append(before).append(", ").append(after).append(")")
+               .append(", MAX(").append(before).append(", ").append(after).append(")")
+               .append(", ").append(after).append(", 1 ");
+            if (from != null) {
+                sql.append("FROM ").append(from).append(" ");
+            }
+            sql.append("WHERE ").append(when).append(" ")
+               .append("ON CONFLICT (`scope`, `scope_id`, `resolution`, `bucket_start`) DO UPDATE SET ")
+               .append("`min_quantity` = MIN(`min_quantity`, excluded.`min_quantity`), ")
+               .append("`max_quantity` = MAX(`max_quantity`, excluded.`max_quantity`), ")
+               .append("`close_quantity` = excluded.`close_quantity`, ")
+               .append("`change_count` = `change_count` + 1; ");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Drop all triggers (used by migrations before altering their tables).
+     */
+    static void drop(@NonNull SupportSQLiteDatabase database) {
+        for (String name : TRIGGER_NAMES) {
+            database.execSQL("DROP TRIGGER IF EXISTS `" + name + "`");
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.myapps.keithpottratz;
 
 import android.os.Bundle;
+import android.text.format.DateFormat;
+import android.view.View;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.room.Room;
 
 import com.google.android.material.button.MaterialButton;
@@ -62,6 +66,23 @@ public class ItemDetailActivity extends AppCompatActivity {
         tvDesc.setText(item.getDescription());
         refreshQtyViews();
 
+        // History timeline (pages load on demand)
+        LinearLayout historyList = findViewById(R.id.historyList);
+        MaterialButton btnMoreHistory = findViewById(R.id.loadMoreHistory);
+        ItemTimelineViewModel timeline = new ViewModelProvider(this).get(ItemTimelineViewModel.class);
+        timeline.start(db, id);
+        timeline.getEntries().observe(this, entries -> {
+            // Entries only grow, so append the rows we have not shown yet
+            for (int i = historyList.getChildCount(); i < entries.size(); i++) {
+                TextView row = new TextView(this);
+                row.setText(formatHistory(entries.get(i)));
+                historyList.addView(row);
+            }
+        });
+        timeline.getHasMore().observe(this, more ->
+                btnMoreHistory.setVisibility(more ? View.VISIBLE : View.GONE));
+        btnMoreHistory.setOnClickListener(v -> timeline.loadMore());
+
         // Back label
         TextView back = findViewById(R.id.backLabel);
         back.setOnClickListener(v -> finish());
@@ -77,15 +98,19 @@ public class ItemDetailActivity extends AppCompatActivity {
             refreshQtyViews();
         });
 
-        // Save
+        // Save (apply the difference atomically instead of rewriting the row)
         btnSave.setOnClickListener(v -> {
-            item.setQuantity(quantity);
-            int changed = dao.update(item);
-            if(changed >0){
+            int delta = quantity - item.getQuantity();
+            if (delta == 0) {
+                Toast.makeText(this,"Nothing to Update", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            int newQuantity = dao.adjustQuantity(item.getId(), delta);
+            if(newQuantity >= 0){
                 setResult(RESULT_OK);
                 finish();
             }else {
-                Toast.makeText(this,"Nothing to Update", Toast.LENGTH_SHORT).show();
+                Toast.makeText(this,"Item not found", Toast.LENGTH_SHORT).show();
             }
         });
 
@@ -101,6 +126,21 @@ public class ItemDetailActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * One line per history entry, e.g. "Mar 3, 14:05  quantity 12 -> 13".
+     */
+    private String formatHistory(InventoryHistory entry) {
+        String when = DateFormat.format("MMM d, HH:mm", entry.getTimestamp()).toString();
+        if (InventoryHistoryDaily.ACTION_ROLLUP.equals(entry.getAction())) {
+            return when + "  quantity range " + entry.getOldValue() + " - " + entry.getNewValue();
+        }
+        if (entry.getFieldChanged() == null) {
+            return when + "  " + entry.getAction();
+        }
+        return when + "  " + entry.getFieldChanged() + " "
+                + entry.getOldValue() + " -> " + entry.getNewValue();
+    }
+
     private void refreshQtyViews() {
         tvQty.setText("Qty: " + quantity);
         tvCurrentQty.setText(String.valueOf(quantity));
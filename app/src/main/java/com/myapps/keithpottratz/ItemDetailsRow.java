@@ -0,0 +1,52 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.Embedded;
+
+/**
+ * POJO class for inventory item with category, supplier, and location
+ * fetched by a single LEFT JOIN query.
+ * Flattened alternative to ItemWithDetails, which needs one extra query per relation.
+ */
+public class ItemDetailsRow {
+
+    // Shared SELECT ... FROM ... LEFT JOIN clause for the flattened detail queries
+    static final String SELECT_FROM =
+            "SELECT i.*, " +
+            "c.id AS cat_id, c.name AS cat_name, c.description AS cat_description, " +
+            "c.color_code AS cat_color_code, c.created_at AS cat_created_at, " +
+            "s.id AS sup_id, s.name AS sup_name, s.contact_person AS sup_contact_person, " +
+            "s.email AS sup_email, s.phone AS sup_phone, s.address AS sup_address, " +
+            "s.created_at AS sup_created_at, s.lead_time_days AS sup_lead_time_days, " +
+            "l.id AS loc_id, l.name AS loc_name, l.building AS loc_building, " +
+            "l.zone AS loc_zone, l.aisle AS loc_aisle, l.shelf AS loc_shelf, " +
+            "l.created_at AS loc_created_at " +
+            "FROM inventory i " +
+            "LEFT JOIN categories c ON i.category_id = c.id " +
+            "LEFT JOIN suppliers s ON i.supplier_id = s.id " +
+            "LEFT JOIN locations l ON i.location_id = l.id ";
+
+    @Embedded
+    public InventoryItem item;
+
+    // Null when the item has no category (all cat_ columns are NULL)
+    @Embedded(prefix = "cat_")
+    public Category category;
+
+    @Embedded(prefix = "sup_")
+    public Supplier supplier;
+
+    @Embedded(prefix = "loc_")
+    public Location location;
+
+    /**
+     * Convert to the @Relation based ItemWithDetails shape for existing callers.
+     */
+    public ItemWithDetails toItemWithDetails() {
+        ItemWithDetails details = new ItemWithDetails();
+        details.item = item;
+        details.category = category;
+        details.supplier = supplier;
+        details.location = location;
+        return details;
+    }
+}
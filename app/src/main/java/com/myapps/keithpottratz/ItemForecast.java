@@ -0,0 +1,157 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * Consumption forecast state of one item, maintained by ConsumptionForecaster.
+ *
+ * Quantity decreases are summed per UTC day; each closed day updates an
+ * exponentially weighted mean and variance of daily demand. The day still
+ * open (open_day) is folded in only when reorder points are computed, so the
+ * stored averages never count a day twice.
+ */
+@Entity(
+    tableName = "item_forecasts",
+    foreignKeys = {
+        @ForeignKey(
+            entity = InventoryItem.class,
+            parentColumns = "id",
+            childColumns = "item_id",
+            onDelete = ForeignKey.CASCADE
+        )
+    }
+)
+public class ItemForecast {
+    @PrimaryKey
+    @ColumnInfo(name = "item_id")
+    private long itemId;
+
+    // Weighted mean units consumed per day over closed days (not bias-corrected)
+    @ColumnInfo(name = "consumption_rate")
+    private double consumptionRate;
+
+    @ColumnInfo(name = "demand_variance")
+    private double demandVariance;
+
+    // Closed days folded into the averages, capped (see ConsumptionForecaster)
+    @ColumnInfo(name = "observed_days")
+    private int observedDays;
+
+    // Epoch day still collecting consumption, and the units consumed in it so far
+    @ColumnInfo(name = "open_day")
+    private long openDay;
+
+    @ColumnInfo(name = "open_day_quantity")
+    private long openDayQuantity;
+
+    // Newest inventory_history_compact id applied to this item
+    @ColumnInfo(name = "last_event_id")
+    private long lastEventId;
+
+    @ColumnInfo(name = "reorder_point")
+    private int reorderPoint;
+
+    // Stock level a reorder should bring the item back up to
+    @ColumnInfo(name = "order_up_to")
+    private int orderUpTo;
+
+    @ColumnInfo(name = "updated_at")
+    private long updatedAt;
+
+    // Constructor for Room (all fields)
+    public ItemForecast(long itemId, double consumptionRate, double demandVariance, int observedDays,
+                        long openDay, long openDayQuantity, long lastEventId,
+                        int reorderPoint, int orderUpTo, long updatedAt) {
+        this.itemId = itemId;
+        this.consumptionRate = consumptionRate;
+        this.demandVariance = demandVariance;
+        this.observedDays = observedDays;
+        this.openDay = openDay;
+        this.openDayQuantity = openDayQuantity;
+        this.lastEventId = lastEventId;
+        this.reorderPoint = reorderPoint;
+        this.orderUpTo = orderUpTo;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters
+    public long getItemId() {
+        return itemId;
+    }
+
+    public double getConsumptionRate() {
+        return consumptionRate;
+    }
+
+    public double getDemandVariance() {
+        return demandVariance;
+    }
+
+    public int getObservedDays() {
+        return observedDays;
+    }
+
+    public long getOpenDay() {
+        return openDay;
+    }
+
+    public long getOpenDayQuantity() {
+        return openDayQuantity;
+    }
+
+    public long getLastEventId() {
+        return lastEventId;
+    }
+
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public int getOrderUpTo() {
+        return orderUpTo;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    // Setters
+    public void setConsumptionRate(double consumptionRate) {
+        this.consumptionRate = consumptionRate;
+    }
+
+    public void setDemandVariance(double demandVariance) {
+        this.demandVariance = demandVariance;
+    }
+
+    public void setObservedDays(int observedDays) {
+        this.observedDays = observedDays;
+    }
+
+    public void setOpenDay(long openDay) {
+        this.openDay = openDay;
+    }
+
+    public void setOpenDayQuantity(long openDayQuantity) {
+        this.openDayQuantity = openDayQuantity;
+    }
+
+    public void setLastEventId(long lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+
+    public void setReorderPoint(int reorderPoint) {
+        this.reorderPoint = reorderPoint;
+    }
+
+    public void setOrderUpTo(int orderUpTo) {
+        this.orderUpTo = orderUpTo;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
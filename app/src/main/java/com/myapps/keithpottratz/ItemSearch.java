@@ -0,0 +1,66 @@
+package com.myapps.keithpottratz;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Name/description search for the inventory grid.
+ *
+ * Queries are matched literally: '%', '_' and '\' in the query are escaped
+ * for the LIKE ... ESCAPE '\' searches in InventoryDao. SQLite's LIKE only
+ * folds ASCII letters, so a query with other characters is matched here with
+ * toLowerCase() instead, as the in-memory search did before it moved to the
+ * database. Call from a background thread.
+ */
+public final class ItemSearch {
+
+    static final char LIKE_ESCAPE = '\\';
+
+    private ItemSearch() {
+    }
+
+    /**
+     * Ids of the items whose name or description contains the query, ignoring case.
+     */
+    public static List<Long> matchingIds(InventoryDao dao, String query) {
+        if (isAscii(query)) {
+            return dao.searchIdsByNameOrDescription(escapeLike(query));
+        }
+        String folded = query.toLowerCase();
+        List<Long> ids = new ArrayList<>();
+        for (ItemText item : dao.getAllItemText()) {
+            if (containsFolded(item.name, folded) || containsFolded(item.description, folded)) {
+                ids.add(item.id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * The text with LIKE wildcards and the escape character escaped.
+     */
+    static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsFolded(String text, String folded) {
+        return text != null && text.toLowerCase().contains(folded);
+    }
+}
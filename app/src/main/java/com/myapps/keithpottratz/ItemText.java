@@ -0,0 +1,17 @@
+package com.myapps.keithpottratz;
+
+/**
+ * POJO class for the searchable text of an item.
+ * Used by ItemSearch when a query needs case folding SQLite cannot do.
+ */
+public class ItemText {
+    public long id;
+    public String name;
+    public String description;
+
+    public ItemText(long id, String name, String description) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+    }
+}
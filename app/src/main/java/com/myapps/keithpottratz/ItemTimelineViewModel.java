@@ -0,0 +1,87 @@
+package com.myapps.keithpottratz;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Item history timeline for ItemDetailActivity, loaded one keyset page at a
+ * time (see HistoryPager) instead of reading an item's whole history.
+ *
+ * Survives rotation, so pages already loaded are not read again.
+ */
+public class ItemTimelineViewModel extends ViewModel {
+
+    static final int PAGE_SIZE = 50;
+
+    private static final String TAG = "ItemTimelineViewModel";
+
+    private final MutableLiveData<List<InventoryHistory>> entries =
+            new MutableLiveData<>(Collections.emptyList());
+    private final MutableLiveData<Boolean> hasMore = new MutableLiveData<>(true);
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<InventoryHistory> loaded = new ArrayList<>();   // Touched by one load at a time
+
+    private AppDatabase db;
+    private HistoryPager pager;
+    private boolean loading = false;    // Main thread only
+
+    /**
+     * Bind to an item and load the first page. Later calls are ignored.
+     */
+    public void start(AppDatabase db, long itemId) {
+        if (pager != null) {
+            return;
+        }
+        this.db = db;
+        this.pager = new HistoryPager(db.inventoryHistoryDao(), itemId);
+        loadMore();
+    }
+
+    /**
+     * Everything loaded so far, newest first.
+     */
+    public LiveData<List<InventoryHistory>> getEntries() {
+        return entries;
+    }
+
+    public LiveData<Boolean> getHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Load the next page on the query executor and append it. Call from the main thread.
+     * A page that fails to load is logged and can be requested again.
+     */
+    public void loadMore() {
+        if (loading || pager == null || pager.isExhausted()) {
+            return;
+        }
+        loading = true;
+        db.getQueryExecutor().execute(() -> {
+            try {
+                loaded.addAll(pager.next(PAGE_SIZE));
+                List<InventoryHistory> snapshot = new ArrayList<>(loaded);
+                boolean more = !pager.isExhausted();
+
+                mainHandler.post(() -> {
+                    entries.setValue(snapshot);
+                    hasMore.setValue(more);
+                });
+            } catch (RuntimeException e) {
+                Log.w(TAG, "History page failed to load", e);
+            } finally {
+                mainHandler.post(() -> loading = false);
+            }
+        });
+    }
+}
@@ -27,8 +27,8 @@ public interface LocationDao {
     @Query("SELECT * FROM locations WHERE building = :building ORDER BY zone, aisle, shelf")
     List<Location> getByBuilding(String building);
 
-    // SEARCH locations by name pattern
-    @Query("SELECT * FROM locations WHERE name LIKE '%' || :search || '%' ORDER BY name ASC")
+    // SEARCH locations by name pattern (escape the text with ItemSearch.escapeLike())
+    @Query("SELECT * FROM locations WHERE name LIKE '%' || :search || '%' ESCAPE '\\' ORDER BY name ASC")
     List<Location> searchByName(String search);
 
     // COUNT items at a location
@@ -13,9 +13,11 @@ public class LowStockItem {
     public String supplierName;
     public String supplierEmail;
     public String supplierPhone;
+    public int suggestedOrder;  // Units to order (up to the forecast level, else to the minimum)
 
     public LowStockItem(long itemId, String itemName, int quantity, int minStockLevel,
-                        int deficit, String supplierName, String supplierEmail, String supplierPhone) {
+                        int deficit, String supplierName, String supplierEmail, String supplierPhone,
+                        int suggestedOrder) {
         this.itemId = itemId;
         this.itemName = itemName;
         this.quantity = quantity;
@@ -24,5 +26,6 @@ public class LowStockItem {
         this.supplierName = supplierName;
         this.supplierEmail = supplierEmail;
         this.supplierPhone = supplierPhone;
+        this.suggestedOrder = suggestedOrder;
     }
 }
@@ -0,0 +1,51 @@
+package com.myapps.keithpottratz;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * Fixed-point money helpers.
+ * Prices and valuations are stored as long minor units (cents), so sums are
+ * exact and comparisons are plain long comparisons.
+ */
+public final class Money {
+
+    private static final int CENTS_PER_UNIT = 100;
+
+    /**
+     * Private constructor - all methods are static.
+     */
+    private Money() {
+    }
+
+    /**
+     * Parse user input such as "12", "12.5" or "12.345" into cents
+     * (rounded half-up to the nearest cent).
+     *
+     * @throws NumberFormatException if the text is not a number or is out of range
+     */
+    public static long parseCents(String text) {
+        try {
+            return new BigDecimal(text.trim())
+                    .setScale(2, RoundingMode.HALF_UP)
+                    .movePointRight(2)
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /**
+     * Format cents as US currency (e.g. 123456 -> "$1,234.56") without
+     * going through floating point.
+     */
+    public static String format(long cents) {
+        String sign = cents < 0 ? "-" : "";
+        // Take the sign off after dividing: Math.abs(Long.MIN_VALUE) overflows
+        long units = Math.abs(cents / CENTS_PER_UNIT);
+        long fraction = Math.abs(cents % CENTS_PER_UNIT);
+        return sign + "$" + String.format(Locale.US, "%,d", units)
+                + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,504 @@
+package com.myapps.keithpottratz;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.database.Cursor;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Per-statement query latency metrics and slow-query log.
+ *
+ * When enabled (see isEnabled()), every DAO handed out by AppDatabase is
+ * wrapped in a proxy that marks the start and end of each call. Room's
+ * QueryCallback reports each statement just before it runs, so a statement is
+ * timed from its report to the next report on the thread or the end of the
+ * call. Each statement's time goes into a latency histogram keyed by its SQL
+ * (IN lists collapsed), together with the DAO methods that ran it, the rows
+ * returned and whether it ran on the main thread. Transaction control (BEGIN,
+ * END, Room's TRANSACTION SUCCESSFUL) only ends the previous statement's timing.
+ *
+ * A call that exceeds the slow threshold is logged with its slowest
+ * statement, whose EXPLAIN QUERY PLAN is captured in the background.
+ *
+ * Exposed through DiagnosticsActivity and toJson().
+ */
+public final class QueryMetrics {
+
+    private static final String TAG = "QueryMetrics";
+
+    // Histogram bucket upper bounds in milliseconds; the last bucket is open-ended
+    static final long[] BUCKET_BOUNDS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+
+    // Slow-query entries kept in memory (oldest dropped first)
+    private static final int SLOW_LOG_CAPACITY = 50;
+
+    // Diagnostics preference; read when the database is first opened
+    static final String PREF_ENABLED = "query_metrics_enabled";
+
+    private static final Pattern IN_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    private static final QueryMetrics INSTANCE = new QueryMetrics();
+
+    /**
+     * Aggregated stats for one SQL statement.
+     */
+    public static final class StatementStats {
+        public final String key;        // SQL with IN lists collapsed to "?..."
+        public final Set<String> methods = new TreeSet<>();    // DAO methods that ran it
+        public long calls;
+        public long mainThreadCalls;
+        public long rows;
+        public long totalNanos;
+        public long maxNanos;
+        public final long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+
+        StatementStats(String key) {
+            this.key = key;
+        }
+
+        StatementStats copy() {
+            StatementStats copy = new StatementStats(key);
+            copy.methods.addAll(methods);
+            copy.calls = calls;
+            copy.mainThreadCalls = mainThreadCalls;
+            copy.rows = rows;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            System.arraycopy(buckets, 0, copy.buckets, 0, buckets.length);
+            return copy;
+        }
+
+        public double averageMillis() {
+            return calls == 0 ? 0 : totalNanos / 1e6 / calls;
+        }
+    }
+
+    /**
+     * One call that exceeded the slow threshold, with its slowest statement.
+     */
+    public static final class SlowQuery {
+        public final String key;        // DAO method
+        public final String sql;        // Slowest statement, null if Room reported none
+        public final List<Object> bindArgs;
+        public final double millis;     // Whole call
+        public final double statementMillis;
+        public final int statements;    // Statements the call ran
+        public final boolean mainThread;
+        public final long timestamp;
+        public volatile String plan;     // Filled in once EXPLAIN QUERY PLAN has run
+
+        SlowQuery(String key, Statement slowest, double millis, int statements, boolean mainThread) {
+            this.key = key;
+            this.sql = slowest != null ? slowest.sql : null;
+            this.bindArgs = slowest != null ? slowest.bindArgs : new ArrayList<>();
+            this.millis = millis;
+            this.statementMillis = slowest != null ? slowest.nanos / 1e6 : 0;
+            this.statements = statements;
+            this.mainThread = mainThread;
+            this.timestamp = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * A statement Room reported during a DAO call, timed until the next one.
+     */
+    private static final class Statement {
+        final String sql;
+        final List<Object> bindArgs;
+        final long startNanos;
+        long nanos;
+
+        Statement(String sql, List<Object> bindArgs, long startNanos) {
+            this.sql = sql;
+            this.bindArgs = bindArgs;
+            this.startNanos = startNanos;
+        }
+    }
+
+    /**
+     * The DAO call running on a thread and the statements it has run so far.
+     */
+    private static final class Call {
+        final List<Statement> statements = new ArrayList<>();
+        Statement running;
+
+        void finishRunning(long now) {
+            if (running != null) {
+                running.nanos = now - running.startNanos;
+                running = null;
+            }
+        }
+    }
+
+    private final Map<String, StatementStats> stats = new TreeMap<>();
+    private final Deque<SlowQuery> slowLog = new ArrayDeque<>();
+    private final ThreadLocal<Call> currentCall = new ThreadLocal<>();
+    private volatile long slowThresholdMs = 50;
+    private volatile AppDatabase database;
+
+    public static QueryMetrics get() {
+        return INSTANCE;
+    }
+
+    private QueryMetrics() {
+    }
+
+    /**
+     * Whether the app database should be instrumented: always in debuggable
+     * builds, otherwise only when turned on in DiagnosticsActivity. The proxy
+     * and the query callback cost time on every DAO call, so release builds
+     * run without them by default.
+     */
+    static boolean isEnabled(Context context) {
+        return isDebuggable(context)
+                || context.getSharedPreferences("prefs", Context.MODE_PRIVATE).getBoolean(PREF_ENABLED, false);
+    }
+
+    static boolean isDebuggable(Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    /**
+     * Whether the app database is instrumented (it was opened with metrics on).
+     */
+    public boolean isRecording() {
+        return database != null;
+    }
+
+    /**
+     * Set the latency above which a call is logged with its SQL and plan.
+     */
+    public void setSlowThresholdMs(long thresholdMs) {
+        this.slowThresholdMs = thresholdMs;
+    }
+
+    public long getSlowThresholdMs() {
+        return slowThresholdMs;
+    }
+
+    /**
+     * Database used to run EXPLAIN QUERY PLAN for slow statements.
+     */
+    void attach(AppDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Room QueryCallback, called just before a statement runs: ends the timing
+     * of the previous statement of the DAO call on this thread and starts this
+     * one. Registered with a direct executor so it runs on the querying thread.
+     * Statements outside a DAO call (Room's own bookkeeping, our plan lookups)
+     * are not recorded.
+     */
+    void onStatement(String sql, List<Object> bindArgs) {
+        Call call = currentCall.get();
+        if (call == null) {
+            return;
+        }
+        call.finishRunning(System.nanoTime());
+        if (isTransactionControl(sql)) {
+            return;
+        }
+        Statement statement = new Statement(sql, new ArrayList<>(bindArgs), System.nanoTime());
+        call.statements.add(statement);
+        call.running = statement;
+    }
+
+    private static boolean isTransactionControl(String sql) {
+        String s = sql.trim();
+        return s.regionMatches(true, 0, "BEGIN", 0, 5)
+                || s.regionMatches(true, 0, "END", 0, 3)
+                || s.regionMatches(true, 0, "COMMIT", 0, 6)
+                || s.regionMatches(true, 0, "ROLLBACK", 0, 8)
+                || s.regionMatches(true, 0, "TRANSACTION", 0, 11);    // Room's "TRANSACTION SUCCESSFUL"
+    }
+
+    /**
+     * Wrap a Room DAO so the statements of each method call are timed.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T instrument(Class<T> daoClass, T dao) {
+        String prefix = daoClass.getSimpleName() + ".";
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(dao, args);
+            }
+            Call outer = currentCall.get();
+            if (outer != null) {
+                return invoke(dao, method, args);   // Nested call: its statements belong to the outer one
+            }
+            Call call = new Call();
+            currentCall.set(call);
+            long start = System.nanoTime();
+            long rows = 0;
+            try {
+                Object result = invoke(dao, method, args);
+                rows = rowCount(result);
+                return result;
+            } finally {
+                long end = System.nanoTime();
+                call.finishRunning(end);
+                currentCall.remove();
+                record(prefix + method.getName(), call.statements, end - start, rows);
+            }
+        };
+        return (T) Proxy.newProxyInstance(daoClass.getClassLoader(), new Class<?>[]{daoClass}, handler);
+    }
+
+    private static Object invoke(Object dao, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(dao, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Rows returned by a call: list/map/array size, otherwise one for a non-null result.
+     */
+    private static long rowCount(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof long[]) {
+            return ((long[]) result).length;
+        }
+        return result == null ? 0 : 1;
+    }
+
+    /**
+     * Add a finished call's statements to their histograms; the returned rows
+     * count towards the last SELECT. Log the call with its slowest statement
+     * when the whole call took longer than the threshold.
+     */
+    private void record(String method, List<Statement> statements, long callNanos, long rows) {
+        boolean mainThread = Looper.getMainLooper().isCurrentThread();
+        Statement lastSelect = null;
+        Statement slowest = null;
+        for (Statement statement : statements) {
+            if (isQuery(statement.sql)) {
+                lastSelect = statement;
+            }
+            if (slowest == null || statement.nanos > slowest.nanos) {
+                slowest = statement;
+            }
+        }
+        synchronized (this) {
+            for (Statement statement : statements) {
+                String key = IN_LIST.matcher(statement.sql.trim()).replaceAll("?...");
+                StatementStats s = stats.get(key);
+                if (s == null) {
+                    s = new StatementStats(key);
+                    stats.put(key, s);
+                }
+                s.methods.add(method);
+                s.calls++;
+                if (mainThread) {
+                    s.mainThreadCalls++;
+                }
+                if (statement == lastSelect) {
+                    s.rows += Math.max(rows, 0);
+                }
+                s.totalNanos += statement.nanos;
+                s.maxNanos = Math.max(s.maxNanos, statement.nanos);
+                s.buckets[bucketFor(statement.nanos)]++;
+            }
+        }
+
+        double millis = callNanos / 1e6;
+        if (millis >= slowThresholdMs) {
+            SlowQuery slow = new SlowQuery(method, slowest, millis, statements.size(), mainThread);
+            synchronized (this) {
+                if (slowLog.size() == SLOW_LOG_CAPACITY) {
+                    slowLog.removeFirst();
+                }
+                slowLog.addLast(slow);
+            }
+            Log.w(TAG, String.format("Slow query %s: %.1f ms%s, slowest of %d statements %.1f ms: %s %s",
+                    method, millis, mainThread ? " (main thread)" : "", slow.statements,
+                    slow.statementMillis, slow.sql, slow.bindArgs));
+            explainLater(slow);
+        }
+    }
+
+    // SELECT or a WITH ... SELECT
+    private static boolean isQuery(String sql) {
+        String s = sql.trim();
+        return s.regionMatches(true, 0, "SELECT", 0, 6) || s.regionMatches(true, 0, "WITH", 0, 4);
+    }
+
+    static int bucketFor(long nanos) {
+        long millis = nanos / 1_000_000;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (millis < BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    /**
+     * Capture the plan for a slow SELECT off the calling thread.
+     */
+    private void explainLater(SlowQuery slow) {
+        AppDatabase db = database;
+        if (db == null || slow.sql == null || !isQuery(slow.sql)) {
+            return;
+        }
+        db.getQueryExecutor().execute(() -> {
+            StringBuilder plan = new StringBuilder();
+            try (Cursor cursor = db.query(new SimpleSQLiteQuery(
+                    "EXPLAIN QUERY PLAN " + slow.sql, slow.bindArgs.toArray()))) {
+                int detail = cursor.getColumnIndex("detail");
+                while (cursor.moveToNext()) {
+                    if (plan.length() > 0) {
+                        plan.append('\n');
+                    }
+                    plan.append(cursor.getString(detail));
+                }
+            } catch (RuntimeException e) {
+                plan.append("unavailable: ").append(e.getMessage());
+            }
+            slow.plan = plan.toString();
+        });
+    }
+
+    /**
+     * Snapshot of all statement stats, slowest average first.
+     */
+    public synchronized List<StatementStats> getStats() {
+        List<StatementStats> copy = new ArrayList<>();
+        for (StatementStats s : stats.values()) {
+            copy.add(s.copy());
+        }
+        copy.sort((a, b) -> Double.compare(b.averageMillis(), a.averageMillis()));
+        return copy;
+    }
+
+    /**
+     * Slow calls, most recent first.
+     */
+    public synchronized List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> copy = new ArrayList<>(slowLog);
+        Collections.reverse(copy);
+        return copy;
+    }
+
+    public synchronized void reset() {
+        stats.clear();
+        slowLog.clear();
+    }
+
+    /**
+     * Machine-readable dump of everything collected so far.
+     */
+    public JSONObject toJson() throws JSONException {
+        JSONObject root = new JSONObject();
+        root.put("generatedAt", System.currentTimeMillis());
+        root.put("slowThresholdMs", slowThresholdMs);
+
+        JSONArray bounds = new JSONArray();
+        for (long bound : BUCKET_BOUNDS_MS) {
+            bounds.put(bound);
+        }
+        root.put("bucketUpperBoundsMs", bounds);
+
+        JSONArray statements = new JSONArray();
+        for (StatementStats s : getStats()) {
+            JSONObject m = new JSONObject();
+            m.put("sql", s.key);
+            m.put("methods", new JSONArray(s.methods));
+            m.put("calls", s.calls);
+            m.put("mainThreadCalls", s.mainThreadCalls);
+            m.put("rows", s.rows);
+            m.put("avgMs", s.averageMillis());
+            m.put("maxMs", s.maxNanos / 1e6);
+            JSONArray buckets = new JSONArray();
+            for (long count : s.buckets) {
+                buckets.put(count);
+            }
+            m.put("histogram", buckets);
+            statements.put(m);
+        }
+        root.put("statements", statements);
+
+        JSONArray slow = new JSONArray();
+        for (SlowQuery q : getSlowQueries()) {
+            JSONObject o = new JSONObject();
+            o.put("method", q.key);
+            o.put("ms", q.millis);
+            o.put("statementMs", q.statementMillis);
+            o.put("statements", q.statements);
+            o.put("mainThread", q.mainThread);
+            o.put("timestamp", q.timestamp);
+            o.put("sql", q.sql);
+            o.put("args", new JSONArray(q.bindArgs));
+            o.put("plan", q.plan);
+            slow.put(o);
+        }
+        root.put("slowQueries", slow);
+        return root;
+    }
+
+    /**
+     * Human-readable report for the diagnostics screen.
+     */
+    public String formatReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Storage: ").append(AppDatabase.getStorageProfile()).append("\n");
+        if (!isRecording()) {
+            sb.append("Recording is off (turn it on above, then restart the app)\n");
+        }
+        sb.append("Slow threshold: ").append(slowThresholdMs).append(" ms\n");
+        sb.append("Histogram buckets (ms): <").append(Arrays.toString(BUCKET_BOUNDS_MS))
+                .append(", overflow\n\n");
+
+        for (StatementStats s : getStats()) {
+            sb.append(s.key).append("\n");
+            sb.append("  from ").append(String.join(", ", s.methods)).append("\n");
+            sb.append(String.format("  %d calls (%d main), %d rows, avg %.2f ms, max %.2f ms\n",
+                    s.calls, s.mainThreadCalls, s.rows, s.averageMillis(), s.maxNanos / 1e6));
+            sb.append("  ").append(Arrays.toString(s.buckets)).append("\n");
+        }
+
+        List<SlowQuery> slow = getSlowQueries();
+        sb.append("\nSlow queries (").append(slow.size()).append(")\n");
+        for (SlowQuery q : slow) {
+            sb.append(String.format("\n%s %.1f ms%s, slowest of %d statements %.1f ms\n", q.key, q.millis,
+                    q.mainThread ? " [main]" : "", q.statements, q.statementMillis));
+            sb.append("  ").append(q.sql).append("\n");
+            sb.append("  args ").append(q.bindArgs).append("\n");
+            if (q.plan != null) {
+                sb.append("  plan ").append(q.plan.replace("\n", "\n       ")).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.myapps.keithpottratz;
+
+/**
+ * Bucket widths of the stock_series table.
+ *
+ * Names are persisted in stock_series.resolution: never rename. Buckets are
+ * aligned in UTC, like the daily history rollups; weeks start on Monday.
+ */
+public enum SeriesResolution {
+    HOUR(60L * 60 * 1000, 0, 30 * InventoryHistoryDaily.DAY_MS),
+    DAY(InventoryHistoryDaily.DAY_MS, 0, 730 * InventoryHistoryDaily.DAY_MS),
+    WEEK(7 * InventoryHistoryDaily.DAY_MS, 3 * InventoryHistoryDaily.DAY_MS, 0);
+
+    private final long widthMs;
+    private final long offsetMs;
+    private final long retentionMs;
+
+    /**
+     * Constructor for SeriesResolution enum values.
+     *
+     * @param widthMs     Bucket width
+     * @param offsetMs    Shift that aligns buckets (the epoch fell on a Thursday)
+     * @param retentionMs How long buckets are kept, 0 = forever
+     */
+    SeriesResolution(long widthMs, long offsetMs, long retentionMs) {
+        this.widthMs = widthMs;
+        this.offsetMs = offsetMs;
+        this.retentionMs = retentionMs;
+    }
+
+    public long getWidthMs() {
+        return widthMs;
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    /**
+     * Start of the bucket containing a timestamp.
+     */
+    public long bucketStart(long timestamp) {
+        return timestamp - Math.floorMod(timestamp + offsetMs, widthMs);
+    }
+
+    /**
+     * SQL expression for the start of the bucket containing a (non-negative) timestamp expression.
+     */
+    String bucketStartSql(String timestamp) {
+        return "(" + timestamp + " - (" + timestamp + " + " + offsetMs + ") % " + widthMs + ")";
+    }
+}
@@ -0,0 +1,17 @@
+package com.myapps.keithpottratz;
+
+/**
+ * POJO class for an item's reconstructed quantity at a point in time.
+ * Used for as-of queries (see StockCheckpointDao).
+ */
+public class StockAsOf {
+    public long itemId;
+    public String itemName;
+    public int quantity;
+
+    public StockAsOf(long itemId, String itemName, int quantity) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,72 @@
+package com.myapps.keithpottratz;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Quantity of one item at a checkpoint time. Every item is checkpointed at
+ * the same taken_at, so an as-of query needs only the newest checkpoint at or
+ * before the requested time plus the quantity deltas after it (see StockSnapshots).
+ *
+ * Rows outlive their item: there is no foreign key, the item's name is kept
+ * here, and deleted_at is set by the stock_checkpoints_on_delete trigger, so
+ * as-of queries still list items that have since been deleted. Such rows are
+ * thinned like any other by the monthly checkpoint pruning.
+ */
+@Entity(
+    tableName = "stock_checkpoints",
+    primaryKeys = {"taken_at", "item_id"},
+    indices = {
+        @Index(value = "item_id")  // Marks an item's checkpoints when it is deleted
+    }
+)
+public class StockCheckpoint {
+    @ColumnInfo(name = "taken_at")
+    private long takenAt;
+
+    @ColumnInfo(name = "item_id")
+    private long itemId;
+
+    private int quantity;
+
+    @NonNull
+    @ColumnInfo(name = "item_name")
+    private String itemName;    // Name at the checkpoint time
+
+    @ColumnInfo(name = "deleted_at")
+    private Long deletedAt;     // When the item was deleted, null while it exists
+
+    // Constructor for Room (all fields)
+    public StockCheckpoint(long takenAt, long itemId, int quantity,
+                           @NonNull String itemName, Long deletedAt) {
+        this.takenAt = takenAt;
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.itemName = itemName;
+        this.deletedAt = deletedAt;
+    }
+
+    // Getters
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @NonNull
+    public String getItemName() {
+        return itemName;
+    }
+
+    public Long getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface StockCheckpointDao {
+
+    // Sum of quantity deltas for checkpointed item c.item_id in (:after, :upTo], read from
+    // index_inventory_history_compact_item_id_timestamp (0 once the item is deleted,
+    // as its history is deleted with it)
+    String QUANTITY_DELTAS =
+            "COALESCE((SELECT SUM(e.delta) FROM inventory_history_compact e " +
+            "WHERE e.item_id = c.item_id AND e.field = 1 " +
+            "AND e.timestamp > :after AND e.timestamp <= :upTo), 0)";
+
+    // Checkpoint rows still present at :upTo (not deleted by then)
+    String NOT_DELETED = "(c.deleted_at IS NULL OR c.deleted_at > :upTo)";
+
+    // CREATE a checkpoint of every item's current quantity and name
+    @Query("INSERT INTO stock_checkpoints (taken_at, item_id, quantity, item_name) " +
+           "SELECT :takenAt, id, quantity, name FROM inventory")
+    void checkpointAll(long takenAt);
+
+    // Newest checkpoint time overall (null if none yet)
+    @Query("SELECT MAX(taken_at) FROM stock_checkpoints")
+    Long getLatestCheckpointTime();
+
+    // Newest checkpoint time at or before a moment (null if none)
+    @Query("SELECT MAX(taken_at) FROM stock_checkpoints WHERE taken_at <= :time")
+    Long getCheckpointTimeAtOrBefore(long time);
+
+    /**
+     * Every item's quantity at :upTo, from the checkpoint taken at :after plus
+     * the deltas after it. Items created since that checkpoint are rolled back
+     * from their current quantity instead. Items deleted after :upTo keep
+     * their checkpoint rows and are listed under their checkpointed name.
+     */
+    @Query("SELECT c.item_id AS itemId, COALESCE(i.name, c.item_name) AS itemName, " +
+           "c.quantity + " + QUANTITY_DELTAS + " AS quantity " +
+           "FROM stock_checkpoints c LEFT JOIN inventory i ON i.id = c.item_id " +
+           "WHERE c.taken_at = :after AND " + NOT_DELETED + " " +
+           "UNION ALL " +
+           "SELECT i.id, i.name, i.quantity - COALESCE((SELECT SUM(e.delta) FROM inventory_history_compact e " +
+           "WHERE e.item_id = i.id AND e.field = 1 AND e.timestamp > :upTo), 0) " +
+           "FROM inventory i WHERE i.created_at <= :upTo AND NOT EXISTS " +
+           "(SELECT 1 FROM stock_checkpoints c WHERE c.taken_at = :after AND c.item_id = i.id) " +
+           "ORDER BY itemName")
+    List<StockAsOf> getQuantitiesAsOf(long after, long upTo);
+
+    // One item's quantity at :upTo from the checkpoint taken at :after
+    // (null if not checkpointed, or deleted by :upTo)
+    @Query("SELECT c.quantity + " + QUANTITY_DELTAS + " FROM stock_checkpoints c " +
+           "WHERE c.taken_at = :after AND c.item_id = :itemId AND " + NOT_DELETED)
+    Integer getQuantityAsOf(long itemId, long after, long upTo);
+
+    // One item's quantity at :upTo rolled back from its current quantity
+    @Query("SELECT i.quantity - COALESCE((SELECT SUM(e.delta) FROM inventory_history_compact e " +
+           "WHERE e.item_id = i.id AND e.field = 1 AND e.timestamp > :upTo), 0) " +
+           "FROM inventory i WHERE i.id = :itemId")
+    Integer getQuantityRolledBack(long itemId, long upTo);
+
+    // Oldest checkpoint time in [:from, :to) (null if none); a range seek on the primary key
+    @Query("SELECT MIN(taken_at) FROM stock_checkpoints WHERE taken_at >= :from AND taken_at < :to")
+    Long getFirstCheckpointTime(long from, long to);
+
+    // DELETE checkpoints taken in (:after, :before), a range on the primary key.
+    // The only delete: rows of deleted items are thinned here like any other
+    @Query("DELETE FROM stock_checkpoints WHERE taken_at > :after AND taken_at < :before")
+    int deleteCheckpointsBetween(long after, long before);
+}
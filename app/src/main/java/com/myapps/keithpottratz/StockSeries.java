@@ -0,0 +1,163 @@
+package com.myapps.keithpottratz;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock level over time for one item or category, for charts.
+ *
+ * Reads the stock_series buckets the inventory triggers maintain as changes
+ * happen, so a range costs one primary key range scan at the chosen
+ * resolution instead of a pass over the history. chart() then reduces the
+ * series to a fixed number of points with largest-triangle-three-buckets
+ * downsampling, which keeps the peaks and dips a plain stride would drop.
+ */
+public class StockSeries {
+
+    static final int DEFAULT_CHART_POINTS = 300;
+
+    // Finest resolution is used while the range fits in this many buckets
+    static final int MAX_BUCKETS = 5000;
+
+    private final StockSeriesDao dao;
+
+    public StockSeries(AppDatabase db) {
+        this.dao = db.stockSeriesDao();
+    }
+
+    /**
+     * Buckets of a series in [from, to), oldest first; from is rounded down
+     * to the start of its bucket.
+     *
+     * The level at from (the previous bucket's close) is added as a first point
+     * and the last level is carried to to, so the series spans the whole range.
+     * Empty if nothing was recorded up to to.
+     *
+     * @param scope StockSeriesPoint.SCOPE_ITEM or SCOPE_CATEGORY
+     */
+    public List<StockSeriesPoint> series(String scope, long scopeId, SeriesResolution resolution,
+                                         long from, long to) {
+        from = resolution.bucketStart(from);
+        List<StockSeriesPoint> points = new ArrayList<>();
+        List<StockSeriesPoint> buckets = dao.getPoints(scope, scopeId, resolution.name(), from, to);
+        if (buckets.isEmpty() || buckets.get(0).getBucketStart() > from) {
+            StockSeriesPoint before = dao.getPointBefore(scope, scopeId, resolution.name(), from);
+            if (before != null) {
+                points.add(before.carriedTo(from));
+            }
+        }
+        points.addAll(buckets);
+
+        if (!points.isEmpty()) {
+            StockSeriesPoint last = points.get(points.size() - 1);
+            if (last.getBucketStart() < to - 1) {
+                points.add(last.carriedTo(to - 1));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Series for a chart with at most maxPoints points, at the finest
+     * resolution that still covers the range.
+     */
+    public List<StockSeriesPoint> chart(String scope, long scopeId, long from, long to, int maxPoints) {
+        return downsample(series(scope, scopeId, resolutionFor(from, to), from, to), maxPoints);
+    }
+
+    public List<StockSeriesPoint> chart(String scope, long scopeId, long from, long to) {
+        return chart(scope, scopeId, from, to, DEFAULT_CHART_POINTS);
+    }
+
+    /**
+     * Finest resolution whose buckets are still kept at from and which
+     * needs at most MAX_BUCKETS buckets for the range.
+     */
+    static SeriesResolution resolutionFor(long from, long to) {
+        long now = System.currentTimeMillis();
+        for (SeriesResolution resolution : SeriesResolution.values()) {
+            boolean kept = resolution.getRetentionMs() == 0 || from >= now - resolution.getRetentionMs();
+            if (kept && (to - from) / resolution.getWidthMs() <= MAX_BUCKETS) {
+                return resolution;
+            }
+        }
+        return SeriesResolution.WEEK;
+    }
+
+    /**
+     * Largest-triangle-three-buckets downsampling of the closing levels.
+     *
+     * Keeps the first and last point. The points in between are split into
+     * threshold - 2 equal buckets; from each, the point forming the largest
+     * triangle with the previously kept point and the average of the next
+     * bucket is kept.
+     *
+     * @return The input (copied) when it already has at most threshold points
+     */
+    public static List<StockSeriesPoint> downsample(List<StockSeriesPoint> points, int threshold) {
+        int size = points.size();
+        if (threshold >= size || threshold < 3) {
+            return new ArrayList<>(points);
+        }
+
+        // Times relative to the first point keep the area products well within double precision
+        long origin = points.get(0).getBucketStart();
+        List<StockSeriesPoint> sampled = new ArrayList<>(threshold);
+        sampled.add(points.get(0));
+
+        double every = (double) (size - 2) / (threshold - 2);
+        int a = 0;
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket (the last point for the final bucket)
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += points.get(j).getBucketStart() - origin;
+                avgY += points.get(j).getCloseQuantity();
+            }
+            avgX /= avgEnd - avgStart;
+            avgY /= avgEnd - avgStart;
+
+            // Point of the current bucket with the largest triangle
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = points.get(a).getBucketStart() - origin;
+            double ay = points.get(a).getCloseQuantity();
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double x = points.get(j).getBucketStart() - origin;
+                double y = points.get(j).getCloseQuantity();
+                double area = Math.abs((ax - avgX) * (y - ay) - (ax - x) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled.add(points.get(next));
+            a = next;
+        }
+
+        sampled.add(points.get(size - 1));
+        return sampled;
+    }
+
+    /**
+     * Drop buckets past their resolution's retention and series of deleted
+     * items and categories. Call from a background thread.
+     *
+     * @return Number of buckets deleted
+     */
+    public int prune() {
+        long now = System.currentTimeMillis();
+        int deleted = dao.deleteOrphans();
+        for (SeriesResolution resolution : SeriesResolution.values()) {
+            if (resolution.getRetentionMs() > 0) {
+                deleted += dao.deleteBefore(resolution.name(), now - resolution.getRetentionMs());
+            }
+        }
+        return deleted;
+    }
+}
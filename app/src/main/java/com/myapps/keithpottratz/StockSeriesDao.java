@@ -0,0 +1,34 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface StockSeriesDao {
+
+    // READ buckets in [from, to), oldest first (primary key range scan)
+    @Query("SELECT * FROM stock_series " +
+           "WHERE scope = :scope AND scope_id = :scopeId AND resolution = :resolution " +
+           "AND bucket_start >= :from AND bucket_start < :to " +
+           "ORDER BY bucket_start")
+    List<StockSeriesPoint> getPoints(String scope, long scopeId, String resolution, long from, long to);
+
+    // READ the last bucket before a time (its close is the level at that time), or null
+    @Query("SELECT * FROM stock_series " +
+           "WHERE scope = :scope AND scope_id = :scopeId AND resolution = :resolution " +
+           "AND bucket_start < :before " +
+           "ORDER BY bucket_start DESC LIMIT 1")
+    StockSeriesPoint getPointBefore(String scope, long scopeId, String resolution, long before);
+
+    // DELETE buckets older than a time at one resolution
+    @Query("DELETE FROM stock_series WHERE resolution = :resolution AND bucket_start < :before")
+    int deleteBefore(String resolution, long before);
+
+    // DELETE series of items and categories that no longer exist
+    @Query("DELETE FROM stock_series WHERE " +
+           "(scope = 'ITEM' AND scope_id NOT IN (SELECT id FROM inventory)) OR " +
+           "(scope = 'CATEGORY' AND scope_id NOT IN (SELECT id FROM categories))")
+    int deleteOrphans();
+}
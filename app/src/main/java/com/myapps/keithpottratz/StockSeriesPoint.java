@@ -0,0 +1,113 @@
+package com.myapps.keithpottratz;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * One bucket of a stock-level series: the level before the first change in
+ * the bucket (open), after the last one (close), and its range.
+ *
+ * Written incrementally by SQLite triggers on the inventory table (see
+ * InventoryTriggers), one row per item or category, resolution and bucket.
+ * Buckets without changes have no row; the level carries over from the
+ * previous bucket's close.
+ */
+@Entity(
+    tableName = "stock_series",
+    primaryKeys = {"scope", "scope_id", "resolution", "bucket_start"}
+)
+public class StockSeriesPoint {
+    public static final String SCOPE_ITEM = "ITEM";
+    public static final String SCOPE_CATEGORY = StockSummary.SCOPE_CATEGORY;
+
+    @NonNull
+    private String scope;
+
+    @ColumnInfo(name = "scope_id")
+    private long scopeId;
+
+    // SeriesResolution name
+    @NonNull
+    private String resolution;
+
+    @ColumnInfo(name = "bucket_start")
+    private long bucketStart;
+
+    @ColumnInfo(name = "open_quantity")
+    private long openQuantity;
+
+    @ColumnInfo(name = "min_quantity")
+    private long minQuantity;
+
+    @ColumnInfo(name = "max_quantity")
+    private long maxQuantity;
+
+    @ColumnInfo(name = "close_quantity")
+    private long closeQuantity;
+
+    @ColumnInfo(name = "change_count")
+    private int changeCount;
+
+    // Constructor for Room (all fields)
+    public StockSeriesPoint(@NonNull String scope, long scopeId, @NonNull String resolution,
+                            long bucketStart, long openQuantity, long minQuantity,
+                            long maxQuantity, long closeQuantity, int changeCount) {
+        this.scope = scope;
+        this.scopeId = scopeId;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+        this.openQuantity = openQuantity;
+        this.minQuantity = minQuantity;
+        this.maxQuantity = maxQuantity;
+        this.closeQuantity = closeQuantity;
+        this.changeCount = changeCount;
+    }
+
+    /**
+     * A point with no changes at the given time, holding this point's closing level.
+     */
+    public StockSeriesPoint carriedTo(long time) {
+        return new StockSeriesPoint(scope, scopeId, resolution, time,
+                closeQuantity, closeQuantity, closeQuantity, closeQuantity, 0);
+    }
+
+    // Getters
+    @NonNull
+    public String getScope() {
+        return scope;
+    }
+
+    public long getScopeId() {
+        return scopeId;
+    }
+
+    @NonNull
+    public String getResolution() {
+        return resolution;
+    }
+
+    public long getBucketStart() {
+        return bucketStart;
+    }
+
+    public long getOpenQuantity() {
+        return openQuantity;
+    }
+
+    public long getMinQuantity() {
+        return minQuantity;
+    }
+
+    public long getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public long getCloseQuantity() {
+        return closeQuantity;
+    }
+
+    public int getChangeCount() {
+        return changeCount;
+    }
+}
@@ -0,0 +1,133 @@
+package com.myapps.keithpottratz;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Point-in-time stock reconstruction.
+ *
+ * checkpoint() stores every item's quantity in stock_checkpoints. An as-of
+ * query starts from the newest checkpoint at or before the requested time and
+ * adds only the quantity deltas recorded between the two, so its cost is
+ * bounded by the checkpoint interval rather than by the length of the history.
+ *
+ * Daily checkpoints are kept for CHECKPOINT_RETENTION_MS (matching history
+ * retention), after which only the first checkpoint of each month remains.
+ * For times older than the history retention window, answers are exact only
+ * at those monthly checkpoints.
+ *
+ * Deleting an item keeps its checkpoints (marked with the deletion time), so
+ * it still appears as of times before the deletion. Its history goes with it,
+ * so after its last checkpoint it reads as the checkpointed quantity.
+ */
+public class StockSnapshots {
+
+    static final long CHECKPOINT_INTERVAL_MS = HistoryRetention.DAY_MS;
+    static final long CHECKPOINT_RETENTION_MS = HistoryRetention.DEFAULT_RETENTION_MS;
+
+    private final AppDatabase db;
+    private final StockCheckpointDao dao;
+
+    public StockSnapshots(AppDatabase db) {
+        this.db = db;
+        this.dao = db.stockCheckpointDao();
+    }
+
+    /**
+     * Checkpoint if the newest checkpoint is at least one interval old.
+     *
+     * @return True if a checkpoint was written
+     */
+    public boolean maybeCheckpoint() {
+        Long latest = dao.getLatestCheckpointTime();
+        if (latest != null && System.currentTimeMillis() - latest < CHECKPOINT_INTERVAL_MS) {
+            return false;
+        }
+        checkpoint();
+        return true;
+    }
+
+    /**
+     * Checkpoint every item's current quantity and thin out old checkpoints.
+     * Runs in one transaction so no quantity change lands between the
+     * checkpoint time and the quantities it records.
+     */
+    public void checkpoint() {
+        db.runInTransaction(() -> {
+            long now = System.currentTimeMillis();
+            Long previous = dao.getLatestCheckpointTime();
+            dao.checkpointAll(now);
+            if (previous != null) {
+                // The previous checkpoint's prune covered everything before its own cutoff
+                pruneCheckpoints(previous - CHECKPOINT_RETENTION_MS, now - CHECKPOINT_RETENTION_MS);
+            }
+        });
+    }
+
+    /**
+     * Delete checkpoints taken before beforeTime except the first of each month
+     * (UTC), looking only at the months from the one holding since onwards.
+     * Each month is a MIN and a DELETE over a taken_at range, so a daily run
+     * touches one or two months instead of grouping the whole table.
+     *
+     * @return Number of checkpoint rows deleted
+     */
+    int pruneCheckpoints(long since, long beforeTime) {
+        int deleted = 0;
+        LocalDate month = Instant.ofEpochMilli(since).atZone(ZoneOffset.UTC).toLocalDate().withDayOfMonth(1);
+        long monthStart = startOfDay(month);
+        while (monthStart < beforeTime) {
+            LocalDate next = month.plusMonths(1);
+            long nextStart = startOfDay(next);
+            Long first = dao.getFirstCheckpointTime(monthStart, nextStart);
+            if (first != null) {
+                deleted += dao.deleteCheckpointsBetween(first, Math.min(nextStart, beforeTime));
+            }
+            month = next;
+            monthStart = nextStart;
+        }
+        return deleted;
+    }
+
+    private static long startOfDay(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Quantity of every item in the checkpoint at or before the given time and
+     * not deleted by then, plus every item created since that checkpoint, by name.
+     *
+     * Items missing from the checkpoint (created after it) are rolled back from
+     * their current quantity through the compact history. Once that history has
+     * been purged, an item created after an old monthly checkpoint but before
+     * the purge cutoff is rolled back only over the deltas still kept, so its
+     * quantity is silently wrong (usually its current quantity), with no error.
+     */
+    public List<StockAsOf> quantitiesAsOf(long time) {
+        return dao.getQuantitiesAsOf(checkpointFor(time), time);
+    }
+
+    /**
+     * Quantity of one item at the given time, or -1 if it is in neither the
+     * checkpoint nor the current inventory (or was deleted by then).
+     */
+    public int quantityAsOf(long itemId, long time) {
+        Integer quantity = dao.getQuantityAsOf(itemId, checkpointFor(time), time);
+        if (quantity == null) {
+            // Not in that checkpoint (created later, or no checkpoint yet)
+            quantity = dao.getQuantityRolledBack(itemId, time);
+        }
+        return quantity != null ? quantity : -1;
+    }
+
+    /**
+     * Newest checkpoint time at or before time, or Long.MIN_VALUE when there is none
+     * (then every item is rolled back from its current quantity).
+     */
+    private long checkpointFor(long time) {
+        Long checkpoint = dao.getCheckpointTimeAtOrBefore(time);
+        return checkpoint != null ? checkpoint : Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,94 @@
+package com.myapps.keithpottratz;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+
+/**
+ * Materialized inventory aggregates, kept exact by SQLite triggers on the
+ * inventory table (see InventoryTriggers).
+ *
+ * One row per scope: the whole inventory (scope ALL, id 0) and each
+ * category, supplier, and location that has items.
+ */
+@Entity(
+    tableName = "stock_summary",
+    primaryKeys = {"scope", "scope_id"}
+)
+public class StockSummary {
+    public static final String SCOPE_ALL = "ALL";
+    public static final String SCOPE_CATEGORY = "CATEGORY";
+    public static final String SCOPE_SUPPLIER = "SUPPLIER";
+    public static final String SCOPE_LOCATION = "LOCATION";
+
+    @NonNull
+    private String scope;
+
+    @ColumnInfo(name = "scope_id")
+    private long scopeId;
+
+    @ColumnInfo(name = "item_count")
+    private int itemCount;
+
+    @ColumnInfo(name = "total_quantity")
+    private long totalQuantity;
+
+    // Exact integer sum of quantity * price in cents
+    @ColumnInfo(name = "total_value_cents")
+    private long totalValueCents;
+
+    @ColumnInfo(name = "low_stock_count")
+    private int lowStockCount;
+
+    @ColumnInfo(name = "out_of_stock_count")
+    private int outOfStockCount;
+
+    // Constructor for Room (all fields)
+    public StockSummary(@NonNull String scope, long scopeId, int itemCount, long totalQuantity,
+                        long totalValueCents, int lowStockCount, int outOfStockCount) {
+        this.scope = scope;
+        this.scopeId = scopeId;
+        this.itemCount = itemCount;
+        this.totalQuantity = totalQuantity;
+        this.totalValueCents = totalValueCents;
+        this.lowStockCount = lowStockCount;
+        this.outOfStockCount = outOfStockCount;
+    }
+
+    // Empty summary for a scope with no rows yet
+    @Ignore
+    public StockSummary(@NonNull String scope, long scopeId) {
+        this(scope, scopeId, 0, 0, 0, 0, 0);
+    }
+
+    // Getters
+    @NonNull
+    public String getScope() {
+        return scope;
+    }
+
+    public long getScopeId() {
+        return scopeId;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public long getTotalValueCents() {
+        return totalValueCents;
+    }
+
+    public int getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public int getOutOfStockCount() {
+        return outOfStockCount;
+    }
+}
@@ -0,0 +1,97 @@
+package com.myapps.keithpottratz;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consistency checker for the trigger-maintained stock_summary table.
+ * Recomputes every aggregate from the inventory table and reports any
+ * row whose stored values drifted from the recomputed ones.
+ */
+public class StockSummaryChecker {
+
+    private final AppDatabase db;
+    private final StockSummaryDao dao;
+
+    public StockSummaryChecker(AppDatabase db) {
+        this.db = db;
+        this.dao = db.stockSummaryDao();
+    }
+
+    /**
+     * Compare stored summaries with a fresh recomputation.
+     *
+     * @return One description per drifted row (empty if consistent)
+     */
+    public List<String> check() {
+        List<StockSummary> expected = new ArrayList<>();
+        List<StockSummary> stored = new ArrayList<>();
+
+        // Read both sides in one transaction so they see the same snapshot
+        db.runInTransaction(() -> {
+            expected.addAll(recompute());
+            stored.addAll(dao.getAll());
+        });
+
+        Map<String, StockSummary> storedByKey = new HashMap<>();
+        for (StockSummary summary : stored) {
+            storedByKey.put(key(summary), summary);
+        }
+
+        List<String> drift = new ArrayList<>();
+        for (StockSummary want : expected) {
+            StockSummary have = storedByKey.remove(key(want));
+            if (have == null) {
+                have = new StockSummary(want.getScope(), want.getScopeId());
+            }
+            compare(want, have, drift);
+        }
+
+        // Leftover stored rows must be all zero (their items moved or were deleted)
+        for (StockSummary have : storedByKey.values()) {
+            compare(new StockSummary(have.getScope(), have.getScopeId()), have, drift);
+        }
+        return drift;
+    }
+
+    /**
+     * Rebuild every summary row from scratch.
+     */
+    public void repair() {
+        db.runInTransaction(() -> dao.replaceAll(recompute()));
+    }
+
+    private List<StockSummary> recompute() {
+        List<StockSummary> summaries = new ArrayList<>();
+        summaries.add(dao.computeGlobal());
+        summaries.addAll(dao.computeByCategory());
+        summaries.addAll(dao.computeBySupplier());
+        summaries.addAll(dao.computeByLocation());
+        return summaries;
+    }
+
+    private static void compare(StockSummary want, StockSummary have, List<String> drift) {
+        String key = key(want);
+        if (want.getItemCount() != have.getItemCount()) {
+            drift.add(key + " item_count: stored " + have.getItemCount() + ", expected " + want.getItemCount());
+        }
+        if (want.getTotalQuantity() != have.getTotalQuantity()) {
+            drift.add(key + " total_quantity: stored " + have.getTotalQuantity() + ", expected " + want.getTotalQuantity());
+        }
+        if (want.getTotalValueCents() != have.getTotalValueCents()) {
+            drift.add(key + " total_value_cents: stored " + have.getTotalValueCents() + ", expected " + want.getTotalValueCents());
+        }
+        if (want.getLowStockCount() != have.getLowStockCount()) {
+            drift.add(key + " low_stock_count: stored " + have.getLowStockCount() + ", expected " + want.getLowStockCount());
+        }
+        if (want.getOutOfStockCount() != have.getOutOfStockCount()) {
+            drift.add(key + " out_of_stock_count: stored " + have.getOutOfStockCount() + ", expected " + want.getOutOfStockCount());
+        }
+    }
+
+    private static String key(StockSummary summary) {
+        return summary.getScope() + ":" + summary.getScopeId();
+    }
+}
@@ -0,0 +1,98 @@
+package com.myapps.keithpottratz;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+@Dao
+public interface StockSummaryDao {
+
+    // Aggregate columns shared by the recompute queries
+    String AGGREGATES =
+            "COUNT(*) AS item_count, " +
+            "COALESCE(SUM(quantity), 0) AS total_quantity, " +
+            "COALESCE(SUM(quantity * price_cents), 0) AS total_value_cents, " +
+            "COALESCE(SUM(quantity < min_stock_level), 0) AS low_stock_count, " +
+            "COALESCE(SUM(quantity = 0), 0) AS out_of_stock_count";
+
+
+    // MATERIALIZED READS (O(1) / O(groups), no inventory scan)
+
+
+    // READ global summary row (null until the first item exists)
+    @Query("SELECT * FROM stock_summary WHERE scope = 'ALL' AND scope_id = 0")
+    StockSummary getGlobalRow();
+
+    // READ global summary, never null
+    default StockSummary getGlobal() {
+        StockSummary global = getGlobalRow();
+        return global != null ? global : new StockSummary(StockSummary.SCOPE_ALL, 0);
+    }
+
+    // READ summary for one category, supplier, or location
+    @Query("SELECT * FROM stock_summary WHERE scope = :scope AND scope_id = :scopeId")
+    StockSummary getSummary(String scope, long scopeId);
+
+    // READ all summaries of a scope
+    @Query("SELECT * FROM stock_summary WHERE scope = :scope ORDER BY total_value_cents DESC")
+    List<StockSummary> getByScope(String scope);
+
+    // Category statistics from the summary table (same shape as InventoryDao.getCategoryStatistics)
+    @Query("SELECT c.id as categoryId, c.name as categoryName, " +
+           "COALESCE(s.item_count, 0) as itemCount, " +
+           "COALESCE(s.total_quantity, 0) as totalQuantity, " +
+           "COALESCE(s.total_value_cents, 0) as totalValueCents " +
+           "FROM categories c " +
+           "LEFT JOIN stock_summary s ON s.scope = 'CATEGORY' AND s.scope_id = c.id " +
+           "ORDER BY totalValueCents DESC")
+    List<CategoryStats> getCategoryStatistics();
+
+    // Supplier statistics from the summary table (same shape as InventoryDao.getSupplierStatistics)
+    @Query("SELECT p.id as supplierId, p.name as supplierName, " +
+           "COALESCE(s.item_count, 0) as itemCount, " +
+           "COALESCE(s.total_quantity, 0) as totalQuantity, " +
+           "COALESCE(s.total_value_cents, 0) as totalValueCents " +
+           "FROM suppliers p " +
+           "LEFT JOIN stock_summary s ON s.scope = 'SUPPLIER' AND s.scope_id = p.id " +
+           "ORDER BY totalValueCents DESC")
+    List<SupplierStats> getSupplierStatistics();
+
+
+    // RECOMPUTE FROM SCRATCH (full scans, used by StockSummaryChecker)
+
+
+    @Query("SELECT * FROM stock_summary")
+    List<StockSummary> getAll();
+
+    @Query("SELECT 'ALL' AS scope, 0 AS scope_id, " + AGGREGATES + " FROM inventory")
+    StockSummary computeGlobal();
+
+    @Query("SELECT 'CATEGORY' AS scope, category_id AS scope_id, " + AGGREGATES +
+           " FROM inventory WHERE category_id IS NOT NULL GROUP BY category_id")
+    List<StockSummary> computeByCategory();
+
+    @Query("SELECT 'SUPPLIER' AS scope, supplier_id AS scope_id, " + AGGREGATES +
+           " FROM inventory WHERE supplier_id IS NOT NULL GROUP BY supplier_id")
+    List<StockSummary> computeBySupplier();
+
+    @Query("SELECT 'LOCATION' AS scope, location_id AS scope_id, " + AGGREGATES +
+           " FROM inventory WHERE location_id IS NOT NULL GROUP BY location_id")
+    List<StockSummary> computeByLocation();
+
+    @Query("DELETE FROM stock_summary")
+    void deleteAll();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<StockSummary> summaries);
+
+    // Replace every summary row with freshly computed values
+    @Transaction
+    default void replaceAll(List<StockSummary> summaries) {
+        deleteAll();
+        insertAll(summaries);
+    }
+}
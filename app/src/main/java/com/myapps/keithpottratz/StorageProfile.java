@@ -0,0 +1,113 @@
+package com.myapps.keithpottratz;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQLite journal and connection settings used when AppDatabase is opened.
+ *
+ * WAL lets readers run against the last committed snapshot while a writer
+ * appends to the log, so grid scans no longer block quantity updates (and the
+ * other way round). In WAL mode the Android connection pool also opens
+ * separate reader connections next to the single writer.
+ *
+ * Pass a profile to AppDatabase.configure() before the first getInstance().
+ */
+public final class StorageProfile {
+
+    /** Settings the app shipped with: rollback journal, SQLite defaults. */
+    public static final StorageProfile LEGACY = new StorageProfile(
+            "LEGACY", RoomDatabase.JournalMode.TRUNCATE, "FULL", 0, 0, 0, false);
+
+    /**
+     * WAL with synchronous=NORMAL (durable at checkpoints, never corrupt),
+     * 8 MiB page cache, 64 MiB of memory-mapped reads and in-memory temp tables
+     * for the sorts and GROUP BYs behind the dashboard.
+     */
+    public static final StorageProfile WAL_TUNED = new StorageProfile(
+            "WAL_TUNED", RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, "NORMAL",
+            8 * 1024, 64L * 1024 * 1024, 1000, true);
+
+    private final String name;
+    private final RoomDatabase.JournalMode journalMode;
+    private final String synchronous;        // OFF, NORMAL or FULL
+    private final int cacheSizeKib;          // 0 keeps the SQLite default
+    private final long mmapSizeBytes;        // 0 disables memory-mapped I/O
+    private final int walAutoCheckpointPages; // 0 keeps the SQLite default (1000)
+    private final boolean tempStoreMemory;
+
+    public StorageProfile(String name, RoomDatabase.JournalMode journalMode, String synchronous,
+                          int cacheSizeKib, long mmapSizeBytes, int walAutoCheckpointPages,
+                          boolean tempStoreMemory) {
+        this.name = name;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSizeKib = cacheSizeKib;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.walAutoCheckpointPages = walAutoCheckpointPages;
+        this.tempStoreMemory = tempStoreMemory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RoomDatabase.JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    public boolean isWal() {
+        return journalMode == RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING;
+    }
+
+    /**
+     * Apply the builder-level settings (journal mode and connection pool).
+     */
+    <T extends RoomDatabase> RoomDatabase.Builder<T> applyTo(RoomDatabase.Builder<T> builder) {
+        return builder.setJournalMode(journalMode)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                        applyPragmas(db);
+                    }
+                });
+    }
+
+    /**
+     * Apply the per-connection pragmas. Room calls back once, on the writer
+     * connection, but cache_size, mmap_size, temp_store and the rest only
+     * affect the connection that runs them. execPerConnectionSQL runs them on
+     * every open connection now and on each reader connection the pool opens
+     * later (after the framework's own synchronous and wal_autocheckpoint).
+     */
+    void applyPragmas(SupportSQLiteDatabase db) {
+        db.execPerConnectionSQL("PRAGMA synchronous = " + synchronous, null);
+        if (cacheSizeKib > 0) {
+            // Negative cache_size means KiB instead of pages
+            db.execPerConnectionSQL("PRAGMA cache_size = -" + cacheSizeKib, null);
+        }
+        db.execPerConnectionSQL("PRAGMA mmap_size = " + mmapSizeBytes, null);
+        if (isWal() && walAutoCheckpointPages > 0) {
+            db.execPerConnectionSQL("PRAGMA wal_autocheckpoint = " + walAutoCheckpointPages, null);
+        }
+        db.execPerConnectionSQL("PRAGMA temp_store = " + (tempStoreMemory ? "MEMORY" : "DEFAULT"), null);
+    }
+
+    /**
+     * Fold the write-ahead log back into the main file and truncate it.
+     * Call when the app goes to the background so the log does not keep growing
+     * between automatic checkpoints. Does nothing outside WAL mode.
+     */
+    void checkpoint(SupportSQLiteDatabase db) {
+        if (isWal()) {
+            db.query("PRAGMA wal_checkpoint(TRUNCATE)").close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + journalMode + ", synchronous=" + synchronous
+                + ", cache=" + cacheSizeKib + "KiB, mmap=" + mmapSizeBytes + ")";
+    }
+}
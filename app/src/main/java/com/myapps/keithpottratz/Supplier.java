@@ -8,6 +8,9 @@ import androidx.room.PrimaryKey;
 
 @Entity(tableName = "suppliers")
 public class Supplier {
+    // Lead time assumed for new suppliers and for items without a supplier
+    public static final int DEFAULT_LEAD_TIME_DAYS = 7;
+
     @PrimaryKey(autoGenerate = true)
     private long id;
 
@@ -26,9 +29,13 @@ public class Supplier {
     @ColumnInfo(name = "created_at")
     private long createdAt;
 
+    // Days from placing an order to receiving it (used for reorder points)
+    @ColumnInfo(name = "lead_time_days")
+    private int leadTimeDays;
+
     // Constructor for Room (with ID)
     public Supplier(long id, @NonNull String name, String contactPerson, String email,
-                    String phone, String address, long createdAt) {
+                    String phone, String address, long createdAt, int leadTimeDays) {
         this.id = id;
         this.name = name;
         this.contactPerson = contactPerson;
@@ -36,6 +43,7 @@ public class Supplier {
         this.phone = phone;
         this.address = address;
         this.createdAt = createdAt;
+        this.leadTimeDays = leadTimeDays;
     }
 
     // Constructor for new suppliers (no ID)
@@ -48,6 +56,7 @@ public class Supplier {
         this.phone = phone;
         this.address = address;
         this.createdAt = System.currentTimeMillis();
+        this.leadTimeDays = DEFAULT_LEAD_TIME_DAYS;
     }
 
     // Getters
@@ -80,6 +89,10 @@ public class Supplier {
         return createdAt;
     }
 
+    public int getLeadTimeDays() {
+        return leadTimeDays;
+    }
+
     // Setters
     public void setId(long id) {
         this.id = id;
@@ -108,4 +121,8 @@ public class Supplier {
     public void setCreatedAt(long createdAt) {
         this.createdAt = createdAt;
     }
+
+    public void setLeadTimeDays(int leadTimeDays) {
+        this.leadTimeDays = leadTimeDays;
+    }
 }
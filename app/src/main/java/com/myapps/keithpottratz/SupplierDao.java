@@ -23,8 +23,8 @@ public interface SupplierDao {
     @Query("SELECT * FROM suppliers WHERE name = :name LIMIT 1")
     Supplier getByName(String name);
 
-    // SEARCH suppliers by name pattern
-    @Query("SELECT * FROM suppliers WHERE name LIKE '%' || :search || '%' ORDER BY name ASC")
+    // SEARCH suppliers by name pattern (escape the text with ItemSearch.escapeLike())
+    @Query("SELECT * FROM suppliers WHERE name LIKE '%' || :search || '%' ESCAPE '\\' ORDER BY name ASC")
     List<Supplier> searchByName(String search);
 
     // COUNT items from a supplier
@@ -9,14 +9,14 @@ public class SupplierStats {
     public String supplierName;
     public int itemCount;
     public int totalQuantity;
-    public double totalValue;
+    public long totalValueCents;
 
     public SupplierStats(long supplierId, String supplierName, int itemCount,
-                         int totalQuantity, double totalValue) {
+                         int totalQuantity, long totalValueCents) {
         this.supplierId = supplierId;
         this.supplierName = supplierName;
         this.itemCount = itemCount;
         this.totalQuantity = totalQuantity;
-        this.totalValue = totalValue;
+        this.totalValueCents = totalValueCents;
     }
 }
@@ -0,0 +1,161 @@
+package com.myapps.keithpottratz;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Observable query stream scoped to one or more Room tables.
+ *
+ * Driven by Room's InvalidationTracker: when a write touches one of the
+ * observed tables, the stream waits for the coalescing window so a burst of
+ * writes produces a single reload. The loader runs on Room's query executor
+ * and its result is delivered to subscribers on the main thread.
+ *
+ * Loads never overlap; an invalidation during a load schedules one more.
+ * A load that throws is logged and delivers nothing; the next invalidation
+ * loads again.
+ *
+ * @param <T> Value pushed to subscribers (a full result or a diff)
+ */
+public class TableStream<T> {
+
+    // Default coalescing window for bursts of writes
+    public static final long DEFAULT_WINDOW_MS = 100;
+
+    private static final String TAG = "TableStream";
+
+    /**
+     * Produces the value to push; runs on a background thread.
+     */
+    public interface Loader<T> {
+        T load();
+    }
+
+    /**
+     * Receives values on the main thread.
+     */
+    public interface Subscriber<T> {
+        void onChanged(T value);
+    }
+
+    private final AppDatabase db;
+    private final Loader<T> loader;
+    private final long windowMs;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Subscriber<T>> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Runnable dispatcher = this::dispatch;
+    private final InvalidationTracker.Observer observer;
+
+    // Main-thread state
+    private boolean loading = false;
+    private boolean reloadPending = false;
+
+    public TableStream(AppDatabase db, Loader<T> loader, long windowMs, String... tables) {
+        this.db = db;
+        this.loader = loader;
+        this.windowMs = windowMs;
+        this.executor = db.getQueryExecutor();
+        this.observer = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> changedTables) {
+                schedule(TableStream.this.windowMs);
+            }
+        };
+    }
+
+    public TableStream(AppDatabase db, Loader<T> loader, String... tables) {
+        this(db, loader, DEFAULT_WINDOW_MS, tables);
+    }
+
+    /**
+     * Add a subscriber. The first subscriber starts observing the tables.
+     */
+    public void subscribe(Subscriber<T> subscriber) {
+        if (subscribers.isEmpty()) {
+            db.getInvalidationTracker().addObserver(observer);
+        }
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Remove a subscriber. The last one to leave stops observing the tables
+     * and drops a scheduled reload.
+     */
+    public void unsubscribe(Subscriber<T> subscriber) {
+        subscribers.remove(subscriber);
+        if (subscribers.isEmpty()) {
+            db.getInvalidationTracker().removeObserver(observer);
+            mainHandler.removeCallbacks(dispatcher);
+            scheduled.set(false);
+            reloadPending = false;
+        }
+    }
+
+    /**
+     * Reload now without waiting for an invalidation (e.g. to catch up on
+     * changes made while nobody was subscribed).
+     */
+    public void refresh() {
+        schedule(0);
+    }
+
+    private void schedule(long delayMs) {
+        if (scheduled.compareAndSet(false, true)) {
+            mainHandler.postDelayed(dispatcher, delayMs);
+        }
+    }
+
+    private void dispatch() {
+        scheduled.set(false);
+        if (loading) {
+            reloadPending = true;
+            return;
+        }
+
+        loading = true;
+        executor.execute(() -> {
+            boolean delivered = false;
+            try {
+                T value = loader.load();
+                mainHandler.post(() -> deliver(value));
+                delivered = true;
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Load failed", e);
+            } finally {
+                if (!delivered) {
+                    mainHandler.post(this::loadFinished);
+                }
+            }
+        });
+    }
+
+    private void deliver(T value) {
+        try {
+            for (Subscriber<T> subscriber : subscribers) {
+                subscriber.onChanged(value);
+            }
+        } finally {
+            loadFinished();
+        }
+    }
+
+    private void loadFinished() {
+        loading = false;
+        if (reloadPending) {
+            reloadPending = false;
+            dispatch();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.myapps.keithpottratz;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the AbcClassifier.cutValue quickselect.
+ */
+public class AbcClassifierTest {
+
+    // Sort descending and walk the running total: the value where it first reaches target
+    private static long expectedCut(long[] values, long target) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            total += sorted[i];
+            if (total >= target) {
+                return sorted[i];
+            }
+        }
+        throw new AssertionError("target above total");
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    @Test
+    public void cutValue_singleValue() {
+        assertEquals(42, AbcClassifier.cutValue(new long[]{42}, 1));
+        assertEquals(42, AbcClassifier.cutValue(new long[]{42}, 42));
+    }
+
+    @Test
+    public void cutValue_targetEqualToTotalIsTheSmallestValue() {
+        long[] values = {7, 300, 12, 5, 90};
+        assertEquals(5, AbcClassifier.cutValue(values, sum(values)));
+    }
+
+    @Test
+    public void cutValue_ties() {
+        // All equal: every target inside the total cuts at that value
+        long[] equal = {10, 10, 10, 10};
+        for (long target = 1; target <= 40; target++) {
+            assertEquals(10, AbcClassifier.cutValue(equal.clone(), target));
+        }
+
+        // Targets reached inside a run of equal values cut at that value
+        long[] values = {50, 20, 20, 20, 5};
+        assertEquals(50, AbcClassifier.cutValue(values.clone(), 50));
+        assertEquals(20, AbcClassifier.cutValue(values.clone(), 51));
+        assertEquals(20, AbcClassifier.cutValue(values.clone(), 110));
+        assertEquals(5, AbcClassifier.cutValue(values.clone(), 111));
+    }
+
+    @Test
+    public void cutValue_matchesSortedRunningTotal() {
+        Random random = new Random(34);
+        for (int round = 0; round < 500; round++) {
+            long[] values = new long[1 + random.nextInt(200)];
+            for (int i = 0; i < values.length; i++) {
+                // Few distinct values in some rounds, so ties are common
+                values[i] = 1 + (round % 2 == 0 ? random.nextInt(5) : random.nextInt(1_000_000));
+            }
+            long total = sum(values);
+            for (long target : new long[]{1, total / 2, total * 8 / 10, total - 1, total}) {
+                if (target >= 1) {
+                    assertEquals(expectedCut(values, target), AbcClassifier.cutValue(values.clone(), target));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cutValue_rejectsTargetAboveTotal() {
+        AbcClassifier.cutValue(new long[]{3, 4}, 8);
+    }
+}
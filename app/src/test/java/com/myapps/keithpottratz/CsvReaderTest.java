@@ -0,0 +1,113 @@
+package com.myapps.keithpottratz;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the CsvReader tokenizer.
+ */
+public class CsvReaderTest {
+
+    private static List<List<String>> readAll(String text) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(text))) {
+            List<String> fields = new ArrayList<>();
+            while (reader.next(fields)) {
+                records.add(new ArrayList<>(fields));
+            }
+        }
+        return records;
+    }
+
+    @Test
+    public void plainRecords() throws IOException {
+        assertEquals(Arrays.asList(
+                Arrays.asList("sku", "name", "quantity"),
+                Arrays.asList("A1", "Bolt", "5"),
+                Arrays.asList("", "Nut", "")),
+                readAll("sku,name,quantity\nA1,Bolt,5\n,Nut,\n"));
+    }
+
+    @Test
+    public void quotedCommas() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("A1", "Bolt, M8", "5")),
+                readAll("A1,\"Bolt, M8\",5\n"));
+    }
+
+    @Test
+    public void doubledQuotes() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("12\" ruler", "\"quoted\"", "")),
+                readAll("\"12\"\" ruler\",\"\"\"quoted\"\"\",\"\"\n"));
+    }
+
+    @Test
+    public void crlfAndMissingFinalNewline() throws IOException {
+        assertEquals(Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("c", "d")),
+                readAll("a,b\r\nc,d"));
+    }
+
+    @Test
+    public void byteOrderMarkIsSkipped() throws IOException {
+        List<List<String>> records = readAll("\uFEFFname,sku\nBolt,A1\n");
+        assertEquals("name", records.get(0).get(0));
+        assertEquals(Arrays.asList("Bolt", "A1"), records.get(1));
+    }
+
+    @Test
+    public void lineBreaksInsideQuotesKeepLineNumbers() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader(
+                "name,description\r\nBolt,\"line one\nline two\"\nNut,plain\n"))) {
+            List<String> fields = new ArrayList<>();
+            assertTrue(reader.next(fields));
+            assertEquals(1, reader.getLineNumber());
+            assertTrue(reader.next(fields));
+            assertEquals(2, reader.getLineNumber());
+            assertEquals("line one\nline two", fields.get(1));
+            assertTrue(reader.next(fields));
+            assertEquals(4, reader.getLineNumber());
+            assertEquals(Arrays.asList("Nut", "plain"), fields);
+            assertFalse(reader.next(fields));
+        }
+    }
+
+    @Test
+    public void recordsAcrossBufferBoundaries() throws IOException {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        List<List<String>> records = readAll("x,\"" + value + "\"\r\ny,z\r\n");
+        assertEquals(2, records.size());
+        assertEquals(value.toString(), records.get(0).get(1));
+        assertEquals(Arrays.asList("y", "z"), records.get(1));
+    }
+
+    @Test
+    public void unterminatedQuoteFails() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("a,b\nc,\"never closed\nd,e\n"))) {
+            List<String> fields = new ArrayList<>();
+            assertTrue(reader.next(fields));
+            try {
+                reader.next(fields);
+                fail("Expected IOException");
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("line 2"));
+            }
+        }
+    }
+
+    @Test
+    public void emptyInput() throws IOException {
+        assertTrue(readAll("").isEmpty());
+        assertTrue(readAll("\uFEFF").isEmpty());
+    }
+}
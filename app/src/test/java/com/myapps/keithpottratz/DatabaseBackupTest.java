@@ -0,0 +1,194 @@
+package com.myapps.keithpottratz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the DatabaseBackup page store: store, rebuild and
+ * prune on plain files shaped like SQLite databases.
+ */
+public class DatabaseBackupTest {
+    private static final int PAGE_SIZE = 4096;
+    private static final int DB_VERSION = 15;
+
+    private final Random random = new Random(50);
+    private File dir;
+    private File work;
+
+    @Before
+    public void setUp() throws IOException {
+        work = Files.createTempDirectory("backup-test").toFile();
+        dir = new File(work, DatabaseBackup.DIR_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        deleteTree(work);
+    }
+
+    // Random pages behind a SQLite header (page size at offset 16, user_version at 60)
+    private byte[] database(int pages) {
+        byte[] bytes = new byte[pages * PAGE_SIZE];
+        random.nextBytes(bytes);
+        byte[] magic = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(magic, 0, bytes, 0, magic.length);
+        ByteBuffer.wrap(bytes).putShort(16, (short) PAGE_SIZE).putInt(60, DB_VERSION);
+        return bytes;
+    }
+
+    private void changePage(byte[] bytes, int page) {
+        byte[] content = new byte[PAGE_SIZE];
+        random.nextBytes(content);
+        System.arraycopy(content, 0, bytes, page * PAGE_SIZE, PAGE_SIZE);
+    }
+
+    private File write(byte[] bytes) throws IOException {
+        File file = new File(work, "inventory.db");
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    private byte[] rebuilt(long id) throws IOException {
+        File target = new File(work, "restored-" + id + ".db");
+        DatabaseBackup.Header header = DatabaseBackup.rebuild(dir, id, target);
+        assertEquals(DB_VERSION, header.dbVersion);
+        return Files.readAllBytes(target.toPath());
+    }
+
+    @Test
+    public void store_thenRebuild_returnsTheSameBytes() throws IOException {
+        byte[] bytes = database(64);
+        DatabaseBackup.BackupInfo info = DatabaseBackup.store(dir, write(bytes), 1);
+        assertEquals(64, info.pageCount);
+        assertEquals(64, info.newPages);
+        assertEquals(PAGE_SIZE, info.pageSize);
+        assertEquals(DB_VERSION, info.dbVersion);
+        assertArrayEquals(bytes, rebuilt(1));
+    }
+
+    @Test
+    public void store_writesOnlyNewPages_andMatchesMovedPages() throws IOException {
+        byte[] bytes = database(64);
+        DatabaseBackup.store(dir, write(bytes), 1);
+
+        changePage(bytes, 10);
+        // Page 40 moves to page 41: found by content, not position
+        System.arraycopy(bytes, 40 * PAGE_SIZE, bytes, 41 * PAGE_SIZE, PAGE_SIZE);
+        DatabaseBackup.BackupInfo info = DatabaseBackup.store(dir, write(bytes), 2);
+        assertEquals(1, info.newPages);
+        assertArrayEquals(bytes, rebuilt(2));
+
+        DatabaseBackup.BackupInfo same = DatabaseBackup.store(dir, write(bytes), 3);
+        assertEquals(0, same.newPages);
+        assertFalse(new File(dir, "3.pack").exists());
+        assertArrayEquals(bytes, rebuilt(3));
+    }
+
+    @Test
+    public void store_readsOnlyTheGivenPageCount() throws IOException {
+        byte[] bytes = database(32);
+        DatabaseBackup.BackupInfo info = DatabaseBackup.store(dir, write(bytes), 20, 1);
+        assertEquals(20, info.pageCount);
+        byte[] prefix = new byte[20 * PAGE_SIZE];
+        System.arraycopy(bytes, 0, prefix, 0, prefix.length);
+        assertArrayEquals(prefix, rebuilt(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void store_rejectsMorePagesThanTheFileHolds() throws IOException {
+        DatabaseBackup.store(dir, write(database(8)), 9, 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void store_rejectsFilesThatAreNotSqlite() throws IOException {
+        byte[] bytes = database(4);
+        bytes[0] = 'X';
+        DatabaseBackup.store(dir, write(bytes), 1);
+    }
+
+    @Test
+    public void store_restartsTheChainWhenPacksOutgrowTheDatabase() throws IOException {
+        byte[] bytes = database(10);
+        DatabaseBackup.store(dir, write(bytes), 1);
+        for (int page = 1; page < 10; page++) {
+            changePage(bytes, page);
+        }
+        assertEquals(9, DatabaseBackup.store(dir, write(bytes), 2).newPages);
+        for (int page = 1; page < 9; page++) {
+            changePage(bytes, page);
+        }
+        // Backup 3 references 10 + 9 + 8 pages of packs, more than MAX_PACK_GROWTH times 10
+        assertEquals(8, DatabaseBackup.store(dir, write(bytes), 3).newPages);
+
+        changePage(bytes, 9);
+        assertEquals(10, DatabaseBackup.store(dir, write(bytes), 4).newPages);
+        assertArrayEquals(bytes, rebuilt(4));
+    }
+
+    @Test
+    public void rebuild_detectsDamagedPages() throws IOException {
+        DatabaseBackup.store(dir, write(database(16)), 1);
+        try (RandomAccessFile pack = new RandomAccessFile(new File(dir, "1.pack"), "rw")) {
+            pack.seek(5L * PAGE_SIZE + 100);
+            int b = pack.read();
+            pack.seek(5L * PAGE_SIZE + 100);
+            pack.write(b ^ 1);
+        }
+        try {
+            rebuilt(1);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("page 6"));
+        }
+    }
+
+    @Test
+    public void prune_keepsNewestBackupsAndTheirPacks() throws IOException {
+        byte[] bytes = database(16);
+        byte[][] versions = new byte[10][];
+        for (int id = 1; id <= 10; id++) {
+            changePage(bytes, 3);
+            DatabaseBackup.store(dir, write(bytes), id);
+            versions[id - 1] = bytes.clone();
+        }
+        assertTrue(new File(dir, "11.pack.tmp").createNewFile());
+
+        DatabaseBackup.prune(dir, 3);
+
+        for (int id = 1; id <= 7; id++) {
+            assertFalse(new File(dir, id + ".manifest").exists());
+        }
+        // Pack 1 holds the unchanged pages every backup still references;
+        // the page changed by backups 2 to 7 is only in their own packs
+        assertTrue(new File(dir, "1.pack").exists());
+        for (int id = 2; id <= 7; id++) {
+            assertFalse(new File(dir, id + ".pack").exists());
+        }
+        assertFalse(new File(dir, "11.pack.tmp").exists());
+        for (int id = 8; id <= 10; id++) {
+            assertArrayEquals(versions[id - 1], rebuilt(id));
+        }
+    }
+
+    private static void deleteTree(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}
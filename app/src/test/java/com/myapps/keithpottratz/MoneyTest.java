@@ -0,0 +1,69 @@
+package com.myapps.keithpottratz;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for Money parsing and formatting.
+ */
+public class MoneyTest {
+    @Test
+    public void parseCents_acceptsWholeAndFractionalAmounts() {
+        assertEquals(1200, Money.parseCents("12"));
+        assertEquals(1250, Money.parseCents("12.5"));
+        assertEquals(1234, Money.parseCents(" 12.34 "));
+        assertEquals(0, Money.parseCents("0"));
+        assertEquals(-199, Money.parseCents("-1.99"));
+    }
+
+    @Test
+    public void parseCents_roundsHalfUp() {
+        assertEquals(1235, Money.parseCents("12.345"));
+        assertEquals(1234, Money.parseCents("12.3449"));
+        assertEquals(1, Money.parseCents("0.005"));
+        assertEquals(-1235, Money.parseCents("-12.345"));
+    }
+
+    @Test
+    public void parseCents_isExactWhereDoublesAreNot() {
+        // 0.29 * 100 is 28.999999999999996 as a double
+        assertEquals(29, Money.parseCents("0.29"));
+        assertEquals(1999999999999L, Money.parseCents("19999999999.99"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseCents_rejectsText() {
+        Money.parseCents("12,50");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseCents_rejectsEmpty() {
+        Money.parseCents("  ");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseCents_rejectsOutOfRange() {
+        Money.parseCents("1e20");
+    }
+
+    @Test
+    public void format_groupsUnitsAndPadsCents() {
+        assertEquals("$0.00", Money.format(0));
+        assertEquals("$0.05", Money.format(5));
+        assertEquals("$12.50", Money.format(1250));
+        assertEquals("$1,234.56", Money.format(123456));
+        assertEquals("-$1,234.56", Money.format(-123456));
+        assertEquals("$92,233,720,368,547,758.07", Money.format(Long.MAX_VALUE));
+        assertEquals("-$92,233,720,368,547,758.08", Money.format(Long.MIN_VALUE));
+        assertEquals("-$0.05", Money.format(-5));
+    }
+
+    @Test
+    public void format_roundTripsThroughParse() {
+        for (long cents : new long[]{0, 1, 99, 100, 123456, 98765432101L}) {
+            String text = Money.format(cents).replace("$", "").replace(",", "");
+            assertEquals(cents, Money.parseCents(text));
+        }
+    }
+}
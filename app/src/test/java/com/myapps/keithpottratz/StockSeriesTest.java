@@ -0,0 +1,99 @@
+package com.myapps.keithpottratz;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for StockSeries.downsample (LTTB).
+ */
+public class StockSeriesTest {
+    private static final long HOUR = 60L * 60 * 1000;
+    private static final long EPOCH_2026 = 1767225600000L;
+
+    private static StockSeriesPoint point(long bucketStart, long close) {
+        return new StockSeriesPoint(StockSeriesPoint.SCOPE_ITEM, 1, "HOUR", bucketStart,
+                close, close, close, close, 1);
+    }
+
+    private static List<StockSeriesPoint> series(long origin, long[] levels) {
+        List<StockSeriesPoint> points = new ArrayList<>();
+        for (int i = 0; i < levels.length; i++) {
+            points.add(point(origin + i * HOUR, levels[i]));
+        }
+        return points;
+    }
+
+    private static long[] wave(int size) {
+        long[] levels = new long[size];
+        for (int i = 0; i < size; i++) {
+            levels[i] = 500 + Math.round(400 * Math.sin(i / 7.0)) + (i * 31 % 17);
+        }
+        return levels;
+    }
+
+    @Test
+    public void downsample_returnsCopyWhenShortEnough() {
+        List<StockSeriesPoint> points = series(0, new long[]{5, 3, 8});
+        List<StockSeriesPoint> sampled = StockSeries.downsample(points, 3);
+        assertEquals(points, sampled);
+        assertNotSame(points, sampled);
+
+        assertEquals(points, StockSeries.downsample(points, 10));
+    }
+
+    @Test
+    public void downsample_ignoresThresholdsBelowThree() {
+        List<StockSeriesPoint> points = series(0, wave(20));
+        assertEquals(points, StockSeries.downsample(points, 2));
+        assertEquals(points, StockSeries.downsample(points, 0));
+    }
+
+    @Test
+    public void downsample_keepsEndsAndOrder() {
+        List<StockSeriesPoint> points = series(0, wave(1000));
+        for (int threshold : new int[]{3, 4, 10, 99, 500, 999}) {
+            List<StockSeriesPoint> sampled = StockSeries.downsample(points, threshold);
+            assertEquals(threshold, sampled.size());
+            assertSame(points.get(0), sampled.get(0));
+            assertSame(points.get(999), sampled.get(threshold - 1));
+            for (int i = 1; i < sampled.size(); i++) {
+                assertTrue(sampled.get(i).getBucketStart() > sampled.get(i - 1).getBucketStart());
+            }
+        }
+    }
+
+    @Test
+    public void downsample_keepsSpikes() {
+        long[] levels = new long[300];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = 100;
+        }
+        levels[77] = 900;
+        levels[210] = 0;
+        List<StockSeriesPoint> sampled = StockSeries.downsample(series(0, levels), 12);
+
+        boolean high = false;
+        boolean low = false;
+        for (StockSeriesPoint point : sampled) {
+            high |= point.getCloseQuantity() == 900;
+            low |= point.getCloseQuantity() == 0;
+        }
+        assertTrue(high);
+        assertTrue(low);
+    }
+
+    @Test
+    public void downsample_doesNotDependOnTheTimeOrigin() {
+        long[] levels = wave(2000);
+        List<StockSeriesPoint> atZero = StockSeries.downsample(series(0, levels), 150);
+        List<StockSeriesPoint> atEpoch = StockSeries.downsample(series(EPOCH_2026, levels), 150);
+        assertEquals(atZero.size(), atEpoch.size());
+        for (int i = 0; i < atZero.size(); i++) {
+            assertEquals(atZero.get(i).getBucketStart() + EPOCH_2026, atEpoch.get(i).getBucketStart());
+        }
+    }
+}